@@ -0,0 +1,97 @@
+package com.daycode.benchmark;
+
+import com.daycode.aggregate.CityDictionary;
+import com.daycode.aggregate.RollupCube;
+import com.daycode.aggregate.SketchSettings;
+import com.daycode.model.AggregateStorage;
+import com.daycode.model.TemperatureRecord;
+import com.daycode.service.TemperatureService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregates chunks of records with {@link TemperatureService#processTemperatureRecords(List)} from growing number
+ * of threads, as writer threads of the import step do, with aggregates on the heap and off the heap. Score is
+ * throughput of records per thread, so flat score means linear scaling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregationBenchmark {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    @Param({"HEAP", "OFF_HEAP"})
+    public AggregateStorage storage;
+
+    private TemperatureService temperatureService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        temperatureService = new TemperatureService(new CityDictionary(),
+                new RollupCube(SketchSettings.DEFAULT, storage));
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public void oneThread(Chunk chunk) {
+        temperatureService.processTemperatureRecords(chunk.records);
+    }
+
+    @Benchmark
+    @Threads(2)
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public void twoThreads(Chunk chunk) {
+        temperatureService.processTemperatureRecords(chunk.records);
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public void fourThreads(Chunk chunk) {
+        temperatureService.processTemperatureRecords(chunk.records);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public void allThreads(Chunk chunk) {
+        temperatureService.processTemperatureRecords(chunk.records);
+    }
+
+    /**
+     * Chunk of records of single writer thread.
+     */
+    @State(Scope.Thread)
+    public static class Chunk {
+
+        @Param({"10", "1000"})
+        public int cities;
+
+        private List<TemperatureRecord> records;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            records = BenchmarkData.records(CHUNK_SIZE, cities);
+        }
+    }
+}
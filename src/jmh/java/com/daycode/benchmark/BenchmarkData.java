@@ -0,0 +1,94 @@
+package com.daycode.benchmark;
+
+import com.daycode.mapper.TemperatureLineParser;
+import com.daycode.model.TemperatureRecord;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Deterministic sample data shared by benchmarks.
+ */
+final class BenchmarkData {
+
+    static final String[] FIELD_NAMES = {"city", "timestamp", "temperature"};
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final LocalDateTime START = LocalDateTime.of(2015, 1, 1, 0, 0);
+    private static final long SEED = 42;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @return Name of city with given index.
+     */
+    static String city(int index) {
+        return "City " + index;
+    }
+
+    /**
+     * Generates lines of the source file layout, 13 minutes apart, cities in random order.
+     *
+     * @param count  Number of lines.
+     * @param cities Number of distinct cities.
+     * @return Fields of every line.
+     */
+    static List<String[]> lines(int count, int cities) {
+        Random random = new Random(SEED);
+        List<String[]> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(new String[]{city(random.nextInt(cities)), START.plusMinutes(13L * i).format(FORMATTER),
+                    String.format(Locale.ROOT, "%.2f", random.nextInt(6000) / 100.0 - 20)});
+        }
+        return lines;
+    }
+
+    /**
+     * Parses generated lines into records.
+     *
+     * @param count  Number of records.
+     * @param cities Number of distinct cities.
+     * @return Records with city, timestamp and temperature set.
+     */
+    static List<TemperatureRecord> records(int count, int cities) {
+        List<TemperatureRecord> records = new ArrayList<>(count);
+        for (String[] line : lines(count, cities)) {
+            TemperatureRecord record = new TemperatureRecord();
+            record.setCity(line[0]);
+            TemperatureLineParser.parseTimestamp(line[1], record);
+            TemperatureLineParser.parseTemperature(line[2], record);
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Writes generated lines to temporary file deleted on exit.
+     *
+     * @param count  Number of lines.
+     * @param cities Number of distinct cities.
+     * @return Path of the written file.
+     * @throws IOException when file can't be written.
+     */
+    static Path file(int count, int cities) throws IOException {
+        Path file = Files.createTempFile("temperatures", ".csv");
+        file.toFile().deleteOnExit();
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (String[] line : lines(count, cities)) {
+                writer.write(String.join(";", line));
+                writer.write('\n');
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,112 @@
+package com.daycode.benchmark;
+
+import com.daycode.mapper.RecordMapper;
+import com.daycode.mapper.TemperatureLineDecoder;
+import com.daycode.mapper.TemperatureRecordRing;
+import com.daycode.model.TemperatureRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.file.transform.DefaultFieldSet;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.item.file.transform.FieldSet;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares steps of turning a line into record: tokenizing by {@link DelimitedLineTokenizer}, mapping of tokens
+ * by {@link RecordMapper#mapFieldSet(FieldSet)}, and decoding raw bytes by {@link TemperatureLineDecoder}.
+ * Score is time per line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int LINES = 1024;
+
+    @Param({"false", "true"})
+    public boolean reuseRecords;
+
+    private String[] lines;
+    private FieldSet[] fieldSets;
+    private ByteBuffer bytes;
+    private int[] lineStarts;
+    private DelimitedLineTokenizer tokenizer;
+    private RecordMapper mapper;
+    private TemperatureLineDecoder decoder;
+    private TemperatureRecord record;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String[]> fields = BenchmarkData.lines(LINES, 100);
+        lines = new String[LINES];
+        fieldSets = new FieldSet[LINES];
+        lineStarts = new int[LINES + 1];
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            lines[i] = String.join(";", fields.get(i));
+            fieldSets[i] = new DefaultFieldSet(fields.get(i), BenchmarkData.FIELD_NAMES);
+            lineStarts[i] = content.length();
+            content.append(lines[i]).append('\n');
+        }
+        lineStarts[LINES] = content.length();
+        bytes = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.US_ASCII));
+        tokenizer = new DelimitedLineTokenizer(";");
+        tokenizer.setNames(BenchmarkData.FIELD_NAMES);
+        mapper = reuseRecords ? new RecordMapper(new TemperatureRecordRing(LINES)) : new RecordMapper();
+        decoder = new TemperatureLineDecoder();
+        record = new TemperatureRecord();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void tokenize(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(tokenizer.tokenize(line));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void mapFieldSet(Blackhole blackhole) {
+        for (FieldSet fieldSet : fieldSets) {
+            blackhole.consume(mapper.mapFieldSet(fieldSet));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void tokenizeAndMap(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(mapper.mapFieldSet(tokenizer.tokenize(line)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void decodeBytes(Blackhole blackhole) {
+        for (int i = 0; i < LINES; i++) {
+            TemperatureRecord decoded = reuseRecords ? record : new TemperatureRecord();
+            decoder.decode(bytes, lineStarts[i], lineStarts[i + 1] - 1, decoded);
+            blackhole.consume(decoded);
+        }
+    }
+}
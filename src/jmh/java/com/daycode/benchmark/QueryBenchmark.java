@@ -0,0 +1,85 @@
+package com.daycode.benchmark;
+
+import com.daycode.aggregate.TemperatureSnapshot;
+import com.daycode.controller.SerializedResponseCache;
+import com.daycode.model.YearlyAverageTemperature;
+import com.daycode.service.TemperatureService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Serves yearly averages of random cities the way /average-temperatures does, once by querying published snapshot
+ * and serializing the response on every call, once from {@link SerializedResponseCache}. Score is time per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class QueryBenchmark {
+
+    @Param("100")
+    public int cities;
+
+    @Param("200000")
+    public int records;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TemperatureService temperatureService;
+    private SerializedResponseCache responseCache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        temperatureService = new TemperatureService();
+        temperatureService.processTemperatureRecords(BenchmarkData.records(records, cities));
+        temperatureService.publishAggregates(true);
+        responseCache = new SerializedResponseCache(objectMapper);
+    }
+
+    @Benchmark
+    public byte[] withoutCache() throws JsonProcessingException {
+        String city = randomCity();
+        return objectMapper.writeValueAsBytes(yearlyAverages(temperatureService.getSnapshot(), city));
+    }
+
+    @Benchmark
+    public byte[] withCache() {
+        String city = randomCity();
+        TemperatureSnapshot snapshot = temperatureService.getSnapshot();
+        return responseCache.get(city, temperatureService.getCityVersion(snapshot, city),
+                () -> yearlyAverages(snapshot, city));
+    }
+
+    private String randomCity() {
+        return BenchmarkData.city(ThreadLocalRandom.current().nextInt(cities)).toLowerCase();
+    }
+
+    private List<YearlyAverageTemperature> yearlyAverages(TemperatureSnapshot snapshot, String city) {
+        Map<Integer, Double> averages = temperatureService.getYearlyAverageTemperatures(snapshot, city);
+        return averages.entrySet().stream()
+                .map(entry -> new YearlyAverageTemperature(entry.getKey().toString(),
+                        Math.round(entry.getValue() * 10.0) / 10.0))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,119 @@
+package com.daycode.benchmark;
+
+import com.daycode.mapper.RecordMapper;
+import com.daycode.mapper.TemperatureRecordRing;
+import com.daycode.model.TemperatureRecord;
+import com.daycode.reader.MappedTemperatureItemReader;
+import com.daycode.reader.StreamingTemperatureParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Reads whole generated file with every reader of the source file. Score is time of reading the file,
+ * divide by {@link #lines} for time per line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReaderBenchmark {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Param("200000")
+    public int lines;
+
+    @Param("100")
+    public int cities;
+
+    @Param({"false", "true"})
+    public boolean reuseRecords;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = BenchmarkData.file(lines, cities);
+    }
+
+    @Benchmark
+    public void flatFileItemReader(Blackhole blackhole) throws Exception {
+        FlatFileItemReader<TemperatureRecord> reader = new FlatFileItemReaderBuilder<TemperatureRecord>()
+                .name("temperatureItemReader")
+                .resource(new FileSystemResource(file))
+                .delimited()
+                .delimiter(";")
+                .names(BenchmarkData.FIELD_NAMES)
+                .fieldSetMapper(new RecordMapper(records()))
+                .saveState(false)
+                .build();
+        readAll(reader, blackhole);
+    }
+
+    @Benchmark
+    public void mappedReader(Blackhole blackhole) throws Exception {
+        MappedTemperatureItemReader reader = new MappedTemperatureItemReader(file, records());
+        reader.setName("temperatureItemReader");
+        readAll(reader, blackhole);
+    }
+
+    @Benchmark
+    public void streamingParser(Blackhole blackhole) throws IOException {
+        StreamingTemperatureParser parser = new StreamingTemperatureParser(file.toString());
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer.clear()) >= 0) {
+                consume(parser.parse(buffer.flip()), blackhole);
+            }
+        }
+        consume(parser.finish(), blackhole);
+    }
+
+    private Supplier<TemperatureRecord> records() {
+        return reuseRecords ? new TemperatureRecordRing(1000) : TemperatureRecord::new;
+    }
+
+    private static void readAll(ItemStreamReader<TemperatureRecord> reader, Blackhole blackhole) throws Exception {
+        reader.open(new ExecutionContext());
+        try {
+            for (TemperatureRecord record = reader.read(); record != null; record = reader.read()) {
+                blackhole.consume(record);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void consume(List<TemperatureRecord> records, Blackhole blackhole) {
+        for (TemperatureRecord record : records) {
+            blackhole.consume(record);
+        }
+    }
+}
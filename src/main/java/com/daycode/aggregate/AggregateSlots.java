@@ -0,0 +1,66 @@
+package com.daycode.aggregate;
+
+/**
+ * Storage of {@link AggregateTable}: entries with key, sum, count, min, max and index of the next entry of the same
+ * city, open-addressed hash index of entries with twice as many slots as entries, and the first entry of every city.
+ * Missing entries are {@link #NONE}.
+ */
+interface AggregateSlots {
+
+    int NONE = -1;
+
+    /**
+     * @return Number of entries which fit without growing.
+     */
+    int capacity();
+
+    /**
+     * Doubles entry capacity and index length, leaving index empty.
+     */
+    void grow();
+
+    long key(int entry);
+
+    long sum(int entry);
+
+    long count(int entry);
+
+    long min(int entry);
+
+    long max(int entry);
+
+    int next(int entry);
+
+    /**
+     * Initializes new entry with no measurements.
+     */
+    void insert(int entry, long key, int next);
+
+    /**
+     * Adds aggregated measurements to the entry.
+     */
+    void add(int entry, long sum, long count, long min, long max);
+
+    int indexLength();
+
+    int indexed(int slot);
+
+    void index(int slot, int entry);
+
+    int cityCount();
+
+    int cityHead(int cityId);
+
+    void cityHead(int cityId, int entry);
+
+    /**
+     * Makes room for heads of at least given number of cities.
+     */
+    void ensureCities(int cityCount);
+
+    /**
+     * @param size Number of used entries.
+     * @return Independent copy of used entries, index and city heads.
+     */
+    AggregateSlots copy(int size);
+}
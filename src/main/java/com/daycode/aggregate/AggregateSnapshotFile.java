@@ -0,0 +1,178 @@
+package com.daycode.aggregate;
+
+import com.daycode.model.FileFingerprint;
+import com.daycode.model.Granularity;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Versioned file with published aggregates and fingerprint of the source prefix they were built from.
+ * File is written next to its target and moved in place, so readers never see partially written file.
+ * <pre>
+ * int magic, int version, UTF source path, long source length, long head checksum, long tail checksum,
+ * int cityCount, UTF[cityCount] city names,
+ * double sketch relative accuracy, int sketch max bins,
+ * for every granularity: int entryCount, (int cityId, int bucket, long sum, long count, long min, long max)[entryCount]
+ * and sketch of every yearly entry, see {@link QuantileSketch#write(java.io.DataOutput)}
+ * </pre>
+ * Files of other versions are not read, so aggregates are then rebuilt from the source.
+ */
+public final class AggregateSnapshotFile {
+
+    private static final int MAGIC = 0x54534E50;
+    private static final int VERSION = 4;
+
+    private AggregateSnapshotFile() {
+    }
+
+    /**
+     * Writes aggregates to the file.
+     *
+     * @param file     Target file.
+     * @param contents Aggregates with their source.
+     * @throws IOException in case of issues writing the file.
+     */
+    public static void write(Path file, Contents contents) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                write(out, contents);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes aggregates in the file format to a stream, e.g. to send them to another instance.
+     *
+     * @param stream   Target stream, left open.
+     * @param contents Aggregates with their source.
+     * @throws IOException in case of issues writing the stream.
+     */
+    public static void write(OutputStream stream, Contents contents) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(contents.sourcePath);
+            out.writeLong(contents.source.getLength());
+            out.writeLong(contents.source.getHeadChecksum());
+            out.writeLong(contents.source.getTailChecksum());
+            out.writeLong(contents.source.getSampleChecksum());
+            out.writeInt(contents.cityNames.length);
+            for (String cityName : contents.cityNames) {
+                out.writeUTF(cityName);
+            }
+            SketchSettings sketchSettings = contents.rollup.getSketchSettings();
+            out.writeDouble(sketchSettings.getRelativeAccuracy());
+            out.writeInt(sketchSettings.getMaxBins());
+            for (Granularity granularity : Granularity.values()) {
+                writeTable(out, contents.rollup.table(granularity));
+            }
+            QuantileSketch empty = new QuantileSketch(sketchSettings);
+            for (int entry = 0; entry < contents.rollup.table(Granularity.YEAR).size(); entry++) {
+                QuantileSketch sketch = contents.rollup.findSketch(entry);
+                (sketch != null ? sketch : empty).write(out);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads aggregates from the file.
+     *
+     * @param file Snapshot file.
+     * @return Aggregates with their source.
+     * @throws IOException in case of issues reading the file, or if it has different version.
+     */
+    public static Contents read(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return read(in, file.toString());
+        }
+    }
+
+    /**
+     * Reads aggregates written by {@link #write(OutputStream, Contents)}.
+     *
+     * @param stream Source stream, left open.
+     * @param name   Name of the stream for error messages.
+     * @return Aggregates with their source.
+     * @throws IOException in case of issues reading the stream, or if it has different version.
+     */
+    public static Contents read(InputStream stream, String name) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException(name + " is not aggregate snapshot.");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported aggregate snapshot version " + version + " of " + name);
+        }
+        String sourcePath = in.readUTF();
+        FileFingerprint source = new FileFingerprint(in.readLong(), in.readLong(), in.readLong(), in.readLong());
+        String[] cityNames = new String[in.readInt()];
+        for (int i = 0; i < cityNames.length; i++) {
+            cityNames[i] = in.readUTF();
+        }
+        SketchSettings sketchSettings = new SketchSettings(in.readDouble(), in.readInt());
+        RollupCube rollup = new RollupCube(sketchSettings);
+        for (Granularity granularity : Granularity.values()) {
+            AggregateTable table = rollup.table(granularity);
+            int entries = in.readInt();
+            for (int i = 0; i < entries; i++) {
+                table.add(in.readInt(), in.readInt(), in.readLong(), in.readLong(), in.readLong(), in.readLong());
+            }
+        }
+        for (int entry = 0; entry < rollup.table(Granularity.YEAR).size(); entry++) {
+            rollup.sketch(entry).merge(QuantileSketch.read(in, sketchSettings));
+        }
+        return new Contents(sourcePath, source, cityNames, rollup);
+    }
+
+    private static void writeTable(DataOutputStream out, AggregateTable table) throws IOException {
+        out.writeInt(table.size());
+        table.forEach((cityId, bucket, sum, count, min, max) -> {
+            try {
+                out.writeInt(cityId);
+                out.writeInt(bucket);
+                out.writeLong(sum);
+                out.writeLong(count);
+                out.writeLong(min);
+                out.writeLong(max);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Aggregates with their source. City ids of the rollup index city names.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Contents {
+
+        private final String sourcePath;
+        private final FileFingerprint source;
+        private final String[] cityNames;
+        private final RollupCube rollup;
+    }
+}
@@ -0,0 +1,338 @@
+package com.daycode.aggregate;
+
+import com.daycode.model.AggregateStorage;
+import com.daycode.model.Metric;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Sum, count, min and max (in hundredths of degree) of temperatures kept per (city, bucket) pair, where bucket is
+ * e.g. a year.
+ * Entries live in primitive slots in insertion order and are found through an open-addressed
+ * index of long keys, so adding a value does not allocate. Entries of the same city are chained,
+ * which lets per city queries visit only their own entries. Slots are kept in {@link AggregateStorage}
+ * chosen on creation, on the heap or in direct buffers.
+ * Table is not thread safe.
+ */
+public class AggregateTable {
+
+    private static final int NONE = AggregateSlots.NONE;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final AggregateStorage storage;
+    private AggregateSlots slots;
+    private int size;
+
+    /**
+     * Creates empty table on the heap.
+     */
+    public AggregateTable() {
+        this(AggregateStorage.HEAP);
+    }
+
+    /**
+     * Creates empty table.
+     *
+     * @param storage Memory of the entries.
+     */
+    public AggregateTable(AggregateStorage storage) {
+        this.storage = storage;
+        clear();
+    }
+
+    /**
+     * Adds single measurement to the entry of given city and bucket, creating it if necessary.
+     *
+     * @param cityId City id from {@link CityDictionary}.
+     * @param bucket Bucket of the entry, e.g. year.
+     * @param value  Temperature in hundredths of degree.
+     * @return Index of the updated entry.
+     */
+    public int add(int cityId, int bucket, long value) {
+        return add(cityId, bucket, value, 1, value, value);
+    }
+
+    /**
+     * Adds aggregated measurements to the entry of given city and bucket, creating it if necessary.
+     *
+     * @param cityId City id from {@link CityDictionary}.
+     * @param bucket Bucket of the entry, e.g. year.
+     * @param sum    Sum of temperatures in hundredths of degree to add.
+     * @param count  Number of measurements to add.
+     * @param min    Lowest of added temperatures in hundredths of degree.
+     * @param max    Highest of added temperatures in hundredths of degree.
+     * @return Index of the updated entry.
+     */
+    public int add(int cityId, int bucket, long sum, long count, long min, long max) {
+        int entry = entry(cityId, bucket);
+        slots.add(entry, sum, count, min, max);
+        return entry;
+    }
+
+    /**
+     * Adds all entries of other table into this one.
+     *
+     * @param other Table to merge.
+     * @return Indexes of entries of this table, which entries of other table were merged into.
+     */
+    public int[] merge(AggregateTable other) {
+        return merge(other, null);
+    }
+
+    /**
+     * Adds all entries of other table, which uses different city ids, into this one.
+     *
+     * @param other   Table to merge.
+     * @param cityIds City ids of this table indexed by city ids of other table, {@code null} when ids are the same.
+     *                Entries of cities mapped to negative id are skipped.
+     * @return Indexes of entries of this table, which entries of other table were merged into, {@code -1} for skipped
+     * entries.
+     */
+    public int[] merge(AggregateTable other, int[] cityIds) {
+        AggregateSlots source = other.slots;
+        int[] merged = new int[other.size];
+        for (int i = 0; i < other.size; i++) {
+            long key = source.key(i);
+            int cityId = cityIds == null ? cityId(key) : cityIds[cityId(key)];
+            merged[i] = cityId < 0 ? -1
+                    : add(cityId, bucket(key), source.sum(i), source.count(i), source.min(i), source.max(i));
+        }
+        return merged;
+    }
+
+    /**
+     * @param cityId City id from {@link CityDictionary}.
+     * @return Map with buckets and respective entry indexes sorted by bucket, empty if city has no entries.
+     */
+    public SortedMap<Integer, Integer> entries(int cityId) {
+        SortedMap<Integer, Integer> entries = new TreeMap<>();
+        if (cityId < 0 || cityId >= slots.cityCount()) {
+            return entries;
+        }
+        for (int entry = slots.cityHead(cityId); entry != NONE; entry = slots.next(entry)) {
+            entries.put(bucket(slots.key(entry)), entry);
+        }
+        return entries;
+    }
+
+    /**
+     * @param cityId City id from {@link CityDictionary}.
+     * @return {@code true} if city has at least one entry.
+     */
+    public boolean contains(int cityId) {
+        return cityId >= 0 && cityId < slots.cityCount() && slots.cityHead(cityId) != NONE;
+    }
+
+    /**
+     * Visits all entries in insertion order.
+     *
+     * @param consumer Consumer of the entries.
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            long key = slots.key(i);
+            consumer.accept(cityId(key), bucket(key), slots.sum(i), slots.count(i), slots.min(i), slots.max(i));
+        }
+    }
+
+    /**
+     * Calculates digest of entries of every city. Digest does not depend on the order entries were added in,
+     * so tables with equal contents have equal digests.
+     *
+     * @return Digests indexed by city id, {@code 0} for cities without entries.
+     */
+    public long[] cityDigests() {
+        return cityDigests(entry -> 0);
+    }
+
+    /**
+     * Calculates digest of entries of every city, including state kept outside of the table for each entry.
+     *
+     * @param entryDigests Digest of additional state of the entry with given index.
+     * @return Digests indexed by city id, {@code 0} for cities without entries.
+     */
+    public long[] cityDigests(IntToLongFunction entryDigests) {
+        long[] digests = new long[slots.cityCount()];
+        for (int i = 0; i < size; i++) {
+            long key = slots.key(i);
+            long hash = mix(key);
+            hash = mix(hash ^ slots.sum(i));
+            hash = mix(hash ^ slots.count(i));
+            hash = mix(hash ^ slots.min(i));
+            hash = mix(hash ^ slots.max(i));
+            hash = mix(hash ^ entryDigests.applyAsLong(i));
+            digests[cityId(key)] += hash | 1;
+        }
+        return digests;
+    }
+
+    /**
+     * Calculates averages of all buckets of given city.
+     *
+     * @param cityId City id from {@link CityDictionary}.
+     * @return Map with buckets and respective averages, empty if city has no entries.
+     */
+    public Map<Integer, Double> averages(int cityId) {
+        Map<Integer, Double> averages = new HashMap<>();
+        if (cityId < 0 || cityId >= slots.cityCount()) {
+            return averages;
+        }
+        for (int entry = slots.cityHead(cityId); entry != NONE; entry = slots.next(entry)) {
+            averages.put(bucket(slots.key(entry)), slots.sum(entry) / (slots.count(entry) * 100.0));
+        }
+        return averages;
+    }
+
+    /**
+     * Calculates given metric of all buckets of given city.
+     *
+     * @param cityId City id from {@link CityDictionary}.
+     * @param metric Calculated metric, temperatures are in degrees.
+     * @return Map with buckets and respective values sorted by bucket, empty if city has no entries.
+     */
+    public SortedMap<Integer, Double> values(int cityId, Metric metric) {
+        SortedMap<Integer, Double> values = new TreeMap<>();
+        if (cityId < 0 || cityId >= slots.cityCount()) {
+            return values;
+        }
+        for (int entry = slots.cityHead(cityId); entry != NONE; entry = slots.next(entry)) {
+            values.put(bucket(slots.key(entry)), value(entry, metric));
+        }
+        return values;
+    }
+
+    /**
+     * @return Independent copy of this table in the same storage.
+     */
+    public AggregateTable copy() {
+        AggregateTable copy = new AggregateTable(storage);
+        copy.slots = slots.copy(size);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        slots = storage == AggregateStorage.OFF_HEAP ? new OffHeapSlots(INITIAL_CAPACITY)
+                : new HeapSlots(INITIAL_CAPACITY);
+        size = 0;
+    }
+
+    /**
+     * @return Number of (city, bucket) entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Memory of the entries.
+     */
+    public AggregateStorage getStorage() {
+        return storage;
+    }
+
+    private double value(int entry, Metric metric) {
+        switch (metric) {
+            case MIN:
+                return slots.min(entry) / 100.0;
+            case MAX:
+                return slots.max(entry) / 100.0;
+            case COUNT:
+                return slots.count(entry);
+            case SUM:
+                return slots.sum(entry) / 100.0;
+            default:
+                return slots.sum(entry) / (slots.count(entry) * 100.0);
+        }
+    }
+
+    private int entry(int cityId, int bucket) {
+        long key = key(cityId, bucket);
+        int mask = slots.indexLength() - 1;
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            int entry = slots.indexed(slot);
+            if (entry == NONE) {
+                return insert(slot, key, cityId);
+            }
+            if (slots.key(entry) == key) {
+                return entry;
+            }
+        }
+    }
+
+    private int insert(int slot, long key, int cityId) {
+        if (size == slots.capacity()) {
+            grow();
+            slot = freeSlot(key, slots.indexLength() - 1);
+        }
+        slots.ensureCities(cityId + 1);
+        int entry = size++;
+        slots.insert(entry, key, slots.cityHead(cityId));
+        slots.cityHead(cityId, entry);
+        slots.index(slot, entry);
+        return entry;
+    }
+
+    private void grow() {
+        slots.grow();
+        int mask = slots.indexLength() - 1;
+        for (int entry = 0; entry < size; entry++) {
+            slots.index(freeSlot(slots.key(entry), mask), entry);
+        }
+    }
+
+    private int freeSlot(long key, int mask) {
+        int slot = slot(key, mask);
+        while (slots.indexed(slot) != NONE) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    private static long key(int cityId, int bucket) {
+        return ((long) cityId << 32) | (bucket & 0xFFFFFFFFL);
+    }
+
+    private static int cityId(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int bucket(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Receives entries of the table.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        /**
+         * @param cityId City id from {@link CityDictionary}.
+         * @param bucket Bucket of the entry, e.g. year.
+         * @param sum    Sum of temperatures in hundredths of degree.
+         * @param count  Number of measurements.
+         * @param min    Lowest temperature in hundredths of degree.
+         * @param max    Highest temperature in hundredths of degree.
+         */
+        void accept(int cityId, int bucket, long sum, long count, long min, long max);
+    }
+}
@@ -0,0 +1,71 @@
+package com.daycode.aggregate;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns normalized city names to dense int ids. Ids are never reused, so they stay valid for the
+ * whole application lifetime. Lookups are lock free, only registration of a new city is synchronized.
+ */
+public class CityDictionary {
+
+    /**
+     * Id returned for cities which are not registered.
+     */
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[16];
+    private volatile int size;
+
+    /**
+     * Returns id of given city, registering it when seen for the first time.
+     *
+     * @param city Normalized city name.
+     * @return Dense city id.
+     */
+    public int idOf(String city) {
+        Integer id = ids.get(city);
+        return id != null ? id : register(city);
+    }
+
+    /**
+     * @param city Normalized city name.
+     * @return City id or {@link #UNKNOWN} when city was never registered.
+     */
+    public int find(String city) {
+        Integer id = ids.get(city);
+        return id != null ? id : UNKNOWN;
+    }
+
+    /**
+     * @param id City id.
+     * @return Normalized city name registered with given id.
+     */
+    public String name(int id) {
+        return names[id];
+    }
+
+    /**
+     * @return Number of registered cities.
+     */
+    public int size() {
+        return size;
+    }
+
+    private synchronized int register(String city) {
+        Integer id = ids.get(city);
+        if (id != null) {
+            return id;
+        }
+        int newId = size;
+        if (newId == names.length) {
+            names = Arrays.copyOf(names, newId * 2);
+        }
+        names[newId] = city;
+        size = newId + 1;
+        ids.put(city, newId);
+        return newId;
+    }
+}
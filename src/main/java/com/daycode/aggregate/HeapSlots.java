@@ -0,0 +1,158 @@
+package com.daycode.aggregate;
+
+import com.daycode.model.AggregateStorage;
+
+import java.util.Arrays;
+
+/**
+ * Slots of {@link AggregateStorage#HEAP} table, one primitive array per field.
+ */
+class HeapSlots implements AggregateSlots {
+
+    private int[] index;
+    private long[] keys;
+    private long[] sums;
+    private long[] counts;
+    private long[] mins;
+    private long[] maxs;
+    private int[] nextOfCity;
+    private int[] cityHeads;
+
+    HeapSlots(int capacity) {
+        index = new int[capacity * 2];
+        Arrays.fill(index, NONE);
+        keys = new long[capacity];
+        sums = new long[capacity];
+        counts = new long[capacity];
+        mins = new long[capacity];
+        maxs = new long[capacity];
+        nextOfCity = new int[capacity];
+        cityHeads = new int[16];
+        Arrays.fill(cityHeads, NONE);
+    }
+
+    private HeapSlots(HeapSlots other) {
+        index = other.index.clone();
+        keys = other.keys.clone();
+        sums = other.sums.clone();
+        counts = other.counts.clone();
+        mins = other.mins.clone();
+        maxs = other.maxs.clone();
+        nextOfCity = other.nextOfCity.clone();
+        cityHeads = other.cityHeads.clone();
+    }
+
+    @Override
+    public int capacity() {
+        return keys.length;
+    }
+
+    @Override
+    public void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        sums = Arrays.copyOf(sums, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+        mins = Arrays.copyOf(mins, capacity);
+        maxs = Arrays.copyOf(maxs, capacity);
+        nextOfCity = Arrays.copyOf(nextOfCity, capacity);
+        index = new int[capacity * 2];
+        Arrays.fill(index, NONE);
+    }
+
+    @Override
+    public long key(int entry) {
+        return keys[entry];
+    }
+
+    @Override
+    public long sum(int entry) {
+        return sums[entry];
+    }
+
+    @Override
+    public long count(int entry) {
+        return counts[entry];
+    }
+
+    @Override
+    public long min(int entry) {
+        return mins[entry];
+    }
+
+    @Override
+    public long max(int entry) {
+        return maxs[entry];
+    }
+
+    @Override
+    public int next(int entry) {
+        return nextOfCity[entry];
+    }
+
+    @Override
+    public void insert(int entry, long key, int next) {
+        keys[entry] = key;
+        sums[entry] = 0;
+        counts[entry] = 0;
+        mins[entry] = Long.MAX_VALUE;
+        maxs[entry] = Long.MIN_VALUE;
+        nextOfCity[entry] = next;
+    }
+
+    @Override
+    public void add(int entry, long sum, long count, long min, long max) {
+        sums[entry] += sum;
+        counts[entry] += count;
+        if (min < mins[entry]) {
+            mins[entry] = min;
+        }
+        if (max > maxs[entry]) {
+            maxs[entry] = max;
+        }
+    }
+
+    @Override
+    public int indexLength() {
+        return index.length;
+    }
+
+    @Override
+    public int indexed(int slot) {
+        return index[slot];
+    }
+
+    @Override
+    public void index(int slot, int entry) {
+        index[slot] = entry;
+    }
+
+    @Override
+    public int cityCount() {
+        return cityHeads.length;
+    }
+
+    @Override
+    public int cityHead(int cityId) {
+        return cityHeads[cityId];
+    }
+
+    @Override
+    public void cityHead(int cityId, int entry) {
+        cityHeads[cityId] = entry;
+    }
+
+    @Override
+    public void ensureCities(int cityCount) {
+        if (cityCount > cityHeads.length) {
+            int length = cityHeads.length;
+            cityHeads = Arrays.copyOf(cityHeads, Math.max(cityCount, length * 2));
+            Arrays.fill(cityHeads, length, cityHeads.length, NONE);
+        }
+    }
+
+    @Override
+    public AggregateSlots copy(int size) {
+        return new HeapSlots(this);
+    }
+}
@@ -0,0 +1,192 @@
+package com.daycode.aggregate;
+
+import com.daycode.model.AggregateStorage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Slots of {@link AggregateStorage#OFF_HEAP} table, one direct buffer per field in native byte order. Buffers grow
+ * by copying into buffers twice as large, memory of replaced buffers is released once they are garbage collected.
+ */
+class OffHeapSlots implements AggregateSlots {
+
+    private static final int LONG_BYTES = Long.BYTES;
+    private static final int INT_BYTES = Integer.BYTES;
+
+    private int capacity;
+    private ByteBuffer index;
+    private ByteBuffer keys;
+    private ByteBuffer sums;
+    private ByteBuffer counts;
+    private ByteBuffer mins;
+    private ByteBuffer maxs;
+    private ByteBuffer nextOfCity;
+    private ByteBuffer cityHeads;
+    private int cityCount;
+
+    OffHeapSlots(int capacity) {
+        this.capacity = capacity;
+        index = emptyIndex(capacity * 2);
+        keys = allocate(capacity * LONG_BYTES);
+        sums = allocate(capacity * LONG_BYTES);
+        counts = allocate(capacity * LONG_BYTES);
+        mins = allocate(capacity * LONG_BYTES);
+        maxs = allocate(capacity * LONG_BYTES);
+        nextOfCity = allocate(capacity * INT_BYTES);
+        cityCount = 16;
+        cityHeads = emptyIndex(cityCount);
+    }
+
+    private OffHeapSlots(OffHeapSlots other, int size) {
+        capacity = other.capacity;
+        index = copy(other.index, other.index.capacity(), other.index.capacity());
+        keys = copy(other.keys, other.keys.capacity(), size * LONG_BYTES);
+        sums = copy(other.sums, other.sums.capacity(), size * LONG_BYTES);
+        counts = copy(other.counts, other.counts.capacity(), size * LONG_BYTES);
+        mins = copy(other.mins, other.mins.capacity(), size * LONG_BYTES);
+        maxs = copy(other.maxs, other.maxs.capacity(), size * LONG_BYTES);
+        nextOfCity = copy(other.nextOfCity, other.nextOfCity.capacity(), size * INT_BYTES);
+        cityCount = other.cityCount;
+        cityHeads = copy(other.cityHeads, other.cityHeads.capacity(), other.cityHeads.capacity());
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public void grow() {
+        if (capacity > Integer.MAX_VALUE / (4 * LONG_BYTES)) {
+            throw new IllegalStateException("Off-heap aggregate table can't hold more than " + capacity + " entries");
+        }
+        int size = capacity;
+        capacity *= 2;
+        keys = copy(keys, capacity * LONG_BYTES, size * LONG_BYTES);
+        sums = copy(sums, capacity * LONG_BYTES, size * LONG_BYTES);
+        counts = copy(counts, capacity * LONG_BYTES, size * LONG_BYTES);
+        mins = copy(mins, capacity * LONG_BYTES, size * LONG_BYTES);
+        maxs = copy(maxs, capacity * LONG_BYTES, size * LONG_BYTES);
+        nextOfCity = copy(nextOfCity, capacity * INT_BYTES, size * INT_BYTES);
+        index = emptyIndex(capacity * 2);
+    }
+
+    @Override
+    public long key(int entry) {
+        return keys.getLong(entry * LONG_BYTES);
+    }
+
+    @Override
+    public long sum(int entry) {
+        return sums.getLong(entry * LONG_BYTES);
+    }
+
+    @Override
+    public long count(int entry) {
+        return counts.getLong(entry * LONG_BYTES);
+    }
+
+    @Override
+    public long min(int entry) {
+        return mins.getLong(entry * LONG_BYTES);
+    }
+
+    @Override
+    public long max(int entry) {
+        return maxs.getLong(entry * LONG_BYTES);
+    }
+
+    @Override
+    public int next(int entry) {
+        return nextOfCity.getInt(entry * INT_BYTES);
+    }
+
+    @Override
+    public void insert(int entry, long key, int next) {
+        int offset = entry * LONG_BYTES;
+        keys.putLong(offset, key);
+        sums.putLong(offset, 0);
+        counts.putLong(offset, 0);
+        mins.putLong(offset, Long.MAX_VALUE);
+        maxs.putLong(offset, Long.MIN_VALUE);
+        nextOfCity.putInt(entry * INT_BYTES, next);
+    }
+
+    @Override
+    public void add(int entry, long sum, long count, long min, long max) {
+        int offset = entry * LONG_BYTES;
+        sums.putLong(offset, sums.getLong(offset) + sum);
+        counts.putLong(offset, counts.getLong(offset) + count);
+        if (min < mins.getLong(offset)) {
+            mins.putLong(offset, min);
+        }
+        if (max > maxs.getLong(offset)) {
+            maxs.putLong(offset, max);
+        }
+    }
+
+    @Override
+    public int indexLength() {
+        return capacity * 2;
+    }
+
+    @Override
+    public int indexed(int slot) {
+        return index.getInt(slot * INT_BYTES);
+    }
+
+    @Override
+    public void index(int slot, int entry) {
+        index.putInt(slot * INT_BYTES, entry);
+    }
+
+    @Override
+    public int cityCount() {
+        return cityCount;
+    }
+
+    @Override
+    public int cityHead(int cityId) {
+        return cityHeads.getInt(cityId * INT_BYTES);
+    }
+
+    @Override
+    public void cityHead(int cityId, int entry) {
+        cityHeads.putInt(cityId * INT_BYTES, entry);
+    }
+
+    @Override
+    public void ensureCities(int count) {
+        if (count > cityCount) {
+            int length = Math.max(count, cityCount * 2);
+            ByteBuffer grown = emptyIndex(length);
+            grown.put(0, cityHeads, 0, cityCount * INT_BYTES);
+            cityHeads = grown;
+            cityCount = length;
+        }
+    }
+
+    @Override
+    public AggregateSlots copy(int size) {
+        return new OffHeapSlots(this, size);
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    private static ByteBuffer emptyIndex(int length) {
+        ByteBuffer buffer = allocate(length * INT_BYTES);
+        for (int offset = 0; offset < buffer.capacity(); offset += INT_BYTES) {
+            buffer.putInt(offset, NONE);
+        }
+        return buffer;
+    }
+
+    private static ByteBuffer copy(ByteBuffer source, int capacity, int bytes) {
+        ByteBuffer copy = allocate(capacity);
+        copy.put(0, source, 0, bytes);
+        return copy;
+    }
+}
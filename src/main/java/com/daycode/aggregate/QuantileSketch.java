@@ -0,0 +1,223 @@
+package com.daycode.aggregate;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Mergeable quantile sketch with relative accuracy guarantee, in the spirit of DDSketch. Values are counted
+ * in logarithmically sized bins, separately for positive and negative values. Each sign keeps at most
+ * {@link SketchSettings#getMaxBins()} bins; when the range grows beyond that, bins of the smallest magnitudes
+ * are collapsed, so only quantiles close to zero lose accuracy. Sketch is not thread safe.
+ */
+public class QuantileSketch {
+
+    private final SketchSettings settings;
+    private final Bins positive = new Bins();
+    private final Bins negative = new Bins();
+    private long zeroCount;
+
+    /**
+     * @param settings Accuracy and size of the sketch.
+     */
+    public QuantileSketch(SketchSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * @param value Value to add.
+     */
+    public void add(long value) {
+        if (value > 0) {
+            positive.add(settings.index(value), 1, settings.getMaxBins());
+        } else if (value < 0) {
+            negative.add(settings.index(-value), 1, settings.getMaxBins());
+        } else {
+            zeroCount++;
+        }
+    }
+
+    /**
+     * Adds all values of other sketch into this one.
+     *
+     * @param other Sketch built with equal settings.
+     */
+    public void merge(QuantileSketch other) {
+        if (!settings.equals(other.settings)) {
+            throw new IllegalArgumentException("Can't merge sketches with settings " + settings
+                    + " and " + other.settings);
+        }
+        positive.merge(other.positive, settings.getMaxBins());
+        negative.merge(other.negative, settings.getMaxBins());
+        zeroCount += other.zeroCount;
+    }
+
+    /**
+     * @return Number of added values.
+     */
+    public long count() {
+        return positive.total + negative.total + zeroCount;
+    }
+
+    /**
+     * @param quantile Quantile between 0 and 1, e.g. 0.95.
+     * @return Approximated value of the quantile, NaN for empty sketch.
+     */
+    public double quantile(double quantile) {
+        long count = count();
+        if (count == 0 || quantile < 0 || quantile > 1) {
+            return Double.NaN;
+        }
+        long rank = (long) (quantile * (count - 1));
+        long seen = 0;
+        for (int index = negative.high; index >= negative.low; index--) {
+            seen += negative.count(index);
+            if (seen > rank) {
+                return -settings.value(index);
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int index = positive.low; index < positive.high; index++) {
+            seen += positive.count(index);
+            if (seen > rank) {
+                return settings.value(index);
+            }
+        }
+        return settings.value(positive.high);
+    }
+
+    /**
+     * @return Independent copy of this sketch.
+     */
+    public QuantileSketch copy() {
+        QuantileSketch copy = new QuantileSketch(settings);
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Calculates digest of the bins, so sketches with equal bins have equal digests.
+     *
+     * @return Digest of the sketch.
+     */
+    public long digest() {
+        long digest = AggregateTable.mix(zeroCount) ^ positive.digest();
+        return AggregateTable.mix(digest ^ Long.rotateLeft(negative.digest(), 1));
+    }
+
+    /**
+     * Writes bins of the sketch, without its settings.
+     *
+     * @param out Output.
+     * @throws IOException in case of issues writing.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(zeroCount);
+        positive.write(out);
+        negative.write(out);
+    }
+
+    /**
+     * Reads bins written by {@link #write(DataOutput)}.
+     *
+     * @param in       Input.
+     * @param settings Settings the sketch was built with.
+     * @return Read sketch.
+     * @throws IOException in case of issues reading.
+     */
+    public static QuantileSketch read(DataInput in, SketchSettings settings) throws IOException {
+        QuantileSketch sketch = new QuantileSketch(settings);
+        sketch.zeroCount = in.readLong();
+        sketch.positive.read(in, settings.getMaxBins());
+        sketch.negative.read(in, settings.getMaxBins());
+        return sketch;
+    }
+
+    /**
+     * Counts of contiguous range of bin indexes.
+     */
+    private static final class Bins {
+
+        private long[] counts = new long[0];
+        private int low;
+        private int high = -1;
+        private long total;
+
+        private long count(int index) {
+            return counts[index - low];
+        }
+
+        private void add(int index, long count, int maxBins) {
+            if (total == 0) {
+                counts = new long[1];
+                low = index;
+                high = index;
+            } else if (index < low || index > high) {
+                extend(Math.min(index, low), Math.max(index, high), maxBins);
+            }
+            counts[Math.max(index, low) - low] += count;
+            total += count;
+        }
+
+        /**
+         * Extends range to cover given indexes, collapsing the lowest bins into the lowest kept bin when range
+         * would exceed maxBins.
+         */
+        private void extend(int newLow, int newHigh, int maxBins) {
+            newLow = Math.max(newLow, newHigh - maxBins + 1);
+            long[] extended = new long[newHigh - newLow + 1];
+            for (int index = low; index <= high; index++) {
+                extended[Math.max(index, newLow) - newLow] += counts[index - low];
+            }
+            counts = extended;
+            low = newLow;
+            high = newHigh;
+        }
+
+        private void merge(Bins other, int maxBins) {
+            if (other.total == 0) {
+                return;
+            }
+            for (int index = other.low; index <= other.high; index++) {
+                long count = other.counts[index - other.low];
+                if (count > 0) {
+                    add(index, count, maxBins);
+                }
+            }
+        }
+
+        private long digest() {
+            long digest = 0;
+            for (int index = low; index <= high; index++) {
+                long count = counts[index - low];
+                if (count > 0) {
+                    digest += AggregateTable.mix(AggregateTable.mix(index) ^ count) | 1;
+                }
+            }
+            return digest;
+        }
+
+        private void write(DataOutput out) throws IOException {
+            int used = total == 0 ? 0 : high - low + 1;
+            out.writeInt(low);
+            out.writeInt(used);
+            for (int i = 0; i < used; i++) {
+                out.writeLong(counts[i]);
+            }
+        }
+
+        private void read(DataInput in, int maxBins) throws IOException {
+            int firstIndex = in.readInt();
+            int used = in.readInt();
+            for (int i = 0; i < used; i++) {
+                long count = in.readLong();
+                if (count > 0) {
+                    add(firstIndex + i, count, maxBins);
+                }
+            }
+        }
+    }
+}
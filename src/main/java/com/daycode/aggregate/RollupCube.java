@@ -0,0 +1,192 @@
+package com.daycode.aggregate;
+
+import com.daycode.mapper.TemperatureLineParser;
+import com.daycode.model.AggregateStorage;
+import com.daycode.model.Granularity;
+
+import java.util.Arrays;
+
+/**
+ * Rollup of temperatures per city in yearly, monthly and daily buckets, each kept in its own {@link AggregateTable}.
+ * Every measurement updates one bucket of each granularity, so queries of any granularity visit only the buckets
+ * of the queried city. Each yearly entry has its {@link QuantileSketch}, indexed by the entry index.
+ * Tables are kept in {@link AggregateStorage} chosen on creation, sketches stay on the heap.
+ * Cube is not thread safe.
+ */
+public class RollupCube {
+
+    private final SketchSettings sketchSettings;
+    private final AggregateStorage storage;
+    private QuantileSketch[] yearlySketches = new QuantileSketch[64];
+
+    private AggregateTable yearly;
+    private AggregateTable monthly;
+    private AggregateTable daily;
+    private long lastDay = Long.MIN_VALUE;
+    private int lastDate;
+
+    /**
+     * Creates empty cube with default sketch settings.
+     */
+    public RollupCube() {
+        this(SketchSettings.DEFAULT);
+    }
+
+    /**
+     * @param sketchSettings Settings of yearly quantile sketches.
+     */
+    public RollupCube(SketchSettings sketchSettings) {
+        this(sketchSettings, AggregateStorage.HEAP);
+    }
+
+    /**
+     * @param sketchSettings Settings of yearly quantile sketches.
+     * @param storage        Memory of the tables.
+     */
+    public RollupCube(SketchSettings sketchSettings, AggregateStorage storage) {
+        this.sketchSettings = sketchSettings;
+        this.storage = storage;
+        this.yearly = new AggregateTable(storage);
+        this.monthly = new AggregateTable(storage);
+        this.daily = new AggregateTable(storage);
+    }
+
+    /**
+     * Adds single measurement to buckets of all granularities.
+     *
+     * @param cityId      City id from {@link CityDictionary}.
+     * @param epochMillis Local epoch millis of the measurement.
+     * @param value       Temperature in hundredths of degree.
+     */
+    public void add(int cityId, long epochMillis, int value) {
+        long day = Math.floorDiv(epochMillis, TemperatureLineParser.MILLIS_PER_DAY);
+        if (day != lastDay) {
+            lastDay = day;
+            lastDate = TemperatureLineParser.date(epochMillis);
+        }
+        sketch(yearly.add(cityId, Granularity.YEAR.bucket(lastDate), value)).add(value);
+        monthly.add(cityId, Granularity.MONTH.bucket(lastDate), value);
+        daily.add(cityId, lastDate, value);
+    }
+
+    /**
+     * @param granularity Granularity of the buckets.
+     * @return Table with buckets of given granularity.
+     */
+    public AggregateTable table(Granularity granularity) {
+        switch (granularity) {
+            case YEAR:
+                return yearly;
+            case MONTH:
+                return monthly;
+            default:
+                return daily;
+        }
+    }
+
+    /**
+     * Cube must not be shared with readers, use {@link #findSketch(int)} to read published cubes.
+     *
+     * @param yearlyEntry Index of entry of the yearly table.
+     * @return Quantile sketch of the entry, created empty if missing.
+     */
+    public QuantileSketch sketch(int yearlyEntry) {
+        if (yearlyEntry >= yearlySketches.length) {
+            yearlySketches = Arrays.copyOf(yearlySketches, Math.max(yearlyEntry + 1, yearlySketches.length * 2));
+        }
+        QuantileSketch sketch = yearlySketches[yearlyEntry];
+        if (sketch == null) {
+            sketch = new QuantileSketch(sketchSettings);
+            yearlySketches[yearlyEntry] = sketch;
+        }
+        return sketch;
+    }
+
+    /**
+     * Reads quantile sketch of yearly entry without creating it, so it can be called on cubes shared by readers,
+     * e.g. published in a snapshot.
+     *
+     * @param yearlyEntry Index of entry of the yearly table.
+     * @return Quantile sketch of the entry, {@code null} if the entry has no sketch.
+     */
+    public QuantileSketch findSketch(int yearlyEntry) {
+        QuantileSketch[] sketches = yearlySketches;
+        return yearlyEntry < sketches.length ? sketches[yearlyEntry] : null;
+    }
+
+    /**
+     * Calculates digest of daily buckets and yearly quantile sketches of every city, so a city has equal digests
+     * as long as any of its statistics or percentiles stay the same.
+     *
+     * @return Digests indexed by city id, {@code 0} for cities without buckets.
+     */
+    public long[] cityDigests() {
+        long[] dailyDigests = daily.cityDigests();
+        long[] sketchDigests = yearly.cityDigests(entry -> {
+            QuantileSketch sketch = findSketch(entry);
+            return sketch == null ? 0 : sketch.digest();
+        });
+        long[] digests = Arrays.copyOf(dailyDigests, Math.max(dailyDigests.length, sketchDigests.length));
+        for (int cityId = 0; cityId < sketchDigests.length; cityId++) {
+            digests[cityId] ^= AggregateTable.mix(sketchDigests[cityId]);
+        }
+        return digests;
+    }
+
+    /**
+     * @return Settings of yearly quantile sketches.
+     */
+    public SketchSettings getSketchSettings() {
+        return sketchSettings;
+    }
+
+    /**
+     * @return Memory of the tables.
+     */
+    public AggregateStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Adds all buckets of other cube into this one.
+     *
+     * @param other Cube to merge, with equal sketch settings.
+     */
+    public void merge(RollupCube other) {
+        merge(other, null);
+    }
+
+    /**
+     * Adds all buckets of other cube, which uses different city ids, into this one.
+     *
+     * @param other   Cube to merge, with equal sketch settings.
+     * @param cityIds City ids of this cube indexed by city ids of other cube, {@code null} when ids are the same.
+     *                Buckets of cities mapped to negative id are skipped.
+     */
+    public void merge(RollupCube other, int[] cityIds) {
+        int[] merged = yearly.merge(other.yearly, cityIds);
+        for (int entry = 0; entry < merged.length; entry++) {
+            if (merged[entry] >= 0 && other.yearlySketches.length > entry && other.yearlySketches[entry] != null) {
+                sketch(merged[entry]).merge(other.yearlySketches[entry]);
+            }
+        }
+        monthly.merge(other.monthly, cityIds);
+        daily.merge(other.daily, cityIds);
+    }
+
+    /**
+     * @return Independent copy of this cube.
+     */
+    public RollupCube copy() {
+        RollupCube copy = new RollupCube(sketchSettings, storage);
+        copy.yearly = yearly.copy();
+        for (int entry = 0; entry < yearlySketches.length; entry++) {
+            if (yearlySketches[entry] != null) {
+                copy.sketch(entry).merge(yearlySketches[entry]);
+            }
+        }
+        copy.monthly = monthly.copy();
+        copy.daily = daily.copy();
+        return copy;
+    }
+}
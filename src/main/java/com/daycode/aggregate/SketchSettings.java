@@ -0,0 +1,73 @@
+package com.daycode.aggregate;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Parameters of {@link QuantileSketch}. Sketches can be merged only when built with equal settings.
+ * Logarithmic bin indexes of common temperatures are precomputed, so adding a value does not call {@link Math#log}.
+ */
+@Getter
+@ToString(onlyExplicitlyIncluded = true)
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class SketchSettings {
+
+    /**
+     * Relative accuracy 1% with at most 512 bins for positive and 512 bins for negative values.
+     */
+    public static final SketchSettings DEFAULT = new SketchSettings(0.01, 512);
+
+    private static final int LOOKUP_SIZE = 1 << 15;
+
+    @ToString.Include
+    @EqualsAndHashCode.Include
+    private final double relativeAccuracy;
+    @ToString.Include
+    @EqualsAndHashCode.Include
+    private final int maxBins;
+    @Getter(lombok.AccessLevel.NONE)
+    private final double gamma;
+    @Getter(lombok.AccessLevel.NONE)
+    private final double multiplier;
+    @Getter(lombok.AccessLevel.NONE)
+    private final int[] lookup;
+
+    /**
+     * @param relativeAccuracy Relative error of returned quantiles, between 0 and 1.
+     * @param maxBins          Maximal number of bins for values of one sign, bounds memory of a sketch.
+     */
+    public SketchSettings(double relativeAccuracy, int maxBins) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1 || maxBins < 1) {
+            throw new IllegalArgumentException("Invalid sketch settings: " + relativeAccuracy + ", " + maxBins);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBins = maxBins;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.multiplier = 1 / Math.log(gamma);
+        this.lookup = new int[LOOKUP_SIZE];
+        for (int value = 1; value < LOOKUP_SIZE; value++) {
+            lookup[value] = computeIndex(value);
+        }
+    }
+
+    /**
+     * @param magnitude Positive value.
+     * @return Index of the bin holding given value.
+     */
+    int index(long magnitude) {
+        return magnitude < LOOKUP_SIZE ? lookup[(int) magnitude] : computeIndex(magnitude);
+    }
+
+    /**
+     * @param index Bin index.
+     * @return Value representing all values of the bin, within relative accuracy of each of them.
+     */
+    double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    private int computeIndex(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) * multiplier);
+    }
+}
@@ -0,0 +1,78 @@
+package com.daycode.aggregate;
+
+import com.daycode.model.Granularity;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Published, immutable state of aggregates. Rollup of a snapshot is never modified after publication,
+ * so snapshot can be read by any number of threads without locking.
+ * Every city has its own version, which is the generation of the latest snapshot that changed any daily bucket
+ * or yearly quantile sketch of the city, so data derived from aggregates of one city stays valid across unrelated
+ * generations.
+ */
+@Getter
+public class TemperatureSnapshot {
+
+    /**
+     * Number incremented with every published snapshot.
+     */
+    private final long generation;
+    /**
+     * Random number shared by all snapshots published by the same service, so versions of different application
+     * runs can be told apart.
+     */
+    private final long lineage;
+    private final RollupCube rollup;
+    private final WindowIndex windowIndex;
+    @Getter(AccessLevel.NONE)
+    private final long[] cityDigests;
+    @Getter(AccessLevel.NONE)
+    private final long[] cityVersions;
+
+    /**
+     * Creates first snapshot, building window index of its daily buckets.
+     *
+     * @param generation Number of the snapshot.
+     * @param rollup     Published rollup.
+     */
+    public TemperatureSnapshot(long generation, RollupCube rollup) {
+        this(generation, rollup, null);
+    }
+
+    /**
+     * Creates snapshot replacing previous one, building window index of its daily buckets. Cities keep versions
+     * of previous snapshot unless their daily buckets or quantile sketches changed.
+     *
+     * @param generation Number of the snapshot.
+     * @param rollup     Published rollup.
+     * @param previous   Replaced snapshot, {@code null} for the first one.
+     */
+    public TemperatureSnapshot(long generation, RollupCube rollup, TemperatureSnapshot previous) {
+        this.generation = generation;
+        this.lineage = previous == null ? ThreadLocalRandom.current().nextLong() : previous.lineage;
+        this.rollup = rollup;
+        this.windowIndex = new WindowIndex(rollup.table(Granularity.DAY));
+        this.cityDigests = rollup.cityDigests();
+        int cities = previous == null ? cityDigests.length : Math.max(cityDigests.length, previous.cityDigests.length);
+        this.cityVersions = new long[cities];
+        for (int cityId = 0; cityId < cities; cityId++) {
+            boolean unchanged = previous != null && digest(cityDigests, cityId) == digest(previous.cityDigests, cityId);
+            cityVersions[cityId] = unchanged ? previous.getCityVersion(cityId) : generation;
+        }
+    }
+
+    /**
+     * @param cityId City id from {@link CityDictionary}.
+     * @return Generation which last changed aggregates of given city, {@code 0} for cities which never had any.
+     */
+    public long getCityVersion(int cityId) {
+        return cityId >= 0 && cityId < cityVersions.length ? cityVersions[cityId] : 0;
+    }
+
+    private static long digest(long[] digests, int cityId) {
+        return cityId < digests.length ? digests[cityId] : 0;
+    }
+}
@@ -0,0 +1,108 @@
+package com.daycode.aggregate;
+
+import com.daycode.model.AggregateStorage;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Per thread rollups filled by writer threads without any locking. Rollups of all threads
+ * are merged with {@link #drainTo(RollupCube)}, which must be called when writers are idle, e.g. on step completion.
+ */
+public class ThreadLocalAggregates {
+
+    private final CityDictionary cityDictionary;
+    private final SketchSettings sketchSettings;
+    private final AggregateStorage storage;
+    private final ThreadLocal<Partial> partial = new ThreadLocal<>();
+    private final Queue<Partial> partials = new ConcurrentLinkedQueue<>();
+    private volatile int epoch;
+
+    /**
+     * @param cityDictionary Dictionary shared by all threads.
+     * @param sketchSettings Settings of quantile sketches of the rollups.
+     */
+    public ThreadLocalAggregates(CityDictionary cityDictionary, SketchSettings sketchSettings) {
+        this(cityDictionary, sketchSettings, AggregateStorage.HEAP);
+    }
+
+    /**
+     * @param cityDictionary Dictionary shared by all threads.
+     * @param sketchSettings Settings of quantile sketches of the rollups.
+     * @param storage        Memory of the rollup tables.
+     */
+    public ThreadLocalAggregates(CityDictionary cityDictionary, SketchSettings sketchSettings,
+                                 AggregateStorage storage) {
+        this.cityDictionary = cityDictionary;
+        this.sketchSettings = sketchSettings;
+        this.storage = storage;
+    }
+
+    /**
+     * @return Aggregates owned by the calling thread.
+     */
+    public Partial current() {
+        Partial current = partial.get();
+        if (current == null || current.epoch != epoch) {
+            current = new Partial(epoch);
+            partial.set(current);
+            partials.add(current);
+        }
+        return current;
+    }
+
+    /**
+     * Merges rollups of all threads into target rollup and starts new epoch, so that threads begin with empty rollups.
+     *
+     * @param target Rollup receiving aggregates collected since previous drain.
+     */
+    public void drainTo(RollupCube target) {
+        epoch++;
+        Partial drained;
+        while ((drained = partials.poll()) != null) {
+            target.merge(drained.rollup);
+        }
+    }
+
+    /**
+     * Aggregates of single thread.
+     */
+    public final class Partial {
+
+        private final int epoch;
+        private final RollupCube rollup;
+        private final Map<String, Integer> rawCityIds = new HashMap<>();
+
+        private Partial(int epoch) {
+            this.epoch = epoch;
+            this.rollup = new RollupCube(sketchSettings, storage);
+        }
+
+        /**
+         * @return Rollup of this thread.
+         */
+        public RollupCube rollup() {
+            return rollup;
+        }
+
+        /**
+         * Resolves id of the city as read from the source, normalizing it only when seen for the first time.
+         *
+         * @param city City name as read from the source.
+         * @return City id or {@link CityDictionary#UNKNOWN} for blank names.
+         */
+        public int cityId(String city) {
+            if (city == null) {
+                return CityDictionary.UNKNOWN;
+            }
+            Integer id = rawCityIds.get(city);
+            if (id == null) {
+                id = city.isBlank() ? CityDictionary.UNKNOWN : cityDictionary.idOf(city.toLowerCase().trim());
+                rawCityIds.put(city, id);
+            }
+            return id;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.daycode.aggregate;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Per city prefix sums of daily buckets. Sum and count of any range of days is the difference of two prefixes,
+ * found by binary search, so window queries take logarithmic time regardless of the number of measurements
+ * or days inside the window. Index is immutable once built.
+ */
+public class WindowIndex {
+
+    private static final CityIndex EMPTY = new CityIndex(new int[0], new long[1], new long[1]);
+
+    private final CityIndex[] cities;
+
+    /**
+     * Builds index of daily table.
+     *
+     * @param daily Table with {@code yyyyMMdd} buckets.
+     */
+    public WindowIndex(AggregateTable daily) {
+        int[] cityCount = new int[1];
+        daily.forEach((cityId, date, sum, count, min, max) -> cityCount[0] = Math.max(cityCount[0], cityId + 1));
+        int[] sizes = new int[cityCount[0]];
+        daily.forEach((cityId, date, sum, count, min, max) -> sizes[cityId]++);
+        long[][] keys = new long[sizes.length][];
+        long[][] sums = new long[sizes.length][];
+        long[][] counts = new long[sizes.length][];
+        for (int cityId = 0; cityId < sizes.length; cityId++) {
+            keys[cityId] = new long[sizes[cityId]];
+            sums[cityId] = new long[sizes[cityId]];
+            counts[cityId] = new long[sizes[cityId]];
+        }
+        int[] filled = new int[sizes.length];
+        daily.forEach((cityId, date, sum, count, min, max) -> {
+            int i = filled[cityId]++;
+            keys[cityId][i] = ((long) date << 32) | i;
+            sums[cityId][i] = sum;
+            counts[cityId][i] = count;
+        });
+        cities = new CityIndex[sizes.length];
+        for (int cityId = 0; cityId < sizes.length; cityId++) {
+            cities[cityId] = build(keys[cityId], sums[cityId], counts[cityId]);
+        }
+    }
+
+    /**
+     * Sums measurements of given city within inclusive range of days.
+     *
+     * @param cityId City id from {@link CityDictionary}.
+     * @param from   First day as {@code yyyyMMdd} int.
+     * @param to     Last day as {@code yyyyMMdd} int.
+     * @return Sum and count of measurements, zero count if there are none.
+     */
+    public Totals query(int cityId, int from, int to) {
+        CityIndex city = cityId < 0 || cityId >= cities.length ? EMPTY : cities[cityId];
+        int start = lowerBound(city.dates, from);
+        int end = lowerBound(city.dates, to + 1);
+        if (end <= start) {
+            return new Totals(0, 0);
+        }
+        return new Totals(city.prefixSums[end] - city.prefixSums[start],
+                city.prefixCounts[end] - city.prefixCounts[start]);
+    }
+
+    private static CityIndex build(long[] keys, long[] sums, long[] counts) {
+        Arrays.sort(keys);
+        int[] dates = new int[keys.length];
+        long[] prefixSums = new long[keys.length + 1];
+        long[] prefixCounts = new long[keys.length + 1];
+        for (int i = 0; i < keys.length; i++) {
+            int entry = (int) keys[i];
+            dates[i] = (int) (keys[i] >> 32);
+            prefixSums[i + 1] = prefixSums[i] + sums[entry];
+            prefixCounts[i + 1] = prefixCounts[i] + counts[entry];
+        }
+        return new CityIndex(dates, prefixSums, prefixCounts);
+    }
+
+    private static int lowerBound(int[] dates, int date) {
+        int low = 0;
+        int high = dates.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (dates[middle] < date) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Sorted days of one city with prefix sums, where prefix at index i covers days before index i.
+     */
+    @AllArgsConstructor
+    private static final class CityIndex {
+
+        private final int[] dates;
+        private final long[] prefixSums;
+        private final long[] prefixCounts;
+    }
+
+    /**
+     * Sum and count of measurements in a window.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Totals {
+
+        /**
+         * Sum of temperatures in hundredths of degree.
+         */
+        private final long sum;
+        private final long count;
+
+        /**
+         * @return Average temperature in degrees, NaN if there are no measurements.
+         */
+        public double average() {
+            return count == 0 ? Double.NaN : sum / (count * 100.0);
+        }
+    }
+}
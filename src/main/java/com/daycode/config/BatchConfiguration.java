@@ -1,10 +1,30 @@
 package com.daycode.config;
 
 import com.daycode.mapper.RecordMapper;
+import com.daycode.mapper.TemperatureRecordRing;
 import com.daycode.model.BatchProperties;
+import com.daycode.model.FileRange;
+import com.daycode.model.ReaderType;
 import com.daycode.model.TemperatureRecord;
+import com.daycode.reader.FileRangePartitioner;
+import com.daycode.reader.FileRangeResource;
+import com.daycode.reader.FileSetPartitioner;
+import com.daycode.reader.GzipRangeResource;
+import com.daycode.reader.MappedTemperatureItemReader;
+import com.daycode.reader.MeteredResource;
+import com.daycode.reader.MultiRangeItemReader;
+import com.daycode.reader.RereadingItemReader;
+import com.daycode.reader.ParallelGzipInputStream;
+import com.daycode.reader.SourceFiles;
+import com.daycode.service.AdaptiveCompletionPolicy;
+import com.daycode.service.ImportMetrics;
+import com.daycode.service.IngestionTracker;
 import com.daycode.service.TemperatureJobListener;
 import com.daycode.service.TemperatureService;
+import com.daycode.service.TemperatureStepListener;
+import com.daycode.service.ThrottledJobRepository;
+import com.daycode.store.ColumnarStore;
+import org.springframework.batch.core.ChunkListener;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
@@ -12,11 +32,17 @@ import org.springframework.batch.core.configuration.annotation.JobBuilderFactory
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.ItemWriter;
-import org.springframework.batch.item.file.FlatFileItemReader;
 import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.batch.item.support.builder.SynchronizedItemStreamReaderBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -26,21 +52,36 @@ import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 
 @Configuration
 @EnableBatchProcessing
 public class BatchConfiguration {
 
+    private static final int GZIP_READ_AHEAD = 2 * ForkJoinPool.commonPool().getParallelism();
+
     @Value("file:src/main/resources/example_file.csv")
     private Resource inputResource;
 
     /**
+     * Executor of worker steps of partitioned import step. Partition handler submits all partitions at once,
+     * so batch.partitions above batch.max-pool-size + batch.queue-capacity is rejected on start up rather than
+     * failing every partitioned import.
+     *
      * @param batchProperties Properties for spring batch.
      * @return TaskExecutor for Spring Batch
      */
     @Bean
     public TaskExecutor taskExecutor(BatchProperties batchProperties) {
+        int capacity = batchProperties.getMaxPoolSize() + batchProperties.getQueueCapacity();
+        if (batchProperties.getPartitions() > capacity) {
+            throw new IllegalArgumentException("batch.partitions " + batchProperties.getPartitions()
+                    + " exceeds batch.max-pool-size + batch.queue-capacity " + capacity);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(batchProperties.getCorePoolSize());
         executor.setMaxPoolSize(batchProperties.getMaxPoolSize());
@@ -51,22 +92,78 @@ public class BatchConfiguration {
     }
 
     /**
-     * Spring batch temperatures job configuration.
+     * Executor of chunks of single multi-threaded import step. Spring Batch keeps result queue of the step locked
+     * while waiting for the next chunk result, so thread which finished its chunk may stay blocked until another
+     * chunk finishes. Chunk queued behind such threads would never start, so chunks are never queued: pool keeps
+     * batch.max-pool-size threads, the step throttle limit, and starts extra threads while those are blocked.
      *
+     * @param batchProperties Properties for spring batch.
+     * @return TaskExecutor for chunks of the import step.
+     */
+    @Bean
+    public TaskExecutor chunkTaskExecutor(BatchProperties batchProperties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(batchProperties.getMaxPoolSize());
+        executor.setMaxPoolSize(Integer.MAX_VALUE);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix(batchProperties.getThreadNamePrefix());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Spring batch temperatures job configuration. With batch.partitions above 1 source file is split
+     * into byte ranges processed by separate worker steps, each resuming from its own offset on restart.
+     * Otherwise single multi-threaded step is used, which rebuilds all aggregates of the job on restart.
+     * With batch.target-chunk-millis above 0 chunk size adapts toward that chunk latency, with
+     * batch.checkpoint-megabytes above 0 state of running import step is saved only after that much data was read.
+     *
+     * @param jobRepository Repository of job metadata.
+     * @param importMetrics Meters of read bytes, progress of checkpoints.
      * @return Temperatures job for spring batch.
      */
     @Bean
     public Job importTemperaturesJob(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory,
-                                     ItemReader<TemperatureRecord> reader, ItemProcessor<TemperatureRecord, TemperatureRecord> processor,
+                                     @Qualifier("reader") ItemReader<TemperatureRecord> reader,
+                                     @Qualifier("partitionReader") ItemReader<TemperatureRecord> partitionReader,
+                                     Partitioner partitioner, ItemProcessor<TemperatureRecord, TemperatureRecord> processor,
                                      ItemWriter<TemperatureRecord> writer, TemperatureJobListener temperatureJobListener,
-                                     BatchProperties batchProperties, TaskExecutor taskExecutor) {
-        Step step = stepBuilderFactory.get("sumTemperatures")
-                .<TemperatureRecord, TemperatureRecord>chunk(batchProperties.getChunkSize())
-                .reader(reader)
-                .processor(processor)
-                .writer(writer)
-                .taskExecutor(taskExecutor)
-                .build();
+                                     TemperatureStepListener temperatureStepListener, BatchProperties batchProperties,
+                                     @Qualifier("taskExecutor") TaskExecutor taskExecutor,
+                                     @Qualifier("chunkTaskExecutor") TaskExecutor chunkTaskExecutor,
+                                     JobRepository jobRepository,
+                                     ImportMetrics importMetrics) {
+        JobRepository stepRepository = jobRepository;
+        if (batchProperties.getCheckpointMegabytes() > 0) {
+            stepRepository = new ThrottledJobRepository(jobRepository, importMetrics::getBytesRead,
+                    batchProperties.getCheckpointMegabytes() * 1024 * 1024);
+        }
+        Step step;
+        if (batchProperties.getPartitions() > 1) {
+            Step workerStep = chunk(stepBuilderFactory.get("sumTemperaturesPartition").repository(stepRepository),
+                    batchProperties)
+                    .reader(partitionReader)
+                    .processor(processor)
+                    .writer(writer)
+                    .build();
+            step = stepBuilderFactory.get("sumTemperatures")
+                    .repository(stepRepository)
+                    .partitioner(workerStep.getName(), partitioner)
+                    .step(workerStep)
+                    .gridSize(batchProperties.getPartitions())
+                    .taskExecutor(taskExecutor)
+                    .listener(temperatureStepListener)
+                    .build();
+        } else {
+            step = chunk(stepBuilderFactory.get("sumTemperatures").repository(stepRepository), batchProperties)
+                    .reader(reader)
+                    .processor(processor)
+                    .writer(writer)
+                    .listener(temperatureStepListener)
+                    .taskExecutor(chunkTaskExecutor)
+                    .throttleLimit(batchProperties.getMaxPoolSize())
+                    .build();
+        }
         return jobBuilderFactory.get("importTemperatureJob")
                 .incrementer(new RunIdIncrementer())
                 .listener(temperatureJobListener)
@@ -76,24 +173,113 @@ public class BatchConfiguration {
     }
 
     /**
-     * Spring batch reader for temperatures job.
+     * Chunk oriented step with fixed chunk size, or size adapting toward batch.target-chunk-millis when set.
+     */
+    private static SimpleStepBuilder<TemperatureRecord, TemperatureRecord> chunk(StepBuilder stepBuilder,
+                                                                                 BatchProperties batchProperties) {
+        if (batchProperties.getTargetChunkMillis() <= 0) {
+            return stepBuilder.chunk(batchProperties.getChunkSize());
+        }
+        AdaptiveCompletionPolicy policy = new AdaptiveCompletionPolicy(batchProperties.getChunkSize(),
+                batchProperties.getMaxChunkSize(), batchProperties.getTargetChunkMillis());
+        SimpleStepBuilder<TemperatureRecord, TemperatureRecord> builder = stepBuilder.chunk(policy);
+        builder.listener((ChunkListener) policy);
+        return builder;
+    }
+
+    /**
+     * Spring batch reader for temperatures job. Implementation is selected with batch.reader property,
+     * batch.reuse-records makes reader fill recycled record instances instead of creating new ones.
+     * Files with {@code .gz} extension are always read by flat file reader from decompressing stream.
+     * Files of directory or glob source planned by ingestion tracker are read one after another.
+     * Reader is shared by chunk threads of single step, so restarted step reads the whole range again.
      *
-     * @param filePath FilePath taken from jobParameters
+     * @param filePath         FilePath taken from jobParameters
+     * @param startOffset      Offset of the first line to read taken from jobParameters, beginning of file if missing.
+     * @param endOffset        Offset after the last line to read taken from jobParameters, end of file if missing.
+     * @param batchProperties  Properties for spring batch.
+     * @param ingestionTracker Tracker planning files of directory or glob source.
+     * @param importMetrics    Meters of read bytes and lines parsed by strict parsers.
      * @return Reader for Spring batch job.
      * @throws IOException is case issues reading the source File.
      */
     @Bean
     @StepScope
-    public FlatFileItemReader<TemperatureRecord> reader(@Value("#{jobParameters[filePath]}") String filePath) throws IOException {
-        filePath = Objects.isNull(filePath) ? inputResource.getFile().getAbsolutePath() : filePath;
-        return new FlatFileItemReaderBuilder<TemperatureRecord>()
-                .name("temperatureItemReader")
-                .resource(new FileSystemResource(filePath))
-                .delimited()
-                .delimiter(";")
-                .names("city", "timestamp", "temperature")
-                .fieldSetMapper(new RecordMapper())
-                .build();
+    public ItemStreamReader<TemperatureRecord> reader(@Value("#{jobParameters[filePath]}") String filePath,
+                                                      @Value("#{jobParameters[startOffset]}") Long startOffset,
+                                                      @Value("#{jobParameters[endOffset]}") Long endOffset,
+                                                      BatchProperties batchProperties,
+                                                      IngestionTracker ingestionTracker,
+                                                      ImportMetrics importMetrics) throws IOException {
+        Path path = Path.of(sourcePath(filePath));
+        Supplier<TemperatureRecord> records = records(batchProperties);
+        if (SourceFiles.isMultiFile(path)) {
+            MultiRangeItemReader<TemperatureRecord> reader = new MultiRangeItemReader<>(
+                    ingestionTracker.plannedFiles(path), range -> rangeReader(range, batchProperties, records, importMetrics));
+            reader.setName("temperatureFilesReader");
+            return new RereadingItemReader<>(
+                    new SynchronizedItemStreamReaderBuilder<TemperatureRecord>().delegate(reader).build());
+        }
+        return new RereadingItemReader<>(rangeReader(new FileRange(path, Objects.requireNonNullElse(startOffset, 0L),
+                Objects.requireNonNullElse(endOffset, Long.MAX_VALUE)), batchProperties, records, importMetrics));
+    }
+
+    /**
+     * Spring batch partitioner splitting source file into line aligned byte ranges. Files of directory or glob
+     * source are spread over partitions by size.
+     *
+     * @param filePath         FilePath taken from jobParameters
+     * @param startOffset      Offset of the first line to read taken from jobParameters, beginning of file if missing.
+     * @param endOffset        Offset after the last line to read taken from jobParameters, end of file if missing.
+     * @param ingestionTracker Tracker planning files of directory or glob source.
+     * @return Partitioner for partitioned temperatures step.
+     * @throws IOException is case issues reading the source File.
+     */
+    @Bean
+    @StepScope
+    public Partitioner partitioner(@Value("#{jobParameters[filePath]}") String filePath,
+                                   @Value("#{jobParameters[startOffset]}") Long startOffset,
+                                   @Value("#{jobParameters[endOffset]}") Long endOffset,
+                                   IngestionTracker ingestionTracker) throws IOException {
+        Path path = Path.of(sourcePath(filePath));
+        if (SourceFiles.isMultiFile(path)) {
+            return new FileSetPartitioner(ingestionTracker.plannedFiles(path));
+        }
+        return new FileRangePartitioner(path, Objects.requireNonNullElse(startOffset, 0L),
+                Objects.requireNonNullElse(endOffset, Long.MAX_VALUE));
+    }
+
+    /**
+     * Spring batch reader for single partition of temperatures job. Reader saves its byte offset in
+     * the partition execution context, so restarted job reprocesses only unfinished ranges.
+     * Gzip file is not split, its only partition is read by flat file reader from decompressing stream.
+     * Partition of directory or glob source reads its file ranges one after another, saving index of the current one.
+     *
+     * @param filePath        FilePath taken from partition context
+     * @param startOffset     Start of the partition byte range
+     * @param endOffset       End of the partition byte range
+     * @param fileRanges      Byte ranges of several files taken from partition context, encoded by
+     *                        {@link FileSetPartitioner#encode(List)}.
+     * @param batchProperties Properties for spring batch.
+     * @param importMetrics   Meters of read bytes and lines parsed by strict parsers.
+     * @return Reader for partition step.
+     */
+    @Bean
+    @StepScope
+    public ItemStreamReader<TemperatureRecord> partitionReader(@Value("#{stepExecutionContext[filePath]}") String filePath,
+                                                               @Value("#{stepExecutionContext[startOffset]}") Long startOffset,
+                                                               @Value("#{stepExecutionContext[endOffset]}") Long endOffset,
+                                                               @Value("#{stepExecutionContext[fileRanges]}") String fileRanges,
+                                                               BatchProperties batchProperties,
+                                                               ImportMetrics importMetrics) {
+        Supplier<TemperatureRecord> records = records(batchProperties);
+        if (fileRanges != null) {
+            MultiRangeItemReader<TemperatureRecord> reader = new MultiRangeItemReader<>(
+                    FileSetPartitioner.decode(fileRanges), range -> partitionRangeReader(range, records, importMetrics));
+            reader.setName("temperatureFilesReader");
+            return reader;
+        }
+        return partitionRangeReader(new FileRange(Path.of(filePath), startOffset, endOffset), records, importMetrics);
     }
 
     /**
@@ -107,14 +293,105 @@ public class BatchConfiguration {
     }
 
     /**
-     * Spring batch temperatures job writer using Temperature service.
+     * Spring batch temperatures job writer using Temperature service. Records are also appended to columnar store
+     * when batch.columnar-store-path is set. Time of every chunk write is recorded.
      *
      * @param temperatureService Temperature Service responsible for handling the data.
+     * @param columnarStore      Columnar record store.
+     * @param importMetrics      Meters of chunk writes.
      * @return Spring batch item writer.
      */
     @Bean
-    public ItemWriter<TemperatureRecord> writer(TemperatureService temperatureService) {
-        return temperatureService::processTemperatureRecords;
+    public ItemWriter<TemperatureRecord> writer(TemperatureService temperatureService, ColumnarStore columnarStore,
+                                                ImportMetrics importMetrics) {
+        boolean columnar = columnarStore.isEnabled();
+        return records -> {
+            long start = System.nanoTime();
+            temperatureService.processTemperatureRecords(records);
+            if (columnar) {
+                columnarStore.append(records);
+            }
+            importMetrics.chunkWritten(records.size(), System.nanoTime() - start);
+        };
+    }
+
+    private String sourcePath(String filePath) throws IOException {
+        return Objects.isNull(filePath) ? inputResource.getFile().getAbsolutePath() : filePath;
     }
-}
 
+    /**
+     * Reader of single file range selected with batch.reader property.
+     */
+    private static ItemStreamReader<TemperatureRecord> rangeReader(FileRange range, BatchProperties batchProperties,
+                                                                   Supplier<TemperatureRecord> records,
+                                                                   ImportMetrics importMetrics) {
+        if (batchProperties.getReader() == ReaderType.MAPPED) {
+            return partitionRangeReader(range, records, importMetrics);
+        }
+        return flatReader(range.getPath(), range.getStartOffset(), range.getEndOffset(), records, importMetrics);
+    }
+
+    /**
+     * Memory-mapped reader of single file range, flat file reader for gzip files.
+     */
+    private static ItemStreamReader<TemperatureRecord> partitionRangeReader(FileRange range,
+                                                                            Supplier<TemperatureRecord> records,
+                                                                            ImportMetrics importMetrics) {
+        if (ParallelGzipInputStream.isGzip(range.getPath())) {
+            return flatReader(range.getPath(), range.getStartOffset(), range.getEndOffset(), records, importMetrics);
+        }
+        MappedTemperatureItemReader reader = new MappedTemperatureItemReader(range.getPath(), range.getStartOffset(),
+                range.getEndOffset(), records);
+        reader.setName("temperatureItemReader");
+        reader.setBytesReadListener(importMetrics::bytesRead);
+        reader.setFallbackListener(importMetrics::fallbackLine);
+        return reader;
+    }
+
+    /**
+     * Flat file reader of given byte range. Gzip members are decompressed by {@link ParallelGzipInputStream} on
+     * common fork join pool, whose threads are not taken by step chunks waiting for this reader.
+     */
+    private static ItemStreamReader<TemperatureRecord> flatReader(Path path, long start, long end,
+                                                                  Supplier<TemperatureRecord> records,
+                                                                  ImportMetrics importMetrics) {
+        FileSystemResource resource;
+        if (ParallelGzipInputStream.isGzip(path)) {
+            resource = new GzipRangeResource(path, start, end, ForkJoinPool.commonPool(), GZIP_READ_AHEAD);
+        } else if (start == 0 && end == Long.MAX_VALUE) {
+            resource = new FileSystemResource(path);
+        } else {
+            resource = new FileRangeResource(path, start, end);
+        }
+        return new SynchronizedItemStreamReaderBuilder<TemperatureRecord>()
+                .delegate(new FlatFileItemReaderBuilder<TemperatureRecord>()
+                        .name("temperatureItemReader")
+                        .resource(new MeteredResource(resource, importMetrics::bytesRead))
+                        .delimited()
+                        .delimiter(";")
+                        .names("city", "timestamp", "temperature")
+                        .fieldSetMapper(new RecordMapper(records, importMetrics::fallbackLine))
+                        .build())
+                .build();
+    }
+
+    /**
+     * Supplier of records filled by readers. Ring of recycled records holds as many records as the largest chunk,
+     * so no record is refilled while the chunk holding it waits for the writer.
+     */
+    static Supplier<TemperatureRecord> records(BatchProperties batchProperties) {
+        return batchProperties.isReuseRecords()
+                ? new TemperatureRecordRing(largestChunkSize(batchProperties)) : TemperatureRecord::new;
+    }
+
+    /**
+     * @return Fixed chunk size, or the upper bound of adapting chunk size when batch.target-chunk-millis is set.
+     */
+    private static int largestChunkSize(BatchProperties batchProperties) {
+        if (batchProperties.getTargetChunkMillis() <= 0) {
+            return batchProperties.getChunkSize();
+        }
+        return Math.max(batchProperties.getChunkSize(),
+                AdaptiveCompletionPolicy.maxChunkSize(batchProperties.getMaxChunkSize()));
+    }
+}
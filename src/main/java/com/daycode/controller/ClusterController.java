@@ -0,0 +1,72 @@
+package com.daycode.controller;
+
+import com.daycode.aggregate.AggregateSnapshotFile;
+import com.daycode.model.ClusterRound;
+import com.daycode.service.ClusterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * Receives aggregates sent by other instances of the cluster, see {@link ClusterService}.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+public class ClusterController {
+
+    private final ClusterService clusterService;
+
+    /**
+     * Collect aggregates of cities owned by this instance, built by other instance in given import round.
+     *
+     * @param round Id of the import round.
+     * @param from  Shard of the instance which built the aggregates.
+     * @param body  Aggregates in aggregate snapshot file format.
+     * @return Whether the round is complete and its aggregates were published, 400 if body is not readable
+     * or from is not a shard of the cluster.
+     */
+    @PostMapping(value = "/cluster/aggregates", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Mono<ResponseEntity<Boolean>> receiveAggregates(@RequestParam long round, @RequestParam int from,
+                                                           @RequestBody byte[] body) {
+        return Mono.fromCallable(() -> clusterService.receive(round, from,
+                        AggregateSnapshotFile.read(new ByteArrayInputStream(body), "aggregates of shard " + from)))
+                .map(ResponseEntity::ok)
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(IOException.class, e -> {
+                    log.warn("Failed to read aggregates of shard {} in round {}.", from, round, e);
+                    return Mono.just(ResponseEntity.badRequest().build());
+                })
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    log.warn("Rejected aggregates of round {}: {}", round, e.getMessage());
+                    return Mono.just(ResponseEntity.badRequest().build());
+                })
+                .onErrorResume(e -> {
+                    log.error("Failed to collect aggregates of shard {} in round {}.", from, round, e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
+    /**
+     * Retrieve state of the latest import round which sent aggregates to this instance.
+     *
+     * @return Round id with shards whose aggregates arrived or are missing, and whether the round completed
+     * or timed out.
+     */
+    @GetMapping("/cluster/round")
+    public Mono<ClusterRound> getRound() {
+        return Mono.fromSupplier(clusterService::getRound);
+    }
+}
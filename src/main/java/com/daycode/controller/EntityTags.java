@@ -0,0 +1,47 @@
+package com.daycode.controller;
+
+import com.daycode.aggregate.TemperatureSnapshot;
+
+/**
+ * Builds and matches entity tags of query responses. Tag is derived from the version of the data the response is
+ * built from and from lineage of the snapshot, so it stays the same until the data changes and differs between
+ * application runs.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    /**
+     * @param snapshot Snapshot the response is built from.
+     * @param version  Version of the data of the response, e.g. per city version.
+     * @return Quoted entity tag, {@code null} when there is no data of given version.
+     */
+    static String of(TemperatureSnapshot snapshot, long version) {
+        if (version == 0) {
+            return null;
+        }
+        return "\"" + Long.toHexString(snapshot.getLineage()) + "-" + version + "\"";
+    }
+
+    /**
+     * @param ifNoneMatch Value of {@code If-None-Match} header, may be {@code null}.
+     * @param tag         Entity tag of current data, may be {@code null}.
+     * @return {@code true} if the header lists given tag, weak comparison is used.
+     */
+    static boolean matches(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null || tag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,107 @@
+package com.daycode.controller;
+
+import com.daycode.model.CacheStatistics;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache of response bodies serialized to JSON bytes, which are written to the response as they are.
+ * Every entry is stored with the version of the data it was built from and is rebuilt when requested with
+ * other version, so publishing new data invalidates only entries whose data changed. Hits are lock free.
+ * Hits, misses and size are exposed as {@code cache.gets} and {@code cache.size} meters read from the counters.
+ */
+@Component
+@RequiredArgsConstructor
+public class SerializedResponseCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "averageTemperatures";
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Returns body cached for given key and version, building and caching it on miss.
+     *
+     * @param key     Key of the body, e.g. normalized city name.
+     * @param version Version of the data the body is built from.
+     * @param loader  Builds the response object, returns {@code null} when there is nothing to respond with.
+     * @return JSON bytes, {@code null} if loader returned {@code null}.
+     */
+    public byte[] get(String key, long version, Supplier<?> loader) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version == version) {
+            hits.increment();
+            return entry.body;
+        }
+        misses.increment();
+        Object value = loader.get();
+        if (value == null) {
+            entries.remove(key);
+            return null;
+        }
+        Entry loaded = new Entry(version, serialize(value));
+        entries.merge(key, loaded,
+                (current, replacement) -> current.version > replacement.version ? current : replacement);
+        return loaded.body;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tags("cache", CACHE_NAME, "result", "hit")
+                .description("Requests served from cached bytes")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tags("cache", CACHE_NAME, "result", "miss")
+                .description("Requests which serialized response again")
+                .register(registry);
+        Gauge.builder("cache.size", entries, Map::size)
+                .tag("cache", CACHE_NAME)
+                .description("Number of cached responses")
+                .register(registry);
+    }
+
+    /**
+     * @return Hits, misses and their ratios since start up.
+     */
+    public CacheStatistics getStatistics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        return new CacheStatistics(hitCount, missCount, total == 0 ? 0 : (double) hitCount / total,
+                total == 0 ? 0 : (double) missCount / total, entries.size());
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Entry {
+
+        private final long version;
+        private final byte[] body;
+
+        private Entry(long version, byte[] body) {
+            this.version = version;
+            this.body = body;
+        }
+    }
+}
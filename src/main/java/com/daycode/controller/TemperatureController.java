@@ -1,28 +1,68 @@
 package com.daycode.controller;
 
+import com.daycode.aggregate.TemperatureSnapshot;
+import com.daycode.model.CacheStatistics;
+import com.daycode.model.CityAverageTemperatures;
+import com.daycode.model.Granularity;
+import com.daycode.model.IngestionRange;
+import com.daycode.model.Metric;
+import com.daycode.model.TemperatureStatistic;
+import com.daycode.model.WindowAverageTemperature;
 import com.daycode.model.YearlyAverageTemperature;
+import com.daycode.model.YearlyPercentileTemperatures;
+import com.daycode.service.ClusterService;
+import com.daycode.service.ImportLock;
+import com.daycode.service.IngestionTracker;
+import com.daycode.service.TemperatureJobListener;
 import com.daycode.service.TemperatureService;
+import com.daycode.store.ColumnarStore;
+import com.daycode.store.ColumnarStoreReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionException;
 import org.springframework.batch.core.JobInstance;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRestartException;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -33,70 +73,538 @@ public class TemperatureController {
     private final TemperatureService temperatureService;
     private final Job importTemperaturesJob;
     private final JobLauncher jobLauncher;
+    private final JobExplorer jobExplorer;
+    private final IngestionTracker ingestionTracker;
+    private final ColumnarStore columnarStore;
+    private final SerializedResponseCache responseCache;
+    private final ClusterService clusterService;
+    private final ImportLock importLock;
+    private final ObjectMapper objectMapper;
 
-    private final ReentrantLock lock = new ReentrantLock();
+    static final String GENERATION_HEADER = "X-Data-Generation";
 
-    @Value("file:src/main/resources/large_file.csv")
-    private Resource inputResource;
+    private static final String ALL_CITIES = "all";
+
+    private static final List<String> FORWARDED_RESPONSE_HEADERS =
+            List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.ETAG, GENERATION_HEADER);
+
+    private static final Set<BatchStatus> RESTARTABLE_STATUSES = EnumSet.of(BatchStatus.FAILED, BatchStatus.STOPPED);
+
+    @Value("${batch.update-source:src/main/resources/large_file.csv}")
+    private String updateSource;
 
     /**
-     * Retrieve average temperatures for given city.
+     * Retrieve average temperatures for given city. Data is read from published snapshot without locking,
+     * so the lookup is safe to run on the event loop. Serialized response is cached until aggregates of the city
+     * change.
      *
-     * @param city String with city name.
-     * @return Averages for given city name calculated from file.
+     * @param city        String with city name.
+     * @param ifNoneMatch Entity tag of previously returned response.
+     * @param forwardedBy Shard of the instance which forwarded the request, if any.
+     * @return Averages for given city name calculated from file, with generation of published data in header,
+     * 304 if averages did not change since the response with given entity tag.
      */
     @GetMapping("/average-temperatures")
-    public Mono<ResponseEntity<?>> getAverageTemperatures(@RequestParam String city) {
+    public Mono<ResponseEntity<?>> getAverageTemperatures(
+            @RequestParam String city,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = ClusterService.FORWARDED_HEADER, required = false) String forwardedBy) {
+        var trimedCity = city.toLowerCase().trim();
+        if (forwardedBy == null && !clusterService.owns(trimedCity)) {
+            return forward(trimedCity, "/average-temperatures", query("city", city), ifNoneMatch);
+        }
+        TemperatureSnapshot snapshot = temperatureService.getSnapshot();
+        long version = temperatureService.getCityVersion(snapshot, trimedCity);
+        String eTag = EntityTags.of(snapshot, version);
+        if (EntityTags.matches(ifNoneMatch, eTag)) {
+            return Mono.just(notModified(snapshot, eTag));
+        }
+        return Mono.fromSupplier(() -> responseCache.get(trimedCity, version, () -> yearlyAverages(snapshot, trimedCity)))
+                .<ResponseEntity<?>>map(body -> ok(snapshot, eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(body))
+                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * Retrieve statistics of serialized response cache.
+     *
+     * @return Hits, misses and their ratios since start up.
+     */
+    @GetMapping("/cache-statistics")
+    public Mono<CacheStatistics> getCacheStatistics() {
+        return Mono.fromSupplier(responseCache::getStatistics);
+    }
+
+    /**
+     * Retrieve average temperatures for many cities at once. All cities are read from the same snapshot and
+     * streamed one by one, as newline delimited JSON by default or as JSON array when requested with
+     * {@code Accept: application/json}. Cities are serialized here, so servlet stack writes the JSON array
+     * incrementally as well instead of collecting all cities first. In cluster mode cities of other instances are
+     * requested from their owners at once and streamed grouped by owner, without entity tag.
+     *
+     * @param cities      Comma separated city names or {@code all}. Cities without data are skipped.
+     * @param accept      Accepted media types, JSON array is streamed only when none of them includes
+     *                    newline delimited JSON.
+     * @param ifNoneMatch Entity tag of previously returned response.
+     * @param forwardedBy Shard of the instance which forwarded the request, if any, only owned cities are then
+     *                    listed by {@code all}.
+     * @return Averages of every city, with generation of the snapshot they were read from in header,
+     * 304 if no data was published since the response with given entity tag.
+     */
+    @GetMapping(value = "/average-temperatures/bulk",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Flux<String>> getBulkAverageTemperatures(
+            @RequestParam(defaultValue = ALL_CITIES) String cities,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = ClusterService.FORWARDED_HEADER, required = false) String forwardedBy) {
+        TemperatureSnapshot snapshot = temperatureService.getSnapshot();
+        boolean allCities = ALL_CITIES.equalsIgnoreCase(cities.trim());
+        boolean jsonArray = acceptsOnlyJsonArray(accept);
+        if (forwardedBy == null && clusterService.isClustered()) {
+            return ok(snapshot, null)
+                    .contentType(jsonArray ? MediaType.APPLICATION_JSON : MediaType.APPLICATION_NDJSON)
+                    .body(serialize(gatherBulkAverages(snapshot, allCities, cities), jsonArray));
+        }
+        String eTag = EntityTags.of(snapshot, snapshot.getGeneration());
+        if (EntityTags.matches(ifNoneMatch, eTag)) {
+            return notModified(snapshot, eTag);
+        }
+        Flux<String> names = allCities
+                ? Flux.fromStream(() -> temperatureService.getCities(snapshot).filter(clusterService::owns))
+                : Flux.fromArray(cities.split(",")).map(city -> city.toLowerCase().trim()).distinct();
+
+        return ok(snapshot, eTag)
+                .contentType(jsonArray ? MediaType.APPLICATION_JSON : MediaType.APPLICATION_NDJSON)
+                .body(serialize(bulkAverages(snapshot, names), jsonArray));
+    }
+
+    /**
+     * Retrieve average temperature for given city within a range of days, using prefix sums of daily buckets.
+     *
+     * @param city        String with city name.
+     * @param from        First day of the window, ISO date.
+     * @param to          Last day of the window, ISO date.
+     * @param ifNoneMatch Entity tag of previously returned response.
+     * @param forwardedBy Shard of the instance which forwarded the request, if any.
+     * @return Average of all measurements in the window, 404 if there are none, 304 if data of the city did not change
+     * since the response with given entity tag.
+     */
+    @GetMapping("/average-temperatures/window")
+    public Mono<ResponseEntity<?>> getWindowAverageTemperature(
+            @RequestParam String city,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = ClusterService.FORWARDED_HEADER, required = false) String forwardedBy) {
+        if (from.isAfter(to)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        var trimedCity = city.toLowerCase().trim();
+        if (forwardedBy == null && !clusterService.owns(trimedCity)) {
+            return forward(trimedCity, "/average-temperatures/window",
+                    query("city", city, "from", from.toString(), "to", to.toString()), ifNoneMatch);
+        }
+        TemperatureSnapshot snapshot = temperatureService.getSnapshot();
+        String eTag = EntityTags.of(snapshot, temperatureService.getCityVersion(snapshot, trimedCity));
+        if (EntityTags.matches(ifNoneMatch, eTag)) {
+            return Mono.just(notModified(snapshot, eTag));
+        }
+        return Mono.fromSupplier(() -> temperatureService.getWindowTotals(snapshot, trimedCity, from, to))
+                .map(totals -> {
+                    if (totals.getCount() == 0) {
+                        return ResponseEntity.notFound().build();
+                    }
+
+                    return ok(snapshot, eTag)
+                            .body(new WindowAverageTemperature(from.toString(), to.toString(), totals.getCount(),
+                                    Math.round(totals.average() * 10.0) / 10.0));
+                });
+    }
+
+    /**
+     * Retrieve temperature statistics for given city from precalculated rollup.
+     *
+     * @param city        String with city name.
+     * @param granularity Bucket granularity: year, month or day.
+     * @param metric      Statistic: avg, min, max, count or sum.
+     * @param ifNoneMatch Entity tag of previously returned response.
+     * @param forwardedBy Shard of the instance which forwarded the request, if any.
+     * @return Statistic of every bucket for given city name, sorted by bucket, 304 if data of the city did not change
+     * since the response with given entity tag.
+     */
+    @GetMapping("/temperature-statistics")
+    public Mono<ResponseEntity<?>> getTemperatureStatistics(
+            @RequestParam String city,
+            @RequestParam(defaultValue = "year") String granularity,
+            @RequestParam(defaultValue = "avg") String metric,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = ClusterService.FORWARDED_HEADER, required = false) String forwardedBy) {
         var trimedCity = city.toLowerCase().trim();
-        return Mono.fromSupplier(() -> temperatureService.getYearlyAverageTemperatures(trimedCity))
-                .map(averages -> {
-                    if (averages == null || averages.isEmpty()) {
+        Granularity bucketGranularity;
+        Metric bucketMetric;
+        try {
+            bucketGranularity = Granularity.valueOf(granularity.trim().toUpperCase());
+            bucketMetric = Metric.valueOf(metric.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        if (forwardedBy == null && !clusterService.owns(trimedCity)) {
+            return forward(trimedCity, "/temperature-statistics",
+                    query("city", city, "granularity", granularity, "metric", metric), ifNoneMatch);
+        }
+        TemperatureSnapshot snapshot = temperatureService.getSnapshot();
+        String eTag = EntityTags.of(snapshot, temperatureService.getCityVersion(snapshot, trimedCity));
+        if (EntityTags.matches(ifNoneMatch, eTag)) {
+            return Mono.just(notModified(snapshot, eTag));
+        }
+        return Mono.fromSupplier(() -> temperatureService.getTemperatureStatistics(snapshot, trimedCity,
+                        bucketGranularity, bucketMetric))
+                .map(values -> {
+                    if (values.isEmpty()) {
                         return ResponseEntity.notFound().build();
                     }
 
-                    List<YearlyAverageTemperature> response = averages.entrySet().stream()
-                            .map(entry -> new YearlyAverageTemperature(entry.getKey().toString(), Math.round(entry.getValue() * 10.0) / 10.0))
+                    List<TemperatureStatistic> response = values.entrySet().stream()
+                            .map(entry -> new TemperatureStatistic(bucketGranularity.format(entry.getKey()),
+                                    Math.round(entry.getValue() * 100.0) / 100.0))
                             .collect(Collectors.toList());
 
-                    return ResponseEntity.ok(response);
-                })
-                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
+                    return ok(snapshot, eTag).body(response);
+                });
     }
 
     /**
-     * Trigger file reload job.
+     * Retrieve estimated temperature percentiles for given city. Values are within configured relative accuracy.
      *
-     * @return JobExecution summary.
+     * @param city        String with city name.
+     * @param percentiles Comma separated percentiles between 0 and 100.
+     * @param ifNoneMatch Entity tag of previously returned response.
+     * @param forwardedBy Shard of the instance which forwarded the request, if any.
+     * @return Percentiles of every year for given city name, sorted by year, 304 if data of the city did not change
+     * since the response with given entity tag.
+     */
+    @GetMapping("/temperature-percentiles")
+    public Mono<ResponseEntity<?>> getTemperaturePercentiles(
+            @RequestParam String city,
+            @RequestParam(defaultValue = "50,95,99") String percentiles,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = ClusterService.FORWARDED_HEADER, required = false) String forwardedBy) {
+        var trimedCity = city.toLowerCase().trim();
+        String[] names = percentiles.split(",");
+        double[] values = new double[names.length];
+        try {
+            for (int i = 0; i < names.length; i++) {
+                names[i] = names[i].trim();
+                values[i] = Double.parseDouble(names[i]);
+                if (!(values[i] >= 0 && values[i] <= 100)) {
+                    return Mono.just(ResponseEntity.badRequest().build());
+                }
+            }
+        } catch (NumberFormatException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        if (forwardedBy == null && !clusterService.owns(trimedCity)) {
+            return forward(trimedCity, "/temperature-percentiles",
+                    query("city", city, "percentiles", percentiles), ifNoneMatch);
+        }
+        TemperatureSnapshot snapshot = temperatureService.getSnapshot();
+        String eTag = EntityTags.of(snapshot, temperatureService.getCityVersion(snapshot, trimedCity));
+        if (EntityTags.matches(ifNoneMatch, eTag)) {
+            return Mono.just(notModified(snapshot, eTag));
+        }
+        return Mono.fromSupplier(() -> temperatureService.getYearlyPercentiles(snapshot, trimedCity, values))
+                .map(yearly -> {
+                    if (yearly.isEmpty()) {
+                        return ResponseEntity.notFound().build();
+                    }
+
+                    List<YearlyPercentileTemperatures> response = yearly.entrySet().stream()
+                            .map(entry -> {
+                                Map<String, Double> yearPercentiles = new LinkedHashMap<>();
+                                for (int i = 0; i < names.length; i++) {
+                                    yearPercentiles.put("p" + names[i], Math.round(entry.getValue()[i] * 10.0) / 10.0);
+                                }
+                                return new YearlyPercentileTemperatures(entry.getKey().toString(), yearPercentiles);
+                            })
+                            .collect(Collectors.toList());
+
+                    return ok(snapshot, eTag).body(response);
+                });
+    }
+
+    /**
+     * Trigger file reload job. Job runs synchronously on a bounded elastic thread, never on the event loop.
+     * In cluster mode starts new import round instead, in which every instance reloads its own slice of the file.
+     *
+     * @param incremental Whether only data appended since last reload should be ingested. Whole file is reloaded
+     *                    when already ingested part of the file changed, and always in cluster mode. Change is
+     *                    detected from sampled blocks, see {@link com.daycode.model.FileFingerprint}.
+     * @return JobExecution summary, of the job ingesting slice of this instance in cluster mode, 409 if the job is
+     * already running or its instance already completed, 500 if launch failed.
      */
     @PostMapping("/update-data")
-    public Mono<ResponseEntity<JobInstance>> updateData() {
-
-        return Mono.fromCallable(() -> {
-                    lock.lock();
-                    try {
-                        return triggerJob();
-                    } finally {
-                        lock.unlock();
+    public Mono<ResponseEntity<JobInstance>> updateData(@RequestParam(defaultValue = "false") boolean incremental) {
+
+        return Mono.fromCallable(() -> importLock.call(() -> {
+                    if (clusterService.isClustered()) {
+                        long round = System.currentTimeMillis();
+                        log.info("Starting cluster import round {}{}.", round,
+                                incremental ? ", incremental import is not supported in cluster mode" : "");
+                        clusterService.startImport(round);
+                        return triggerJob(false, round);
                     }
+                    return triggerJob(incremental, null);
+                }))
+                .map(jobExecution -> ResponseEntity.ok(jobExecution.getJobInstance()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(TemperatureController::isConflict, e -> {
+                    log.warn("importTemperaturesJob can't be launched: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build());
                 })
+                .onErrorResume(e -> {
+                    log.error("Failed to trigger importTemperaturesJob.", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
+    /**
+     * Reload slice of the file owned by this instance in cluster import round started by other instance.
+     * Built aggregates are sent to instances owning their cities once the job finishes.
+     *
+     * @param round Id of the import round.
+     * @return JobExecution summary, 409 if the job is already running or its instance already completed, 500 if
+     * launch failed.
+     */
+    @PostMapping("/cluster/import")
+    public Mono<ResponseEntity<JobInstance>> importSlice(@RequestParam long round) {
+
+        return Mono.fromCallable(() -> importLock.call(() -> triggerJob(false, round)))
                 .map(jobExecution -> ResponseEntity.ok(jobExecution.getJobInstance()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(TemperatureController::isConflict, e -> {
+                    log.warn("importTemperaturesJob of cluster round {} can't be launched: {}", round, e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build());
+                })
+                .onErrorResume(e -> {
+                    log.error("Failed to trigger importTemperaturesJob of cluster round {}.", round, e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
+    /**
+     * Restart last job execution if it failed or was stopped. Partitioned job reprocesses only unfinished
+     * byte ranges, continuing each of them from its last committed offset.
+     *
+     * @return JobExecution summary, 409 if last execution can't be restarted or is still running, 500 if restart
+     * failed.
+     */
+    @PostMapping("/update-data/restart")
+    public Mono<ResponseEntity<JobInstance>> restartData() {
+
+        return Mono.fromCallable(() -> importLock.call(() -> Optional.ofNullable(restartJob())))
+                .map(jobExecution -> jobExecution
+                        .map(execution -> ResponseEntity.ok(execution.getJobInstance()))
+                        .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(TemperatureController::isConflict, e -> {
+                    log.warn("Last importTemperaturesJob execution can't be restarted: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build());
+                })
+                .onErrorResume(e -> {
+                    log.error("Failed to restart importTemperaturesJob.", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
+    /**
+     * Rebuild averages from columnar record file written by previous imports, without parsing the source file.
+     *
+     * @return Generation of published data, 404 if there is no complete columnar file, 409 in cluster mode,
+     * where the file holds records of the slice ingested by this instance only.
+     */
+    @PostMapping("/update-data/reaggregate")
+    public Mono<ResponseEntity<Long>> reaggregateData() {
+        if (clusterService.isClustered()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build());
+        }
+
+        return Mono.fromCallable(() -> importLock.call(() -> {
+                    Optional<ColumnarStoreReader> reader = columnarStore.reader();
+                    if (reader.isEmpty()) {
+                        return Optional.<Long>empty();
+                    }
+                    long generation = temperatureService.reaggregate(reader.get(), columnarStore.getScanExecutor(),
+                            columnarStore.getScanParallelism());
+                    return Optional.of(generation);
+                }))
+                .map(generation -> generation
+                        .map(ResponseEntity::ok)
+                        .orElseGet(() -> ResponseEntity.notFound().build()))
+                .subscribeOn(Schedulers.boundedElastic())
                 .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()));
     }
 
-    private JobExecution triggerJob() {
+    private static ResponseEntity.BodyBuilder ok(TemperatureSnapshot snapshot, String eTag) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .header(GENERATION_HEADER, String.valueOf(snapshot.getGeneration()));
+        return eTag == null ? builder : builder.eTag(eTag);
+    }
+
+    private static <T> ResponseEntity<T> notModified(TemperatureSnapshot snapshot, String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .header(GENERATION_HEADER, String.valueOf(snapshot.getGeneration()))
+                .build();
+    }
+
+    private Mono<ResponseEntity<?>> forward(String city, String path, MultiValueMap<String, String> query,
+                                            String ifNoneMatch) {
+        return clusterService.forward(city, path, query, ifNoneMatch)
+                .<ResponseEntity<?>>map(response -> {
+                    ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.getStatusCode());
+                    for (String header : FORWARDED_RESPONSE_HEADERS) {
+                        List<String> values = response.getHeaders().get(header);
+                        if (values != null) {
+                            builder.header(header, values.toArray(String[]::new));
+                        }
+                    }
+                    return builder.body(response.getBody());
+                })
+                .onErrorResume(e -> {
+                    log.error("Failed to forward {} of {} to shard {}.", path, city, clusterService.owner(city), e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.BAD_GATEWAY).build());
+                });
+    }
+
+    private static MultiValueMap<String, String> query(String... namesAndValues) {
+        MultiValueMap<String, String> query = new LinkedMultiValueMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            query.add(namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return query;
+    }
+
+    private Flux<CityAverageTemperatures> gatherBulkAverages(TemperatureSnapshot snapshot, boolean allCities,
+                                                              String cities) {
+        Map<Integer, List<String>> citiesByOwner = new TreeMap<>();
+        if (allCities) {
+            for (int shard = 0; shard < clusterService.getShards(); shard++) {
+                citiesByOwner.put(shard, List.of(ALL_CITIES));
+            }
+        } else {
+            Arrays.stream(cities.split(","))
+                    .map(city -> city.toLowerCase().trim())
+                    .distinct()
+                    .forEach(city -> citiesByOwner.computeIfAbsent(clusterService.owner(city), shard -> new ArrayList<>())
+                            .add(city));
+        }
+        List<Flux<CityAverageTemperatures>> parts = new ArrayList<>();
+        citiesByOwner.forEach((shard, names) -> {
+            if (shard != clusterService.getSelf()) {
+                parts.add(clusterService.bulkAverages(shard, String.join(",", names)));
+            } else if (allCities) {
+                parts.add(bulkAverages(snapshot,
+                        Flux.fromStream(() -> temperatureService.getCities(snapshot).filter(clusterService::owns))));
+            } else {
+                parts.add(bulkAverages(snapshot, Flux.fromIterable(names)));
+            }
+        });
+        return Flux.mergeSequential(parts);
+    }
+
+    private Flux<CityAverageTemperatures> bulkAverages(TemperatureSnapshot snapshot, Flux<String> names) {
+        return names
+                .concatMap(city -> {
+                    SortedMap<Integer, Double> averages = temperatureService.getYearlyAverageTemperatures(snapshot, city);
+                    if (averages.isEmpty()) {
+                        return Mono.empty();
+                    }
+                    List<YearlyAverageTemperature> yearly = new ArrayList<>(averages.size());
+                    averages.forEach((year, average) ->
+                            yearly.add(new YearlyAverageTemperature(year.toString(), Math.round(average * 10.0) / 10.0)));
+                    return Mono.just(new CityAverageTemperatures(city, yearly));
+                });
+    }
+
+    /**
+     * Mirrors content negotiation of both web stacks, which pick newline delimited JSON, listed first in produced
+     * types, whenever any accepted type includes it.
+     */
+    private static boolean acceptsOnlyJsonArray(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        return MediaType.parseMediaTypes(accept).stream()
+                .noneMatch(type -> type.includes(MediaType.APPLICATION_NDJSON));
+    }
+
+    /**
+     * Serializes every city separately, so both servlet and reactive stack write them as they are read.
+     */
+    private Flux<String> serialize(Flux<CityAverageTemperatures> averages, boolean jsonArray) {
+        Flux<String> json = averages.map(this::toJson);
+        if (!jsonArray) {
+            return json.map(city -> city + "\n");
+        }
+        return json.index((index, city) -> (index == 0 ? "[" : ",") + city)
+                .switchIfEmpty(Mono.just("["))
+                .concatWith(Mono.just("]"));
+    }
+
+    private String toJson(CityAverageTemperatures averages) {
         try {
-            Path path = inputResource.getFile().toPath().getParent();
-            JobParameters jobParameters = new JobParametersBuilder()
-                    .addLong("startAt", System.currentTimeMillis())
-                    .addString("filePath", path.toAbsolutePath() + path.getFileSystem().getSeparator() + "large_file.csv")
-                    .toJobParameters();
-
-            temperatureService.clearData();
-            return jobLauncher.run(importTemperaturesJob, jobParameters);
-        } catch (Exception e) {
-            log.error("Failed to Trigger importTemperaturesJob.", e);
-            throw new RuntimeException(e); //TODO: error handling
+            return objectMapper.writeValueAsString(averages);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<YearlyAverageTemperature> yearlyAverages(TemperatureSnapshot snapshot, String city) {
+        Map<Integer, Double> averages = temperatureService.getYearlyAverageTemperatures(snapshot, city);
+        if (averages == null || averages.isEmpty()) {
+            return null;
         }
+        return averages.entrySet().stream()
+                .map(entry -> new YearlyAverageTemperature(entry.getKey().toString(), Math.round(entry.getValue() * 10.0) / 10.0))
+                .collect(Collectors.toList());
+    }
+
+    private JobExecution restartJob() throws JobExecutionException {
+        JobInstance jobInstance = jobExplorer.getLastJobInstance(importTemperaturesJob.getName());
+        JobExecution lastExecution = jobInstance == null ? null : jobExplorer.getLastJobExecution(jobInstance);
+        if (lastExecution == null || !RESTARTABLE_STATUSES.contains(lastExecution.getStatus())) {
+            log.info("No failed importTemperaturesJob execution to restart.");
+            return null;
+        }
+        return jobLauncher.run(importTemperaturesJob, lastExecution.getJobParameters());
+    }
+
+    private JobExecution triggerJob(boolean incremental, Long round) throws JobExecutionException {
+        String filePath = Path.of(updateSource).toAbsolutePath().toString();
+        IngestionRange range = round == null ? ingestionTracker.plan(Path.of(filePath), incremental)
+                : ingestionTracker.planSlice(Path.of(filePath), clusterService.getSelf(), clusterService.getShards());
+        JobParametersBuilder parameters = new JobParametersBuilder()
+                .addLong("startAt", System.currentTimeMillis())
+                .addString("filePath", filePath)
+                .addLong("startOffset", range.getStartOffset())
+                .addLong("endOffset", range.getEndOffset());
+        if (round != null) {
+            parameters.addLong(TemperatureJobListener.ROUND_PARAMETER, round);
+        }
+        JobParameters jobParameters = parameters.toJobParameters();
+
+        return jobLauncher.run(importTemperaturesJob, jobParameters);
+    }
+
+    /**
+     * @param e Error of launching the import job.
+     * @return Whether the job can't be launched because of state of its executions, rather than a failure.
+     */
+    private static boolean isConflict(Throwable e) {
+        return e instanceof JobExecutionAlreadyRunningException || e instanceof JobRestartException
+                || e instanceof JobInstanceAlreadyCompleteException;
     }
 
 }
@@ -0,0 +1,80 @@
+package com.daycode.controller;
+
+import com.daycode.aggregate.RollupCube;
+import com.daycode.model.TemperatureRecord;
+import com.daycode.reader.StreamingTemperatureParser;
+import com.daycode.service.TemperatureService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * Ingests temperatures streamed in request body. Available only when served by reactive web server,
+ * which hands the body over as it arrives.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class UploadController {
+
+    /**
+     * Number of body buffers requested ahead of parsing, further reads from the connection wait for the parser.
+     */
+    private static final int PREFETCH = 4;
+
+    private final TemperatureService temperatureService;
+
+    /**
+     * Parse and aggregate CSV in the same format as the source file, as the request body arrives. Body is not stored,
+     * aggregates are published as new snapshot only after whole body was parsed.
+     *
+     * @param body    Request body with {@code city;timestamp;temperature} lines.
+     * @param replace Whether uploaded data replace published aggregates, otherwise they are added to them.
+     * @return Generation of published data, 400 if body has malformed line, in which case nothing is published.
+     */
+    @PostMapping("/upload-data")
+    public Mono<ResponseEntity<Long>> uploadData(@RequestBody Flux<DataBuffer> body,
+                                                 @RequestParam(defaultValue = "false") boolean replace) {
+        return Mono.defer(() -> {
+                    StreamingTemperatureParser parser = new StreamingTemperatureParser("upload");
+                    RollupCube rollup = new RollupCube(temperatureService.getSketchSettings());
+                    return body
+                            .publishOn(Schedulers.parallel(), PREFETCH)
+                            .doOnNext(buffer -> {
+                                try {
+                                    List<TemperatureRecord> records = parser.parse(buffer.asByteBuffer());
+                                    temperatureService.aggregateTemperatureRecords(records, rollup);
+                                } finally {
+                                    DataBufferUtils.release(buffer);
+                                }
+                            })
+                            .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                            .then(Mono.fromCallable(() -> {
+                                temperatureService.aggregateTemperatureRecords(parser.finish(), rollup);
+                                log.info("Parsed {} uploaded lines.", parser.getLineNumber());
+                                return temperatureService.publishAggregates(rollup, replace, "upload");
+                            }).subscribeOn(Schedulers.boundedElastic()));
+                })
+                .map(ResponseEntity::ok)
+                .onErrorResume(FlatFileParseException.class, e -> Mono.just(ResponseEntity.badRequest().build()))
+                .onErrorResume(e -> {
+                    log.error("Failed to ingest uploaded data.", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+}
@@ -6,20 +6,60 @@ import org.springframework.batch.item.file.transform.FieldSet;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.function.Supplier;
 
 /**
- * Spring batch record mapper.
+ * Spring batch record mapper. Values in the expected layout are parsed by {@link TemperatureLineParser},
+ * anything else falls back to strict parsing.
  */
 public class RecordMapper implements FieldSetMapper<TemperatureRecord> {
 
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
 
+    private final Supplier<TemperatureRecord> records;
+    private final Runnable fallbackListener;
+
+    /**
+     * Mapper creating new record for each line.
+     */
+    public RecordMapper() {
+        this(TemperatureRecord::new);
+    }
+
+    /**
+     * @param records Supplier of records to fill, e.g. {@link TemperatureRecordRing}.
+     */
+    public RecordMapper(Supplier<TemperatureRecord> records) {
+        this(records, () -> {
+        });
+    }
+
+    /**
+     * @param records          Supplier of records to fill, e.g. {@link TemperatureRecordRing}.
+     * @param fallbackListener Notified about every line which did not match the expected layout.
+     */
+    public RecordMapper(Supplier<TemperatureRecord> records, Runnable fallbackListener) {
+        this.records = records;
+        this.fallbackListener = fallbackListener;
+    }
+
     @Override
     public TemperatureRecord mapFieldSet(FieldSet fieldSet) {
-        TemperatureRecord record = new TemperatureRecord();
+        TemperatureRecord record = records.get();
         record.setCity(fieldSet.readString("city"));
-        record.setTimestamp(LocalDateTime.parse(fieldSet.readString("timestamp"), formatter));
-        record.setTemperature(fieldSet.readDouble("temperature"));
+        String timestamp = fieldSet.readString("timestamp");
+        boolean matched = true;
+        if (!TemperatureLineParser.parseTimestamp(timestamp, record)) {
+            record.setTimestamp(LocalDateTime.parse(timestamp, formatter));
+            matched = false;
+        }
+        if (!TemperatureLineParser.parseTemperature(fieldSet.readString("temperature"), record)) {
+            record.setTemperature(fieldSet.readDouble("temperature"));
+            matched = false;
+        }
+        if (!matched) {
+            fallbackListener.run();
+        }
         return record;
     }
 }
@@ -0,0 +1,103 @@
+package com.daycode.mapper;
+
+import com.daycode.model.TemperatureRecord;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Decodes {@code city;timestamp;temperature} lines from bytes, without decoding whole lines into Strings.
+ * City name is decoded only when it differs from the one in previous line, so consecutive records of the same city
+ * share the same String instance. Timestamp and temperature are parsed by {@link TemperatureLineParser} with
+ * fallback to strict parsing.
+ * Decoder keeps the last city, so it must not be shared between threads.
+ */
+public class TemperatureLineDecoder {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private byte[] cityBytes = new byte[64];
+    private int cityLength = -1;
+    private String city;
+
+    /**
+     * Decodes single line.
+     *
+     * @param buffer Buffer with the line.
+     * @param start  Index of the first byte of the line.
+     * @param end    Index after the last byte of the line, without line separator.
+     * @param record Record to fill.
+     * @return {@code true} if line matched expected layout, {@code false} if strict parsing was needed.
+     * @throws IllegalArgumentException when line has wrong number of tokens or malformed temperature.
+     * @throws DateTimeException        when line has malformed timestamp.
+     */
+    public boolean decode(ByteBuffer buffer, int start, int end, TemperatureRecord record) {
+        int citySeparator = indexOf(buffer, ';', start, end);
+        int timestampSeparator = citySeparator < 0 ? -1 : indexOf(buffer, ';', citySeparator + 1, end);
+        if (timestampSeparator < 0) {
+            throw new IllegalArgumentException("Incorrect number of tokens");
+        }
+        record.setCity(city(buffer, start, citySeparator));
+        boolean matched = true;
+        if (!TemperatureLineParser.parseTimestamp(buffer, citySeparator + 1, timestampSeparator, record)) {
+            record.setTimestamp(LocalDateTime.parse(text(buffer, citySeparator + 1, timestampSeparator), FORMATTER));
+            matched = false;
+        }
+        if (!TemperatureLineParser.parseTemperature(buffer, timestampSeparator + 1, end, record)) {
+            record.setTemperature(Double.parseDouble(text(buffer, timestampSeparator + 1, end)));
+            matched = false;
+        }
+        return matched;
+    }
+
+    /**
+     * Decodes bytes into String, e.g. to report malformed line.
+     *
+     * @param buffer Buffer with the text.
+     * @param start  Index of the first byte.
+     * @param end    Index after the last byte.
+     * @return Decoded text.
+     */
+    public static String text(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes, 0, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return Index of the first separator between given indexes, {@code -1} if there is none.
+     */
+    public static int indexOf(ByteBuffer buffer, char separator, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == separator) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String city(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (length != cityLength || !sameCity(buffer, start, length)) {
+            if (cityBytes.length < length) {
+                cityBytes = new byte[Math.max(length, cityBytes.length * 2)];
+            }
+            buffer.get(start, cityBytes, 0, length);
+            cityLength = length;
+            city = new String(cityBytes, 0, length, StandardCharsets.UTF_8);
+        }
+        return city;
+    }
+
+    private boolean sameCity(ByteBuffer buffer, int start, int length) {
+        for (int i = 0; i < length; i++) {
+            if (cityBytes[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
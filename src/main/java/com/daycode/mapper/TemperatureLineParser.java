@@ -0,0 +1,227 @@
+package com.daycode.mapper;
+
+import com.daycode.model.TemperatureRecord;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fast parser for the fixed {@code yyyy-MM-dd HH:mm:ss.SSS;dd.dd} layout of the source file.
+ * Year, local epoch millis and temperature in hundredths are calculated straight from characters or bytes,
+ * without creating dates, formatters or intermediate Strings.
+ * Methods return {@code false} when the value does not match the expected layout, so callers can fall back
+ * to strict parsing, which reports the malformed value.
+ */
+public final class TemperatureLineParser {
+
+    /**
+     * Length of the timestamp in {@code yyyy-MM-dd HH:mm:ss.SSS} format.
+     */
+    public static final int TIMESTAMP_LENGTH = 23;
+
+    /**
+     * Number of millis in a day.
+     */
+    public static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private static final int MAX_TEMPERATURE_DIGITS = 7;
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private TemperatureLineParser() {
+    }
+
+    /**
+     * Parses timestamp from text.
+     *
+     * @param text   Timestamp text.
+     * @param record Record to fill with year and epoch millis.
+     * @return {@code true} if timestamp matched the layout and record was filled.
+     */
+    public static boolean parseTimestamp(CharSequence text, TemperatureRecord record) {
+        if (text.length() != TIMESTAMP_LENGTH || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || text.charAt(10) != ' ' || text.charAt(13) != ':' || text.charAt(16) != ':' || text.charAt(19) != '.') {
+            return false;
+        }
+        return setTimestamp(record, digits(text, 0, 4), digits(text, 5, 2), digits(text, 8, 2),
+                digits(text, 11, 2), digits(text, 14, 2), digits(text, 17, 2), digits(text, 20, 3));
+    }
+
+    /**
+     * Parses timestamp from bytes.
+     *
+     * @param buffer Buffer with the line.
+     * @param start  Index of the first byte of the timestamp.
+     * @param end    Index after the last byte of the timestamp.
+     * @param record Record to fill with year and epoch millis.
+     * @return {@code true} if timestamp matched the layout and record was filled.
+     */
+    public static boolean parseTimestamp(ByteBuffer buffer, int start, int end, TemperatureRecord record) {
+        if (end - start != TIMESTAMP_LENGTH || buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-'
+                || buffer.get(start + 10) != ' ' || buffer.get(start + 13) != ':' || buffer.get(start + 16) != ':'
+                || buffer.get(start + 19) != '.') {
+            return false;
+        }
+        return setTimestamp(record, digits(buffer, start, 4), digits(buffer, start + 5, 2), digits(buffer, start + 8, 2),
+                digits(buffer, start + 11, 2), digits(buffer, start + 14, 2), digits(buffer, start + 17, 2),
+                digits(buffer, start + 20, 3));
+    }
+
+    /**
+     * Parses temperature with at most two decimal places from text.
+     *
+     * @param text   Temperature text.
+     * @param record Record to fill with temperature.
+     * @return {@code true} if temperature matched the layout and record was filled.
+     */
+    public static boolean parseTemperature(CharSequence text, TemperatureRecord record) {
+        int length = text.length();
+        boolean negative = length > 0 && text.charAt(0) == '-';
+        int value = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (int i = negative ? 1 : 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                digits++;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else {
+                return false;
+            }
+        }
+        return setTemperature(record, negative, value, digits, decimals);
+    }
+
+    /**
+     * Parses temperature with at most two decimal places from bytes.
+     *
+     * @param buffer Buffer with the line.
+     * @param start  Index of the first byte of the temperature.
+     * @param end    Index after the last byte of the temperature.
+     * @param record Record to fill with temperature.
+     * @return {@code true} if temperature matched the layout and record was filled.
+     */
+    public static boolean parseTemperature(ByteBuffer buffer, int start, int end, TemperatureRecord record) {
+        boolean negative = end > start && buffer.get(start) == '-';
+        int value = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                digits++;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else {
+                return false;
+            }
+        }
+        return setTemperature(record, negative, value, digits, decimals);
+    }
+
+    /**
+     * Calculates millis from 1970-01-01T00:00 for given local date and time, without validation.
+     *
+     * @return Local epoch millis.
+     */
+    public static long localEpochMillis(int year, int month, int day, int hour, int minute, int second, int millis) {
+        long days = epochDay(year, month, day);
+        return (((days * 24 + hour) * 60 + minute) * 60 + second) * 1000 + millis;
+    }
+
+    /**
+     * Calculates year of given local epoch millis, without creating dates.
+     *
+     * @param epochMillis Local epoch millis.
+     * @return Year in proleptic Gregorian calendar.
+     */
+    public static int year(long epochMillis) {
+        return date(epochMillis) / 10000;
+    }
+
+    /**
+     * Calculates date of given local epoch millis, without creating dates.
+     *
+     * @param epochMillis Local epoch millis.
+     * @return Date as {@code yyyyMMdd} int.
+     */
+    public static int date(long epochMillis) {
+        long shifted = Math.floorDiv(epochMillis, MILLIS_PER_DAY) + 719468;
+        long era = Math.floorDiv(shifted, 146097);
+        long dayOfEra = shifted - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+        long month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (year * 10000 + month * 100 + day);
+    }
+
+    /**
+     * Days from 1970-01-01 for given date in proleptic Gregorian calendar.
+     */
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static boolean setTimestamp(TemperatureRecord record, int year, int month, int day,
+                                        int hour, int minute, int second, int millis) {
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || millis < 0) {
+            return false;
+        }
+        record.setTimestamp(year, localEpochMillis(year, month, day, hour, minute, second, millis));
+        return true;
+    }
+
+    private static boolean setTemperature(TemperatureRecord record, boolean negative, int value, int digits, int decimals) {
+        if (digits == 0 || digits > MAX_TEMPERATURE_DIGITS || decimals == 0 || decimals > 2) {
+            return false;
+        }
+        int hundredths = decimals == 2 ? value : decimals == 1 ? value * 10 : value * 100;
+        record.setTemperatureHundredths(negative ? -hundredths : hundredths);
+        return true;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        boolean leap = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+        return month == 2 && leap ? 29 : DAYS_IN_MONTH[month - 1];
+    }
+
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int digits(ByteBuffer buffer, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,44 @@
+package com.daycode.mapper;
+
+import com.daycode.model.TemperatureRecord;
+
+import java.util.function.Supplier;
+
+/**
+ * Supplies reused record instances. Each thread cycles through its own ring of records, so a record is handed out
+ * again only after as many newer records were supplied to the same thread as the ring size. With ring size not
+ * smaller than chunk size, records are reused only after the chunk holding them was written.
+ */
+public class TemperatureRecordRing implements Supplier<TemperatureRecord> {
+
+    private final int size;
+    private final ThreadLocal<Ring> rings = ThreadLocal.withInitial(Ring::new);
+
+    /**
+     * @param size Number of records per thread, must be at least the chunk size.
+     */
+    public TemperatureRecordRing(int size) {
+        this.size = size;
+    }
+
+    @Override
+    public TemperatureRecord get() {
+        return rings.get().next();
+    }
+
+    private final class Ring {
+
+        private final TemperatureRecord[] records = new TemperatureRecord[size];
+        private int next;
+
+        private TemperatureRecord next() {
+            TemperatureRecord record = records[next];
+            if (record == null) {
+                record = new TemperatureRecord();
+                records[next] = record;
+            }
+            next = next + 1 == size ? 0 : next + 1;
+            return record;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.daycode.model;
+
+/**
+ * Memory holding entries and hash index of aggregate tables.
+ */
+public enum AggregateStorage {
+
+    /**
+     * Primitive arrays on the heap.
+     */
+    HEAP,
+
+    /**
+     * Direct byte buffers outside the heap, so heap size and garbage collection time do not grow with the number
+     * of (city, bucket) entries.
+     */
+    OFF_HEAP
+}
@@ -19,9 +19,20 @@ import org.springframework.context.annotation.Configuration;
 public class BatchProperties {
 
     private int chunkSize;
+    private long targetChunkMillis;
+    private int maxChunkSize = 100_000;
+    private long checkpointMegabytes;
     private int corePoolSize;
     private int maxPoolSize;
     private int queueCapacity;
     private String threadNamePrefix;
+    private ReaderType reader = ReaderType.FLAT;
+    private boolean reuseRecords;
+    private int partitions = 1;
+    private String columnarStorePath;
+    private String snapshotPath;
+    private double sketchRelativeAccuracy = 0.01;
+    private int sketchMaxBins = 512;
+    private AggregateStorage aggregateStorage = AggregateStorage.HEAP;
 
 }
@@ -0,0 +1,21 @@
+package com.daycode.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Response cache statistics data representation.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatistics {
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private double missRatio;
+    private int entries;
+}
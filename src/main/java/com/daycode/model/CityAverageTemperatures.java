@@ -0,0 +1,20 @@
+package com.daycode.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Average temperatures of single city, element of bulk response.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CityAverageTemperatures {
+    private String city;
+    private List<YearlyAverageTemperature> averages;
+}
@@ -0,0 +1,30 @@
+package com.daycode.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of instances sharing cities. Every instance is configured with the same list of peers,
+ * its own position in the list is its shard.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Configuration
+@ConfigurationProperties(prefix = "cluster")
+public class ClusterProperties {
+
+    private List<String> peers = new ArrayList<>();
+    private int self;
+    private long transferTimeoutSeconds = 60;
+    private long roundTimeoutSeconds = 3600;
+
+}
@@ -0,0 +1,23 @@
+package com.daycode.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * State of the latest cluster import round on the owner of collected aggregates.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterRound {
+    private long round;
+    private List<Integer> receivedShards;
+    private List<Integer> missingShards;
+    private boolean complete;
+    private boolean timedOut;
+}
@@ -0,0 +1,88 @@
+package com.daycode.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Fingerprint of file prefix: its length with checksums of its first and last block and of small blocks sampled
+ * at fixed fractions of the prefix. Prefix of a file which was only appended to keeps the same fingerprint.
+ * Fingerprint does not read the whole prefix, so it detects truncation, rewrites and edits near the sampled blocks,
+ * but not an in-place edit keeping the length which falls between them.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class FileFingerprint {
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+    private static final int SAMPLE_SIZE = 4 * 1024;
+    private static final int SAMPLES = 16;
+
+    private final long length;
+    private final long headChecksum;
+    private final long tailChecksum;
+    private final long sampleChecksum;
+
+    /**
+     * Calculates fingerprint of file prefix.
+     *
+     * @param path   File path.
+     * @param length Length of the prefix.
+     * @return Fingerprint of the prefix.
+     * @throws IOException in case of issues reading the file, or if it is shorter than the prefix.
+     */
+    public static FileFingerprint of(Path path, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < length) {
+                throw new IOException("File " + path + " is shorter than " + length + " bytes");
+            }
+            int headLength = (int) Math.min(BLOCK_SIZE, length);
+            int tailLength = (int) Math.min(BLOCK_SIZE, length);
+            return new FileFingerprint(length, checksum(channel, 0, headLength),
+                    checksum(channel, length - tailLength, tailLength), sampleChecksum(channel, length));
+        }
+    }
+
+    /**
+     * Checksum of blocks between the first and the last one, at offsets depending only on the prefix length.
+     */
+    private static long sampleChecksum(FileChannel channel, long length) throws IOException {
+        CRC32 crc = new CRC32();
+        long middle = length - 2L * BLOCK_SIZE - SAMPLE_SIZE;
+        if (middle < 0) {
+            return crc.getValue();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(SAMPLE_SIZE);
+        for (int i = 1; i <= SAMPLES; i++) {
+            read(channel, buffer.clear(), BLOCK_SIZE + middle * i / (SAMPLES + 1));
+            crc.update(buffer.flip());
+        }
+        return crc.getValue();
+    }
+
+    private static long checksum(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        read(channel, buffer, position);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.flip());
+        return crc.getValue();
+    }
+
+    private static void read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.daycode.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.file.Path;
+
+/**
+ * Byte range of single source file.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class FileRange {
+
+    private final Path path;
+    private final long startOffset;
+    private final long endOffset;
+
+    /**
+     * @return Number of bytes in the range.
+     */
+    public long length() {
+        return endOffset - startOffset;
+    }
+}
@@ -0,0 +1,52 @@
+package com.daycode.model;
+
+/**
+ * Time buckets of the rollup. Buckets are kept as ints: {@code yyyy}, {@code yyyyMM} or {@code yyyyMMdd}.
+ */
+public enum Granularity {
+
+    /**
+     * Bucket per year.
+     */
+    YEAR,
+
+    /**
+     * Bucket per month of year.
+     */
+    MONTH,
+
+    /**
+     * Bucket per day.
+     */
+    DAY;
+
+    /**
+     * @param date Date as {@code yyyyMMdd} int.
+     * @return Bucket of given date.
+     */
+    public int bucket(int date) {
+        switch (this) {
+            case YEAR:
+                return date / 10000;
+            case MONTH:
+                return date / 100;
+            default:
+                return date;
+        }
+    }
+
+    /**
+     * @param bucket Bucket of this granularity.
+     * @return Bucket in ISO format, e.g. {@code 2021-03}.
+     */
+    public String format(int bucket) {
+        switch (this) {
+            case YEAR:
+                return Integer.toString(bucket);
+            case MONTH:
+                return String.format("%d-%02d", bucket / 100, bucket % 100);
+            default:
+                return String.format("%d-%02d-%02d", bucket / 10000, bucket / 100 % 100, bucket % 100);
+        }
+    }
+}
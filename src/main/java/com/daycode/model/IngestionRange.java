@@ -0,0 +1,24 @@
+package com.daycode.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Byte range of the source file to ingest.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class IngestionRange {
+
+    private final long startOffset;
+    private final long endOffset;
+
+    /**
+     * @return true if range starts at the beginning of the file, so ingested data replaces existing one.
+     */
+    public boolean isFullRebuild() {
+        return startOffset == 0;
+    }
+}
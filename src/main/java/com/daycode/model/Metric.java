@@ -0,0 +1,32 @@
+package com.daycode.model;
+
+/**
+ * Statistics kept for every rollup bucket.
+ */
+public enum Metric {
+
+    /**
+     * Average temperature.
+     */
+    AVG,
+
+    /**
+     * Lowest temperature.
+     */
+    MIN,
+
+    /**
+     * Highest temperature.
+     */
+    MAX,
+
+    /**
+     * Number of measurements.
+     */
+    COUNT,
+
+    /**
+     * Sum of temperatures.
+     */
+    SUM
+}
@@ -0,0 +1,17 @@
+package com.daycode.model;
+
+/**
+ * Item reader implementations available for the temperatures job.
+ */
+public enum ReaderType {
+
+    /**
+     * Spring batch {@code FlatFileItemReader} with delimited line tokenizer.
+     */
+    FLAT,
+
+    /**
+     * Memory-mapped reader scanning raw bytes of the source file.
+     */
+    MAPPED
+}
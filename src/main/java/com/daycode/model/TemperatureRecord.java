@@ -1,20 +1,82 @@
 package com.daycode.model;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 /**
- * Record representation from source file.
+ * Record representation from source file. Timestamp is kept as local epoch millis together with its year,
+ * temperature as fixed-point hundredths, so parsers can fill the record without allocations.
+ * Record is mutable and may be reused by readers.
  */
 @Setter
 @Getter
 public class TemperatureRecord {
 
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
     private String city;
     private LocalDateTime timestamp;
     private double temperature;
+    @Setter(AccessLevel.NONE)
+    private int year;
+    @Setter(AccessLevel.NONE)
+    private long epochMillis = NO_TIMESTAMP;
+    private int temperatureHundredths;
 
-}
+    /**
+     * @return Whether timestamp of the record was set.
+     */
+    public boolean hasTimestamp() {
+        return epochMillis != NO_TIMESTAMP;
+    }
+
+    /**
+     * @return Measurement date and time, created lazily for records filled by fast parser.
+     */
+    public LocalDateTime getTimestamp() {
+        if (timestamp == null && epochMillis != NO_TIMESTAMP) {
+            timestamp = LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000L),
+                    (int) Math.floorMod(epochMillis, 1000L) * 1_000_000, ZoneOffset.UTC);
+        }
+        return timestamp;
+    }
+
+    /**
+     * @param timestamp Measurement date and time.
+     */
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+        this.year = timestamp.getYear();
+        this.epochMillis = timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
 
+    /**
+     * @param year        Year of measurement.
+     * @param epochMillis Measurement date and time as millis from 1970-01-01T00:00 in local time.
+     */
+    public void setTimestamp(int year, long epochMillis) {
+        this.timestamp = null;
+        this.year = year;
+        this.epochMillis = epochMillis;
+    }
+
+    /**
+     * @param temperature Temperature in degrees, rounded to hundredths.
+     */
+    public void setTemperature(double temperature) {
+        this.temperature = temperature;
+        this.temperatureHundredths = (int) Math.round(temperature * 100);
+    }
+
+    /**
+     * @param temperatureHundredths Temperature in hundredths of degree.
+     */
+    public void setTemperatureHundredths(int temperatureHundredths) {
+        this.temperature = temperatureHundredths / 100.0;
+        this.temperatureHundredths = temperatureHundredths;
+    }
+}
@@ -0,0 +1,18 @@
+package com.daycode.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Temperature statistic of single time bucket data representation.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemperatureStatistic {
+    private String bucket;
+    private double value;
+}
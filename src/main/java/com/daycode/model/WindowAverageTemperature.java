@@ -0,0 +1,20 @@
+package com.daycode.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Average temperature of a range of days data representation.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class WindowAverageTemperature {
+    private String from;
+    private String to;
+    private long measurements;
+    private double averageTemperature;
+}
@@ -0,0 +1,20 @@
+package com.daycode.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * Temperature percentiles of single year data representation, keyed e.g. {@code p95}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class YearlyPercentileTemperatures {
+    private String year;
+    private Map<String, Double> percentiles;
+}
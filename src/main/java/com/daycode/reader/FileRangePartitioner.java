@@ -0,0 +1,128 @@
+package com.daycode.reader;
+
+import com.daycode.model.FileRange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spring batch partitioner splitting source file into line aligned byte ranges of similar size.
+ * Each partition context holds file path with start and end offset of its range.
+ * Gzip file can't be split at line boundaries without decompressing it, so it forms single partition.
+ */
+@Slf4j
+public class FileRangePartitioner implements Partitioner {
+
+    public static final String FILE_PATH_KEY = "filePath";
+    public static final String START_OFFSET_KEY = "startOffset";
+    public static final String END_OFFSET_KEY = "endOffset";
+
+    private static final int SCAN_BUFFER_SIZE = 8 * 1024;
+
+    private final Path path;
+    private final long start;
+    private final long end;
+
+    /**
+     * @param path Source file path.
+     */
+    public FileRangePartitioner(Path path) {
+        this(path, 0L, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param path  Source file path.
+     * @param start Offset of the first line to split.
+     * @param end   Offset after the last line to split.
+     */
+    public FileRangePartitioner(Path path, long start, long end) {
+        this.path = path;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        for (FileRange range : ranges(gridSize)) {
+            partitions.put("partition" + partitions.size(), context(range));
+        }
+        log.info("Split {} into {} partitions.", path, partitions.size());
+        return partitions;
+    }
+
+    /**
+     * Splits the file into line aligned byte ranges of similar size.
+     *
+     * @param count Maximum number of ranges.
+     * @return Non-empty ranges in file order.
+     */
+    public List<FileRange> ranges(int count) {
+        List<FileRange> ranges = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long limit = Math.min(end, channel.size());
+            if (ParallelGzipInputStream.isGzip(path)) {
+                if (limit > start) {
+                    ranges.add(new FileRange(path, start, limit));
+                }
+                return ranges;
+            }
+            long rangeStart = start;
+            for (int i = 1; i <= count && rangeStart < limit; i++) {
+                long rangeEnd = i == count ? limit
+                        : lineStartAfter(channel, start + (limit - start) * i / count, limit);
+                if (rangeEnd > rangeStart) {
+                    ranges.add(new FileRange(path, rangeStart, rangeEnd));
+                    rangeStart = rangeEnd;
+                }
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to split file: " + path, e);
+        }
+        return ranges;
+    }
+
+    private static ExecutionContext context(FileRange range) {
+        ExecutionContext context = new ExecutionContext();
+        context.putString(FILE_PATH_KEY, range.getPath().toString());
+        context.putLong(START_OFFSET_KEY, range.getStartOffset());
+        context.putLong(END_OFFSET_KEY, range.getEndOffset());
+        return context;
+    }
+
+    /**
+     * Finds start of the first line beginning at or after given offset.
+     */
+    private static long lineStartAfter(FileChannel channel, long offset, long limit) throws IOException {
+        if (offset == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = offset - 1;
+        while (position < limit) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read && position + i < limit; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return limit;
+    }
+}
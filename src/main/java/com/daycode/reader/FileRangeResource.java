@@ -0,0 +1,84 @@
+package com.daycode.reader;
+
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File resource exposing only given byte range of the file through its input stream.
+ */
+public class FileRangeResource extends FileSystemResource {
+
+    private final long startOffset;
+    private final long endOffset;
+
+    /**
+     * @param path        File path.
+     * @param startOffset Offset of the first byte of the range.
+     * @param endOffset   Offset after the last byte of the range.
+     */
+    public FileRangeResource(Path path, long startOffset, long endOffset) {
+        super(path);
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        FileChannel channel = FileChannel.open(getFile().toPath(), StandardOpenOption.READ);
+        channel.position(startOffset);
+        return new RangeInputStream(Channels.newInputStream(channel), endOffset - startOffset);
+    }
+
+    /**
+     * Stream returning at most given number of bytes of underlying stream.
+     */
+    static class RangeInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        /**
+         * @param in     Underlying stream.
+         * @param length Maximum number of bytes to return.
+         */
+        RangeInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read();
+            if (read >= 0) {
+                remaining--;
+            }
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+}
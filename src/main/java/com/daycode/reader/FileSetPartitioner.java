@@ -0,0 +1,129 @@
+package com.daycode.reader;
+
+import com.daycode.model.FileRange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Spring batch partitioner spreading byte ranges of many source files over partitions of similar total size.
+ * Ranges larger than the even share of a partition are first split at line boundaries, then ranges are assigned
+ * largest first, each to the partition with the least bytes so far, so one big file does not leave other
+ * partitions idle. Each partition context holds its ranges encoded with {@link #encode(List)}.
+ */
+@Slf4j
+public class FileSetPartitioner implements Partitioner {
+
+    public static final String FILE_RANGES_KEY = "fileRanges";
+
+    private final List<FileRange> ranges;
+
+    /**
+     * @param ranges Byte ranges of source files.
+     */
+    public FileSetPartitioner(List<FileRange> ranges) {
+        this.ranges = ranges;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        for (List<FileRange> assigned : assign(gridSize)) {
+            ExecutionContext context = new ExecutionContext();
+            context.putString(FILE_RANGES_KEY, encode(assigned));
+            partitions.put("partition" + partitions.size(), context);
+        }
+        log.info("Spread {} file ranges over {} partitions.", ranges.size(), partitions.size());
+        return partitions;
+    }
+
+    /**
+     * Assigns ranges to at most given number of partitions, keeping file order within every partition.
+     *
+     * @param gridSize Maximum number of partitions.
+     * @return Non-empty lists of ranges of every partition.
+     */
+    public List<List<FileRange>> assign(int gridSize) {
+        long total = ranges.stream().mapToLong(FileRange::length).sum();
+        long share = Math.max(1, (total + gridSize - 1) / gridSize);
+        List<FileRange> pieces = new ArrayList<>();
+        for (FileRange range : ranges) {
+            int count = (int) Math.min(gridSize, (range.length() + share - 1) / share);
+            if (count > 1) {
+                pieces.addAll(new FileRangePartitioner(range.getPath(), range.getStartOffset(), range.getEndOffset())
+                        .ranges(count));
+            } else if (range.length() > 0) {
+                pieces.add(range);
+            }
+        }
+        pieces.sort(Comparator.comparingLong(FileRange::length).reversed());
+        PriorityQueue<Bin> bins = new PriorityQueue<>(Comparator.comparingLong((Bin bin) -> bin.bytes)
+                .thenComparingInt(bin -> bin.index));
+        for (int i = 0; i < Math.min(gridSize, pieces.size()); i++) {
+            bins.add(new Bin(i));
+        }
+        List<List<FileRange>> assigned = new ArrayList<>();
+        bins.forEach(bin -> assigned.add(bin.ranges));
+        for (FileRange piece : pieces) {
+            Bin bin = bins.poll();
+            bin.ranges.add(piece);
+            bin.bytes += piece.length();
+            bins.add(bin);
+        }
+        assigned.forEach(list -> list.sort(Comparator.comparing(FileRange::getPath)
+                .thenComparingLong(FileRange::getStartOffset)));
+        return assigned;
+    }
+
+    /**
+     * Encodes ranges as lines of start offset, end offset and path, so they can be kept in execution context.
+     *
+     * @param ranges Ranges to encode.
+     * @return Encoded ranges.
+     */
+    public static String encode(List<FileRange> ranges) {
+        StringBuilder encoded = new StringBuilder();
+        for (FileRange range : ranges) {
+            encoded.append(range.getStartOffset()).append(' ').append(range.getEndOffset()).append(' ')
+                    .append(range.getPath()).append('\n');
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * @param encoded Ranges encoded with {@link #encode(List)}.
+     * @return Decoded ranges.
+     */
+    public static List<FileRange> decode(String encoded) {
+        List<FileRange> ranges = new ArrayList<>();
+        for (String line : encoded.split("\n")) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            int first = line.indexOf(' ');
+            int second = line.indexOf(' ', first + 1);
+            ranges.add(new FileRange(Path.of(line.substring(second + 1)), Long.parseLong(line.substring(0, first)),
+                    Long.parseLong(line.substring(first + 1, second))));
+        }
+        return ranges;
+    }
+
+    private static final class Bin {
+
+        private final int index;
+        private final List<FileRange> ranges = new ArrayList<>();
+        private long bytes;
+
+        private Bin(int index) {
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.daycode.reader;
+
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+
+/**
+ * Gzip file resource exposing decompressed content of gzip members in given byte range of the file.
+ * Range must start and end at member boundaries, e.g. at the end of previously ingested file, to which further
+ * members were appended.
+ */
+public class GzipRangeResource extends FileSystemResource {
+
+    private final long startOffset;
+    private final long endOffset;
+    private final Executor executor;
+    private final int readAhead;
+
+    /**
+     * @param path        Gzip file path.
+     * @param startOffset Offset of the first gzip member.
+     * @param endOffset   Offset after the last gzip member.
+     * @param executor    Executor decompressing BGZF blocks in parallel.
+     * @param readAhead   Maximum number of blocks decompressed ahead.
+     */
+    public GzipRangeResource(Path path, long startOffset, long endOffset, Executor executor, int readAhead) {
+        super(path);
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.executor = executor;
+        this.readAhead = readAhead;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new ParallelGzipInputStream(getFile().toPath(), startOffset, endOffset, executor, readAhead);
+    }
+}
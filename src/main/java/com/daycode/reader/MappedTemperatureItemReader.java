@@ -0,0 +1,232 @@
+package com.daycode.reader;
+
+import com.daycode.mapper.TemperatureLineDecoder;
+import com.daycode.mapper.TemperatureRecordRing;
+import com.daycode.model.TemperatureRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.file.FlatFileParseException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Spring batch reader mapping the source file into memory and scanning its bytes directly for
+ * {@code ;} and {@code \n} separators, without decoding whole lines into Strings.
+ * Lines are decoded by {@link TemperatureLineDecoder}, which decodes city name only when it differs from the one
+ * in previous line.
+ * Reader may be limited to a line aligned byte range of the file and saves offset of the next line in execution
+ * context, so restarted step continues from the last commit.
+ * Reader is thread safe, so it can be used in multi-threaded step.
+ */
+@Slf4j
+public class MappedTemperatureItemReader extends ItemStreamSupport implements ItemStreamReader<TemperatureRecord> {
+
+    private static final String OFFSET_KEY = "offset";
+    private static final String LINE_NUMBER_KEY = "line.number";
+    private static final long DEFAULT_WINDOW_SIZE = 256L * 1024 * 1024;
+
+    private final Path path;
+    private final long rangeStart;
+    private final long rangeEnd;
+    private final long windowSize;
+    private final Supplier<TemperatureRecord> records;
+
+    private FileChannel channel;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long readLimit;
+    private long position;
+    private long lineNumber;
+    private long reportedPosition;
+    private LongConsumer bytesReadListener = bytes -> {
+    };
+    private Runnable fallbackListener = () -> {
+    };
+
+    private final TemperatureLineDecoder decoder = new TemperatureLineDecoder();
+
+    /**
+     * @param path Source file path.
+     */
+    public MappedTemperatureItemReader(Path path) {
+        this(path, TemperatureRecord::new);
+    }
+
+    /**
+     * @param path    Source file path.
+     * @param records Supplier of records to fill, e.g. {@link TemperatureRecordRing}.
+     */
+    public MappedTemperatureItemReader(Path path, Supplier<TemperatureRecord> records) {
+        this(path, 0L, Long.MAX_VALUE, records);
+    }
+
+    /**
+     * @param path    Source file path.
+     * @param start   Offset of the first line to read.
+     * @param end     Offset after the last line to read, must be at line boundary.
+     * @param records Supplier of records to fill, e.g. {@link TemperatureRecordRing}.
+     */
+    public MappedTemperatureItemReader(Path path, long start, long end, Supplier<TemperatureRecord> records) {
+        this(path, start, end, DEFAULT_WINDOW_SIZE, records);
+    }
+
+    /**
+     * @param path       Source file path.
+     * @param start      Offset of the first line to read.
+     * @param end        Offset after the last line to read, must be at line boundary.
+     * @param windowSize Size of single mapped region, must be larger than longest line in the file.
+     * @param records    Supplier of records to fill.
+     */
+    public MappedTemperatureItemReader(Path path, long start, long end, long windowSize, Supplier<TemperatureRecord> records) {
+        this.path = path;
+        this.rangeStart = start;
+        this.rangeEnd = end;
+        this.windowSize = windowSize;
+        this.records = records;
+    }
+
+    /**
+     * @param bytesReadListener Receives number of bytes read since previous report, on every update and close.
+     */
+    public void setBytesReadListener(LongConsumer bytesReadListener) {
+        this.bytesReadListener = bytesReadListener;
+    }
+
+    /**
+     * @param fallbackListener Notified about every line which did not match the expected layout.
+     */
+    public void setFallbackListener(Runnable fallbackListener) {
+        this.fallbackListener = fallbackListener;
+    }
+
+    @Override
+    public synchronized void open(ExecutionContext executionContext) {
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            readLimit = Math.min(rangeEnd, channel.size());
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open file: " + path, e);
+        }
+        position = executionContext.getLong(getExecutionContextKey(OFFSET_KEY), rangeStart);
+        lineNumber = executionContext.getLong(getExecutionContextKey(LINE_NUMBER_KEY), 0L);
+        reportedPosition = position;
+        window = null;
+        log.debug("Opened {} at offset {}, reading up to {}", path, position, readLimit);
+    }
+
+    @Override
+    public synchronized void update(ExecutionContext executionContext) {
+        executionContext.putLong(getExecutionContextKey(OFFSET_KEY), position);
+        executionContext.putLong(getExecutionContextKey(LINE_NUMBER_KEY), lineNumber);
+        reportBytesRead();
+    }
+
+    @Override
+    public synchronized void close() {
+        reportBytesRead();
+        window = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new ItemStreamException("Failed to close file: " + path, e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    @Override
+    public synchronized TemperatureRecord read() {
+        while (position < readLimit) {
+            int start = (int) (position - mapLine());
+            int end = lineEnd(start);
+            position = windowStart + end + 1;
+            lineNumber++;
+            int contentEnd = end > start && window.get(end - 1) == '\r' ? end - 1 : end;
+            if (contentEnd > start) {
+                return parseLine(start, contentEnd);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Makes sure that the line starting at current position is fully mapped, remapping the window when needed.
+     *
+     * @return Offset of current window start.
+     */
+    private long mapLine() {
+        if (window == null || position < windowStart || position >= windowStart + window.limit()) {
+            map(position);
+        } else if (windowStart + window.limit() < readLimit
+                && indexOf('\n', (int) (position - windowStart), window.limit()) < 0) {
+            map(position);
+        }
+        return windowStart;
+    }
+
+    private void map(long offset) {
+        try {
+            long size = Math.min(windowSize, readLimit - offset);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+            windowStart = offset;
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to map file: " + path + " at offset: " + offset, e);
+        }
+    }
+
+    private void reportBytesRead() {
+        if (position > reportedPosition) {
+            bytesReadListener.accept(position - reportedPosition);
+            reportedPosition = position;
+        }
+    }
+
+    private int lineEnd(int start) {
+        int end = indexOf('\n', start, window.limit());
+        if (end >= 0) {
+            return end;
+        }
+        if (windowStart + window.limit() < readLimit) {
+            throw new FlatFileParseException("Line longer than mapped window at line: " + (lineNumber + 1)
+                    + " in resource=[" + path + "]", "", (int) (lineNumber + 1));
+        }
+        return window.limit();
+    }
+
+    private int indexOf(char separator, int from, int to) {
+        return TemperatureLineDecoder.indexOf(window, separator, from, to);
+    }
+
+    private TemperatureRecord parseLine(int start, int end) {
+        try {
+            TemperatureRecord record = records.get();
+            if (!decoder.decode(window, start, end, record)) {
+                fallbackListener.run();
+            }
+            return record;
+        } catch (IllegalArgumentException | DateTimeException e) {
+            FlatFileParseException exception = parseException(e.getMessage(), start, end);
+            exception.initCause(e);
+            throw exception;
+        }
+    }
+
+    private FlatFileParseException parseException(String reason, int start, int end) {
+        String input = TemperatureLineDecoder.text(window, start, end);
+        log.warn("Malformed line: {} in resource=[{}], input=[{}]: {}", lineNumber, path, input, reason);
+        return new FlatFileParseException("Parsing error at line: " + lineNumber + " in resource=[" + path
+                + "], input=[" + input + "]: " + reason, input, (int) lineNumber);
+    }
+}
@@ -0,0 +1,52 @@
+package com.daycode.reader;
+
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * File resource reporting number of bytes read through input stream of another file resource, e.g. to meter
+ * read throughput. Bytes are reported once per read call, which reads whole buffer of a buffered reader.
+ */
+public class MeteredResource extends FileSystemResource {
+
+    private final FileSystemResource resource;
+    private final LongConsumer bytesRead;
+
+    /**
+     * @param resource  Resource providing the content.
+     * @param bytesRead Receives number of bytes returned by every read.
+     */
+    public MeteredResource(FileSystemResource resource, LongConsumer bytesRead) {
+        super(resource.getFile());
+        this.resource = resource;
+        this.bytesRead = bytesRead;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new FilterInputStream(resource.getInputStream()) {
+
+            @Override
+            public int read() throws IOException {
+                int read = super.read();
+                if (read >= 0) {
+                    bytesRead.accept(1);
+                }
+                return read;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    bytesRead.accept(read);
+                }
+                return read;
+            }
+        };
+    }
+}
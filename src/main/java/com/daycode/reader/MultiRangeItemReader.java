@@ -0,0 +1,80 @@
+package com.daycode.reader;
+
+import com.daycode.model.FileRange;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Reads byte ranges of several files one after another, each with its own delegate reader. Index of the range
+ * being read is saved in execution context together with the state of its delegate, so restarted step resumes
+ * within that range and skips ranges read before.
+ *
+ * @param <T> Type of read items.
+ */
+public class MultiRangeItemReader<T> extends ItemStreamSupport implements ItemStreamReader<T> {
+
+    private static final String RANGE_INDEX_KEY = "range.index";
+
+    private final List<FileRange> ranges;
+    private final Function<FileRange, ItemStreamReader<T>> readers;
+    private int rangeIndex;
+    private ItemStreamReader<T> current;
+
+    /**
+     * @param ranges  Ranges to read in order.
+     * @param readers Creates reader of single range.
+     */
+    public MultiRangeItemReader(List<FileRange> ranges, Function<FileRange, ItemStreamReader<T>> readers) {
+        this.ranges = ranges;
+        this.readers = readers;
+    }
+
+    @Override
+    public synchronized void open(ExecutionContext executionContext) {
+        super.open(executionContext);
+        rangeIndex = executionContext.getInt(getExecutionContextKey(RANGE_INDEX_KEY), 0);
+        if (rangeIndex < ranges.size()) {
+            current = readers.apply(ranges.get(rangeIndex));
+            current.open(executionContext);
+        }
+    }
+
+    @Override
+    public synchronized void update(ExecutionContext executionContext) {
+        super.update(executionContext);
+        executionContext.putInt(getExecutionContextKey(RANGE_INDEX_KEY), rangeIndex);
+        if (current != null) {
+            current.update(executionContext);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        super.close();
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+
+    @Override
+    public synchronized T read() throws Exception {
+        while (current != null) {
+            T item = current.read();
+            if (item != null) {
+                return item;
+            }
+            current.close();
+            current = null;
+            if (++rangeIndex < ranges.size()) {
+                current = readers.apply(ranges.get(rangeIndex));
+                current.open(new ExecutionContext());
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,209 @@
+package com.daycode.reader;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Decompresses gzip members stored in given byte range of a file. When members are BGZF blocks, which carry their
+ * compressed size in the {@code BC} extra subfield, following blocks are located from their headers alone and
+ * decompressed ahead in parallel on given executor, while this stream returns them in order. Other members are
+ * decompressed sequentially by {@link GZIPInputStream}, starting from the first member which is not a BGZF block.
+ * Stream is not thread safe.
+ */
+public class ParallelGzipInputStream extends InputStream {
+
+    private static final int HEADER_LENGTH = 18;
+    private static final int TRAILER_LENGTH = 8;
+    private static final int FLAG_EXTRA = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long end;
+    private final Executor executor;
+    private final int readAhead;
+    private final Deque<CompletableFuture<byte[]>> blocks = new ArrayDeque<>();
+    private long nextBlock;
+    private byte[] block = new byte[0];
+    private int blockPosition;
+    private InputStream sequential;
+
+    /**
+     * @param path      Gzip file path.
+     * @param start     Offset of the first gzip member.
+     * @param end       Offset after the last gzip member.
+     * @param executor  Executor decompressing BGZF blocks.
+     * @param readAhead Maximum number of blocks decompressed ahead.
+     * @throws IOException when file can't be opened.
+     */
+    public ParallelGzipInputStream(Path path, long start, long end, Executor executor, int readAhead)
+            throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.end = Math.min(end, channel.size());
+        this.executor = executor;
+        this.readAhead = Math.max(1, readAhead);
+        this.nextBlock = start;
+    }
+
+    /**
+     * @param path File path.
+     * @return {@code true} if file is gzip compressed, judging by its extension.
+     */
+    public static boolean isGzip(Path path) {
+        return path.getFileName() != null && path.getFileName().toString().toLowerCase().endsWith(".gz");
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (blockPosition == block.length) {
+            if (sequential != null) {
+                return sequential.read(buffer, offset, length);
+            }
+            if (!nextBlock()) {
+                return -1;
+            }
+        }
+        int read = Math.min(length, block.length - blockPosition);
+        System.arraycopy(block, blockPosition, buffer, offset, read);
+        blockPosition += read;
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        blocks.forEach(future -> future.cancel(false));
+        blocks.clear();
+        if (sequential != null) {
+            sequential.close();
+        }
+        channel.close();
+    }
+
+    /**
+     * Takes next decompressed block, scheduling following blocks to keep read-ahead full.
+     *
+     * @return {@code false} at the end of the range.
+     */
+    private boolean nextBlock() throws IOException {
+        schedule();
+        CompletableFuture<byte[]> next = blocks.poll();
+        if (next == null) {
+            if (nextBlock < end) {
+                sequential = sequentialStream(nextBlock);
+                return true;
+            }
+            return false;
+        }
+        try {
+            block = next.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof UncheckedIOException
+                    ? ((UncheckedIOException) e.getCause()).getCause() : new IOException(e.getCause());
+        }
+        blockPosition = 0;
+        schedule();
+        return true;
+    }
+
+    private void schedule() throws IOException {
+        while (blocks.size() < readAhead && nextBlock < end) {
+            long blockSize = bgzfBlockSize(nextBlock);
+            if (blockSize < 0) {
+                return;
+            }
+            long blockStart = nextBlock;
+            blocks.add(CompletableFuture.supplyAsync(() -> inflate(blockStart, (int) blockSize), executor));
+            nextBlock += blockSize;
+        }
+    }
+
+    /**
+     * @return Total size of BGZF block starting at given offset, {@code -1} if member is not a BGZF block.
+     */
+    private long bgzfBlockSize(long offset) throws IOException {
+        if (end - offset < HEADER_LENGTH + TRAILER_LENGTH) {
+            return -1;
+        }
+        ByteBuffer header = read(offset, HEADER_LENGTH);
+        if ((header.get(0) & 0xFF) != 0x1F || (header.get(1) & 0xFF) != 0x8B || header.get(2) != 8
+                || header.get(3) != FLAG_EXTRA || header.getShort(10) != 6 || header.get(12) != 'B'
+                || header.get(13) != 'C' || header.getShort(14) != 2) {
+            return -1;
+        }
+        long blockSize = (header.getShort(16) & 0xFFFF) + 1;
+        return offset + blockSize <= end ? blockSize : -1;
+    }
+
+    private byte[] inflate(long offset, int blockSize) {
+        Inflater inflater = new Inflater(true);
+        try {
+            ByteBuffer compressed = read(offset, blockSize);
+            int uncompressedSize = compressed.getInt(blockSize - 4);
+            byte[] uncompressed = new byte[uncompressedSize];
+            inflater.setInput(compressed.array(), HEADER_LENGTH, blockSize - HEADER_LENGTH - TRAILER_LENGTH);
+            int inflated = 0;
+            while (inflated < uncompressedSize && !inflater.finished()) {
+                int count = inflater.inflate(uncompressed, inflated, uncompressedSize - inflated);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(uncompressed, 0, inflated);
+            if (inflated != uncompressedSize || (int) crc.getValue() != compressed.getInt(blockSize - TRAILER_LENGTH)) {
+                throw new IOException("Corrupted gzip block at offset " + offset + " of " + path);
+            }
+            return uncompressed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (DataFormatException e) {
+            throw new UncheckedIOException(new IOException("Corrupted gzip block at offset " + offset + " of " + path, e));
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of " + path + " at offset " + (offset + buffer.position()));
+            }
+        }
+        return buffer;
+    }
+
+    private InputStream sequentialStream(long offset) throws IOException {
+        channel.position(offset);
+        InputStream range = new FileRangeResource.RangeInputStream(Channels.newInputStream(channel), end - offset);
+        return new GZIPInputStream(range, BUFFER_SIZE);
+    }
+}
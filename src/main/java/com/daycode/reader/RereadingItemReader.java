@@ -0,0 +1,43 @@
+package com.daycode.reader;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+
+/**
+ * Reads its whole range again in every step execution. State of the delegate is neither restored nor saved,
+ * because single offset of reader shared by several chunk threads does not tell which lines were written:
+ * chunks read before the offset may still be in flight when the step fails.
+ *
+ * @param <T> Type of read items.
+ */
+public class RereadingItemReader<T> implements ItemStreamReader<T> {
+
+    private final ItemStreamReader<T> delegate;
+
+    /**
+     * @param delegate Thread safe reader of the range.
+     */
+    public RereadingItemReader(ItemStreamReader<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        delegate.open(new ExecutionContext());
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        delegate.update(new ExecutionContext());
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public T read() throws Exception {
+        return delegate.read();
+    }
+}
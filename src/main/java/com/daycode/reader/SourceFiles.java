@@ -0,0 +1,73 @@
+package com.daycode.reader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Resolves source of the import job, which is a single file, a directory or a glob pattern, e.g.
+ * {@code data/*.csv} or {@code data/**}{@code /*.csv.gz}. Files of a directory are taken without descending
+ * into subdirectories. Hidden files are skipped.
+ */
+public final class SourceFiles {
+
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    private SourceFiles() {
+    }
+
+    /**
+     * @param source Source path.
+     * @return {@code true} if source is a directory or a glob pattern rather than a single file.
+     */
+    public static boolean isMultiFile(Path source) {
+        return isGlob(source) || Files.isDirectory(source);
+    }
+
+    /**
+     * @param source Source path.
+     * @return Regular files of the source sorted by path, just the source itself when it is a single file.
+     * @throws IOException in case of issues listing the directories.
+     */
+    public static List<Path> resolve(Path source) throws IOException {
+        if (!isMultiFile(source)) {
+            return List.of(source);
+        }
+        Path base = source.toAbsolutePath();
+        int depth = 1;
+        PathMatcher matcher = path -> true;
+        if (isGlob(source)) {
+            Path pattern = base;
+            while (isGlob(base)) {
+                base = base.getParent();
+            }
+            depth = pattern.toString().contains("**") ? Integer.MAX_VALUE : pattern.getNameCount() - base.getNameCount();
+            matcher = base.getFileSystem().getPathMatcher("glob:" + pattern.toString().replace("\\", "\\\\"));
+        }
+        if (!Files.isDirectory(base)) {
+            return List.of();
+        }
+        PathMatcher filter = matcher;
+        try (Stream<Path> files = Files.walk(base, depth)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().startsWith("."))
+                    .filter(filter::matches)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isGlob(Path path) {
+        String text = path.toString();
+        for (int i = 0; i < text.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(text.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,128 @@
+package com.daycode.reader;
+
+import com.daycode.mapper.TemperatureLineDecoder;
+import com.daycode.model.TemperatureRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.file.FlatFileParseException;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses source file content arriving in consecutive buffers of arbitrary size, e.g. request body of an upload.
+ * Complete lines are decoded straight from each buffer by {@link TemperatureLineDecoder}; only a line split between
+ * buffers is copied, so it can be completed by the next buffer. Returned records are reused by the next call.
+ * Parser is not thread safe, buffers must be passed in order.
+ */
+@Slf4j
+public class StreamingTemperatureParser {
+
+    /**
+     * Longest accepted line, protects against input without line separators.
+     */
+    public static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private final String source;
+    private final TemperatureLineDecoder decoder = new TemperatureLineDecoder();
+    private final List<TemperatureRecord> records = new ArrayList<>();
+    private int recordCount;
+    private ByteBuffer pending = ByteBuffer.allocate(256);
+    private long lineNumber;
+
+    /**
+     * @param source Description of parsed content used in error messages.
+     */
+    public StreamingTemperatureParser(String source) {
+        this.source = source;
+    }
+
+    /**
+     * Parses all lines completed by given buffer. Incomplete last line is kept until next buffer or {@link #finish()}.
+     *
+     * @param buffer Next part of the content, read from its position to its limit.
+     * @return Records of parsed lines, valid until next call.
+     * @throws FlatFileParseException when line is malformed or longer than {@link #MAX_LINE_LENGTH}.
+     */
+    public List<TemperatureRecord> parse(ByteBuffer buffer) {
+        recordCount = 0;
+        int position = buffer.position();
+        int limit = buffer.limit();
+        if (pending.position() > 0) {
+            int end = TemperatureLineDecoder.indexOf(buffer, '\n', position, limit);
+            keep(buffer, position, end < 0 ? limit : end);
+            if (end < 0) {
+                return records.subList(0, 0);
+            }
+            parseLine(pending.flip(), 0, pending.limit());
+            pending.clear();
+            position = end + 1;
+        }
+        for (int end = TemperatureLineDecoder.indexOf(buffer, '\n', position, limit); end >= 0;
+             end = TemperatureLineDecoder.indexOf(buffer, '\n', position, limit)) {
+            parseLine(buffer, position, end);
+            position = end + 1;
+        }
+        keep(buffer, position, limit);
+        return records.subList(0, recordCount);
+    }
+
+    /**
+     * Parses last line of the content when it does not end with line separator.
+     *
+     * @return Record of the last line, empty when content ended with line separator.
+     * @throws FlatFileParseException when the line is malformed.
+     */
+    public List<TemperatureRecord> finish() {
+        recordCount = 0;
+        if (pending.position() > 0) {
+            parseLine(pending.flip(), 0, pending.limit());
+            pending.clear();
+        }
+        return records.subList(0, recordCount);
+    }
+
+    /**
+     * @return Number of lines parsed so far.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    private void keep(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (pending.position() + length > MAX_LINE_LENGTH) {
+            throw new FlatFileParseException("Line longer than " + MAX_LINE_LENGTH + " bytes at line: "
+                    + (lineNumber + 1) + " in resource=[" + source + "]", "", (int) (lineNumber + 1));
+        }
+        if (pending.remaining() < length) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + length));
+            pending = grown.put(pending.flip());
+        }
+        pending.put(pending.position(), buffer, start, length);
+        pending.position(pending.position() + length);
+    }
+
+    private void parseLine(ByteBuffer buffer, int start, int end) {
+        lineNumber++;
+        int contentEnd = end > start && buffer.get(end - 1) == '\r' ? end - 1 : end;
+        if (contentEnd == start) {
+            return;
+        }
+        if (recordCount == records.size()) {
+            records.add(new TemperatureRecord());
+        }
+        try {
+            decoder.decode(buffer, start, contentEnd, records.get(recordCount));
+            recordCount++;
+        } catch (IllegalArgumentException | DateTimeException e) {
+            String input = TemperatureLineDecoder.text(buffer, start, contentEnd);
+            log.warn("Malformed line: {} in resource=[{}], input=[{}]: {}", lineNumber, source, input, e.getMessage());
+            FlatFileParseException exception = new FlatFileParseException("Parsing error at line: " + lineNumber
+                    + " in resource=[" + source + "], input=[" + input + "]: " + e.getMessage(), input, (int) lineNumber);
+            exception.initCause(e);
+            throw exception;
+        }
+    }
+}
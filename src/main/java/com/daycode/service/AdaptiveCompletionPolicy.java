@@ -0,0 +1,115 @@
+package com.daycode.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.batch.repeat.policy.CompletionPolicySupport;
+
+/**
+ * Chunk completion policy tuning chunk size toward target chunk latency, measured from the start of the chunk
+ * to its commit. Registered also as chunk listener of the step, it derives the size which would have taken target
+ * time from every committed chunk and moves current size half way towards it in logarithmic scale, so single slow
+ * chunk does not make size oscillate. Size is shared by all threads of the step.
+ */
+@Slf4j
+public class AdaptiveCompletionPolicy extends CompletionPolicySupport implements ChunkListener {
+
+    private static final int MIN_CHUNK_SIZE = 10;
+
+    private final long targetNanos;
+    private final int maxChunkSize;
+    private final ThreadLocal<ChunkTiming> timings = ThreadLocal.withInitial(ChunkTiming::new);
+    private volatile int chunkSize;
+
+    /**
+     * @param initialChunkSize Size of the first chunks.
+     * @param maxChunkSize     Upper bound of the size.
+     * @param targetMillis     Target time of a chunk in milliseconds.
+     */
+    public AdaptiveCompletionPolicy(int initialChunkSize, int maxChunkSize, long targetMillis) {
+        this.maxChunkSize = maxChunkSize(maxChunkSize);
+        this.targetNanos = targetMillis * 1_000_000;
+        this.chunkSize = clamp(initialChunkSize);
+    }
+
+    @Override
+    public RepeatContext start(RepeatContext parent) {
+        ChunkTiming timing = timings.get();
+        timing.items = 0;
+        return new SizeContext(parent, chunkSize);
+    }
+
+    @Override
+    public void update(RepeatContext context) {
+        ((SizeContext) context).increment();
+        timings.get().items++;
+    }
+
+    @Override
+    public boolean isComplete(RepeatContext context) {
+        return context.getStartedCount() >= ((SizeContext) context).size;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        timings.get().start = System.nanoTime();
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        ChunkTiming timing = timings.get();
+        long elapsed = Math.max(1, System.nanoTime() - timing.start);
+        if (timing.items > 0) {
+            double ideal = timing.items * (double) targetNanos / elapsed;
+            int size = chunkSize;
+            int adjusted = clamp(Math.round(Math.sqrt(size * ideal)));
+            if (adjusted != size) {
+                log.debug("Chunk of {} items took {} ms, chunk size changed from {} to {}.", timing.items,
+                        elapsed / 1_000_000, size, adjusted);
+                chunkSize = adjusted;
+            }
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        // failed chunks do not tell how long committed one would take
+    }
+
+    /**
+     * @param maxChunkSize Configured upper bound of the size.
+     * @return Largest size of chunks completed by the policy.
+     */
+    public static int maxChunkSize(int maxChunkSize) {
+        return Math.max(MIN_CHUNK_SIZE, maxChunkSize);
+    }
+
+    /**
+     * @return Size of the next chunk.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    private int clamp(long size) {
+        return (int) Math.max(MIN_CHUNK_SIZE, Math.min(maxChunkSize, size));
+    }
+
+    private static final class SizeContext extends RepeatContextSupport {
+
+        private final int size;
+
+        private SizeContext(RepeatContext parent, int size) {
+            super(parent);
+            this.size = size;
+        }
+    }
+
+    private static final class ChunkTiming {
+
+        private long start;
+        private int items;
+    }
+}
@@ -0,0 +1,85 @@
+package com.daycode.service;
+
+import com.daycode.aggregate.AggregateSnapshotFile;
+import com.daycode.model.BatchProperties;
+import com.daycode.model.FileFingerprint;
+import com.daycode.reader.SourceFiles;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Persists published aggregates after every successful job and restores them on start up, as long as
+ * the ingested part of the source file and percentile sketch settings did not change. Enabled with batch.snapshot-path property.
+ * Aggregates of directory or glob sources are not persisted.
+ */
+@Slf4j
+@Component
+public class AggregateSnapshotStore {
+
+    private final Path path;
+    private final TemperatureService temperatureService;
+    private final IngestionTracker ingestionTracker;
+
+    /**
+     * @param batchProperties    Properties for spring batch.
+     * @param temperatureService Service publishing aggregates.
+     * @param ingestionTracker   Tracker of ingested part of the source file.
+     */
+    public AggregateSnapshotStore(BatchProperties batchProperties, TemperatureService temperatureService,
+                                  IngestionTracker ingestionTracker) {
+        String snapshotPath = batchProperties.getSnapshotPath();
+        this.path = snapshotPath == null || snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+        this.temperatureService = temperatureService;
+        this.ingestionTracker = ingestionTracker;
+    }
+
+    /**
+     * Persists currently published aggregates.
+     *
+     * @param source    Source file path.
+     * @param endOffset Offset after the last ingested line.
+     */
+    public void save(Path source, long endOffset) {
+        if (path == null || SourceFiles.isMultiFile(source)) {
+            return;
+        }
+        try {
+            FileFingerprint fingerprint = FileFingerprint.of(source, endOffset);
+            AggregateSnapshotFile.write(path, temperatureService.exportAggregates(source.toString(), fingerprint));
+            log.info("Saved aggregates of {} up to offset {} to {}.", source, endOffset, path);
+        } catch (IOException e) {
+            log.warn("Failed to save aggregates to {}.", path, e);
+        }
+    }
+
+    /**
+     * Publishes persisted aggregates if they were built from unchanged prefix of given source file.
+     *
+     * @param source Source file path.
+     * @return Whether aggregates were restored, otherwise source file has to be ingested.
+     */
+    public boolean load(Path source) {
+        if (path == null || !Files.isRegularFile(path) || SourceFiles.isMultiFile(source)) {
+            return false;
+        }
+        try {
+            AggregateSnapshotFile.Contents contents = AggregateSnapshotFile.read(path);
+            if (!contents.getSourcePath().equals(source.toString())
+                    || !contents.getSource().equals(FileFingerprint.of(source, contents.getSource().getLength()))
+                    || !contents.getRollup().getSketchSettings().equals(temperatureService.getSketchSettings())) {
+                log.info("Aggregates in {} are stale for {}.", path, source);
+                return false;
+            }
+            temperatureService.restoreAggregates(contents);
+            ingestionTracker.ingested(source, contents.getSource().getLength());
+            return true;
+        } catch (IOException e) {
+            log.info("Aggregates in {} can't be restored: {}", path, e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.daycode.service;
+
+import com.daycode.aggregate.AggregateSnapshotFile;
+import com.daycode.aggregate.RollupCube;
+import com.daycode.model.CityAverageTemperatures;
+import com.daycode.model.ClusterProperties;
+import com.daycode.model.ClusterRound;
+import com.daycode.model.FileFingerprint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Shares cities between instances listed in cluster.peers property. Every instance owns cities whose hash falls
+ * into its range of the hash space, answers queries of those cities and forwards queries of other cities to their
+ * owners. Import runs in rounds: every instance ingests its own slice of the source, splits built aggregates
+ * by owner and sends every part to its owner, which publishes received parts once parts of all instances arrived.
+ * Round missing parts after cluster.round-timeout-seconds is abandoned, with its missing shards logged and reported
+ * by {@link #getRound()}.
+ * With fewer than two peers the instance owns all cities and nothing is forwarded.
+ */
+@Slf4j
+@Component
+public class ClusterService {
+
+    /**
+     * Header of requests sent by other instances, which are answered from local data only.
+     */
+    public static final String FORWARDED_HEADER = "X-Cluster-Forwarded";
+
+    /**
+     * Aggregates exchanged between instances are not tied to a source prefix.
+     */
+    private static final FileFingerprint NO_SOURCE = new FileFingerprint(0, 0, 0, 0);
+
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private final List<String> peers;
+    private final int self;
+    private final Duration transferTimeout;
+    private final Duration roundTimeout;
+    private final TemperatureService temperatureService;
+    private final WebClient webClient;
+
+    private long round = -1;
+    private final Set<Integer> roundParts = new TreeSet<>();
+    private RollupCube roundAggregates;
+    private boolean roundTimedOut;
+
+    /**
+     * @param clusterProperties  Properties of the cluster.
+     * @param temperatureService Service publishing aggregates.
+     * @param webClients         Builder of web client of the application, if any.
+     */
+    @Autowired
+    public ClusterService(ClusterProperties clusterProperties, TemperatureService temperatureService,
+                          ObjectProvider<WebClient.Builder> webClients) {
+        this(clusterProperties, temperatureService, webClients.getIfAvailable(WebClient::builder).build());
+    }
+
+    /**
+     * @param clusterProperties  Properties of the cluster.
+     * @param temperatureService Service publishing aggregates.
+     * @param webClient          Client of other instances.
+     */
+    public ClusterService(ClusterProperties clusterProperties, TemperatureService temperatureService,
+                          WebClient webClient) {
+        this.peers = List.copyOf(clusterProperties.getPeers());
+        this.self = clusterProperties.getSelf();
+        this.transferTimeout = Duration.ofSeconds(clusterProperties.getTransferTimeoutSeconds());
+        this.roundTimeout = Duration.ofSeconds(clusterProperties.getRoundTimeoutSeconds());
+        this.temperatureService = temperatureService;
+        this.webClient = webClient;
+        if (isClustered() && (self < 0 || self >= peers.size())) {
+            throw new IllegalArgumentException("cluster.self " + self + " is not index of cluster.peers " + peers);
+        }
+    }
+
+    /**
+     * Finds shard owning given city. Hash of the city name is spread over 32 bits and the hash space is split
+     * into equal ranges, one per shard.
+     *
+     * @param city   Normalized city name.
+     * @param shards Number of shards.
+     * @return Index of the owning shard.
+     */
+    public static int owner(String city, int shards) {
+        int hash = city.hashCode() * GOLDEN_RATIO;
+        return (int) (((hash & 0xFFFFFFFFL) * shards) >>> 32);
+    }
+
+    /**
+     * @return Whether cities are shared with other instances.
+     */
+    public boolean isClustered() {
+        return peers.size() > 1;
+    }
+
+    /**
+     * @return Shard of this instance.
+     */
+    public int getSelf() {
+        return isClustered() ? self : 0;
+    }
+
+    /**
+     * @return Number of instances sharing cities.
+     */
+    public int getShards() {
+        return Math.max(1, peers.size());
+    }
+
+    /**
+     * @param city Normalized city name.
+     * @return Index of the instance owning the city.
+     */
+    public int owner(String city) {
+        return owner(city, getShards());
+    }
+
+    /**
+     * @param city Normalized city name.
+     * @return Whether the city is owned by this instance.
+     */
+    public boolean owns(String city) {
+        return owner(city) == getSelf();
+    }
+
+    /**
+     * Asks other instances to ingest their slices of the source in given round. Requests are not awaited,
+     * failures are only logged, in which case owners keep their previous aggregates.
+     *
+     * @param round Id of the round, increasing with every round.
+     */
+    public void startImport(long round) {
+        for (int shard = 0; shard < peers.size(); shard++) {
+            if (shard == self) {
+                continue;
+            }
+            String peer = peers.get(shard);
+            webClient.post()
+                    .uri(peer + "/cluster/import?round={round}", round)
+                    .header(FORWARDED_HEADER, String.valueOf(self))
+                    .retrieve()
+                    .toBodilessEntity()
+                    .subscribe(response -> log.info("{} finished import round {} with status {}.",
+                                    peer, round, response.getStatusCode()),
+                            e -> log.error("Failed to start import round {} on {}.", round, peer, e));
+        }
+    }
+
+    /**
+     * Splits aggregates built by this instance by owner of their cities, keeps own part and sends other parts
+     * to their owners. Must be called by instances which did not ingest anything as well, so owners do not wait
+     * for their parts.
+     *
+     * @param round      Id of the round.
+     * @param aggregates Aggregates of the slice ingested by this instance, with city ids of {@link TemperatureService}.
+     */
+    public void distribute(long round, RollupCube aggregates) {
+        String[] cityNames = temperatureService.getCityNames();
+        int[] owners = new int[cityNames.length];
+        for (int cityId = 0; cityId < cityNames.length; cityId++) {
+            owners[cityId] = owner(cityNames[cityId]);
+        }
+        for (int shard = 0; shard < getShards(); shard++) {
+            int[] cityIds = new int[cityNames.length];
+            for (int cityId = 0; cityId < cityNames.length; cityId++) {
+                cityIds[cityId] = owners[cityId] == shard ? cityId : -1;
+            }
+            RollupCube part = new RollupCube(aggregates.getSketchSettings(), aggregates.getStorage());
+            part.merge(aggregates, cityIds);
+            AggregateSnapshotFile.Contents contents =
+                    new AggregateSnapshotFile.Contents("round " + round, NO_SOURCE, cityNames, part);
+            if (shard == getSelf()) {
+                receive(round, shard, contents);
+            } else {
+                send(shard, round, contents);
+            }
+        }
+    }
+
+    /**
+     * Collects part of aggregates of given round. Parts of older rounds are ignored, part of newer round discards
+     * parts collected so far and starts the round timeout. Aggregates are published, replacing published ones,
+     * once parts of all instances arrived. Parts arriving after the round timed out are ignored.
+     *
+     * @param round    Id of the round.
+     * @param from     Shard of the instance which built the part.
+     * @param contents Aggregates of cities owned by this instance, with names of their cities.
+     * @return Whether the round is complete.
+     * @throws IllegalArgumentException when from is not a shard of the cluster.
+     */
+    public synchronized boolean receive(long round, int from, AggregateSnapshotFile.Contents contents) {
+        if (from < 0 || from >= getShards()) {
+            throw new IllegalArgumentException("Shard " + from + " is not a shard of cluster of " + getShards());
+        }
+        if (round < this.round) {
+            log.warn("Ignoring aggregates of shard {} from finished round {}.", from, round);
+            return false;
+        }
+        if (round > this.round) {
+            if (!roundParts.isEmpty() && roundParts.size() < getShards()) {
+                log.warn("Round {} missed aggregates of {} shards, starting round {}.",
+                        this.round, getShards() - roundParts.size(), round);
+            }
+            this.round = round;
+            roundParts.clear();
+            roundAggregates = null;
+            roundTimedOut = false;
+            Mono.delay(roundTimeout).subscribe(tick -> expire(round));
+        }
+        if (roundTimedOut) {
+            log.warn("Ignoring aggregates of shard {} from round {}, which timed out.", from, round);
+            return false;
+        }
+        if (!roundParts.add(from)) {
+            log.warn("Ignoring repeated aggregates of shard {} in round {}.", from, round);
+            return false;
+        }
+        RollupCube part = temperatureService.localizeAggregates(contents);
+        if (roundAggregates == null) {
+            roundAggregates = part;
+        } else {
+            roundAggregates.merge(part);
+        }
+        log.info("Received aggregates of shard {} in round {}, {} of {} shards.",
+                from, round, roundParts.size(), getShards());
+        if (roundParts.size() < getShards()) {
+            return false;
+        }
+        temperatureService.publishAggregates(roundAggregates, true, "cluster round " + round);
+        roundAggregates = null;
+        return true;
+    }
+
+    /**
+     * @return State of the latest round which sent aggregates to this instance, round -1 if there was none.
+     */
+    public synchronized ClusterRound getRound() {
+        List<Integer> missing = new ArrayList<>();
+        for (int shard = 0; shard < getShards(); shard++) {
+            if (!roundParts.contains(shard)) {
+                missing.add(shard);
+            }
+        }
+        return new ClusterRound(round, List.copyOf(roundParts), missing, missing.isEmpty(), roundTimedOut);
+    }
+
+    /**
+     * Abandons given round if it is still the latest one and misses parts of some instances, which keeps
+     * previously published aggregates.
+     *
+     * @param round Id of the round.
+     */
+    synchronized void expire(long round) {
+        if (round != this.round || roundTimedOut || roundParts.size() == getShards()) {
+            return;
+        }
+        roundTimedOut = true;
+        roundAggregates = null;
+        log.error("Round {} timed out after {} waiting for aggregates of shards {}, keeping previous aggregates.",
+                round, roundTimeout, getRound().getMissingShards());
+    }
+
+    /**
+     * Forwards query of given city to its owner.
+     *
+     * @param city        Normalized city name.
+     * @param path        Path of the query.
+     * @param params      Query parameters.
+     * @param ifNoneMatch Entity tag sent by the client, if any.
+     * @return Response of the owner, with any status.
+     */
+    public Mono<ResponseEntity<byte[]>> forward(String city, String path, MultiValueMap<String, String> params,
+                                                String ifNoneMatch) {
+        return webClient.get()
+                .uri(peers.get(owner(city)), builder -> builder.path(path).queryParams(params).build())
+                .header(FORWARDED_HEADER, String.valueOf(self))
+                .headers(headers -> {
+                    if (ifNoneMatch != null) {
+                        headers.set(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+                    }
+                })
+                .exchangeToMono(response -> response.toEntity(byte[].class));
+    }
+
+    /**
+     * Reads average temperatures of cities owned by other instance.
+     *
+     * @param shard  Owner of the cities.
+     * @param cities Comma separated city names or {@code all}.
+     * @return Averages of cities with data, as streamed by the owner.
+     */
+    public Flux<CityAverageTemperatures> bulkAverages(int shard, String cities) {
+        return webClient.get()
+                .uri(peers.get(shard), builder -> builder.path("/average-temperatures/bulk")
+                        .queryParam("cities", cities).build())
+                .header(FORWARDED_HEADER, String.valueOf(self))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(CityAverageTemperatures.class);
+    }
+
+    private void send(int shard, long round, AggregateSnapshotFile.Contents contents) {
+        String peer = peers.get(shard);
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            AggregateSnapshotFile.write(body, contents);
+            webClient.post()
+                    .uri(peer + "/cluster/aggregates?round={round}&from={from}", round, self)
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .bodyValue(body.toByteArray())
+                    .retrieve()
+                    .toBodilessEntity()
+                    .block(transferTimeout);
+            log.info("Sent {} bytes of aggregates to {} in round {}.", body.size(), peer, round);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to send aggregates to {} in round {}, it keeps its previous aggregates.", peer, round, e);
+        }
+    }
+}
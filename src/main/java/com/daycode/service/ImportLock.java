@@ -0,0 +1,34 @@
+package com.daycode.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes launches of the import job and other rebuilds of aggregates, which all drain the same pending
+ * aggregates of {@link TemperatureService}. Shared by the start up import and HTTP endpoints, because web server
+ * accepts requests before application runners finish.
+ */
+@Component
+public class ImportLock {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Runs given action holding the lock, waiting until actions started earlier finish.
+     *
+     * @param action Action launching the job or rebuilding aggregates.
+     * @param <T>    Type of the result.
+     * @return Result of the action.
+     * @throws Exception thrown by the action.
+     */
+    public <T> T call(Callable<T> action) throws Exception {
+        lock.lock();
+        try {
+            return action.call();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.daycode.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the import job. Meters are updated once per buffer or chunk rather than per line, so they can stay
+ * enabled during imports. Without meter registry in the context, meters are kept in private simple registry.
+ */
+@Component
+public class ImportMetrics {
+
+    private final MeterRegistry registry;
+    private final Counter bytesRead;
+    private final Counter fallbackLines;
+    private final Timer chunkWrites;
+    private final ThreadLocal<Counter> records;
+
+    /**
+     * @param registries Meter registry of the application, if any.
+     */
+    @Autowired
+    public ImportMetrics(ObjectProvider<MeterRegistry> registries) {
+        this(registries.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    /**
+     * @param registry Registry of the meters.
+     */
+    public ImportMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.bytesRead = Counter.builder("temperature.import.bytes")
+                .description("Bytes of source data read, after decompression")
+                .baseUnit("bytes")
+                .register(registry);
+        this.fallbackLines = Counter.builder("temperature.import.lines.fallback")
+                .description("Lines not matching the expected layout, parsed by strict parsers")
+                .register(registry);
+        this.chunkWrites = Timer.builder("temperature.import.chunk.write")
+                .description("Time of aggregating and storing single chunk of records")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.records = ThreadLocal.withInitial(() -> Counter.builder("temperature.import.records")
+                .description("Records aggregated by writer thread")
+                .tag("thread", Thread.currentThread().getName())
+                .register(this.registry));
+    }
+
+    /**
+     * @param bytes Number of bytes read from source.
+     */
+    public void bytesRead(long bytes) {
+        bytesRead.increment(bytes);
+    }
+
+    /**
+     * @return Bytes of source data read since start up.
+     */
+    public long getBytesRead() {
+        return (long) bytesRead.count();
+    }
+
+    /**
+     * Counts line parsed by strict parsers.
+     */
+    public void fallbackLine() {
+        fallbackLines.increment();
+    }
+
+    /**
+     * Records chunk written by the calling thread.
+     *
+     * @param count        Number of records in the chunk.
+     * @param elapsedNanos Time of the write.
+     */
+    public void chunkWritten(int count, long elapsedNanos) {
+        chunkWrites.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        records.get().increment(count);
+    }
+}
@@ -0,0 +1,238 @@
+package com.daycode.service;
+
+import com.daycode.model.FileFingerprint;
+import com.daycode.model.FileRange;
+import com.daycode.model.IngestionRange;
+import com.daycode.reader.FileRangePartitioner;
+import com.daycode.reader.FileSetPartitioner;
+import com.daycode.reader.ParallelGzipInputStream;
+import com.daycode.reader.SourceFiles;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remembers which prefix of every source file was already ingested, so that data appended to the files
+ * and files added to a source directory can be ingested without re-reading the whole source.
+ */
+@Slf4j
+@Component
+public class IngestionTracker {
+
+    private static final int SCAN_BUFFER_SIZE = 8 * 1024;
+
+    private Path ingestedSource;
+    private Map<Path, FileFingerprint> ingestedPrefixes = Map.of();
+    private Path plannedSource;
+    private List<FileRange> plannedFiles = List.of();
+    private Map<Path, FileFingerprint> plannedPrefixes = Map.of();
+
+    /**
+     * Plans range of the source to ingest. Range of a file ends after its last complete line, or at the end of gzip
+     * file, which is expected to grow by appending complete gzip members. Incremental range starts after already
+     * ingested prefix, if that prefix did not change.
+     * For directory or glob source offsets of the returned range are sums over all its files, ranges of single files
+     * are returned by {@link #plannedFiles(Path)}. Incremental ingestion of such source reads only new files and data
+     * appended to already ingested ones. When ingested file was changed or removed, all files are ingested again.
+     *
+     * @param path        Source file, directory or glob pattern.
+     * @param incremental Whether only new data should be ingested.
+     * @return Range to ingest, starting at 0 when whole source has to be ingested again.
+     */
+    public synchronized IngestionRange plan(Path path, boolean incremental) {
+        if (SourceFiles.isMultiFile(path)) {
+            return planFiles(path, incremental);
+        }
+        if (!Files.isRegularFile(path)) {
+            return new IngestionRange(0, Long.MAX_VALUE);
+        }
+        try {
+            long endOffset = endOffset(path);
+            FileFingerprint ingestedPrefix = path.equals(ingestedSource) ? ingestedPrefixes.get(path) : null;
+            if (incremental && ingestedPrefix != null && ingestedPrefix.getLength() <= endOffset
+                    && ingestedPrefix.equals(FileFingerprint.of(path, ingestedPrefix.getLength()))) {
+                log.info("Ingesting {} incrementally from offset {} to {}.", path, ingestedPrefix.getLength(), endOffset);
+                return new IngestionRange(ingestedPrefix.getLength(), endOffset);
+            }
+            if (incremental) {
+                log.info("No unchanged ingested prefix of {}, falling back to full rebuild.", path);
+            }
+            return new IngestionRange(0, endOffset);
+        } catch (IOException e) {
+            log.warn("Failed to check ingested prefix of {}, falling back to full rebuild.", path, e);
+            return new IngestionRange(0, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Plans full ingestion of one of several similar slices of the source, each read by different instance.
+     * Slices of single file are line aligned byte ranges, slices of directory or glob source are ranges of its files
+     * returned by {@link #plannedFiles(Path)}. Gzip file is not split, so its only slice is the first one.
+     * Every instance has to see the same source to get disjoint slices.
+     *
+     * @param path   Source file, directory or glob pattern.
+     * @param slice  Index of the slice to ingest.
+     * @param slices Number of slices.
+     * @return Range to ingest, empty when the slice has no data. For directory or glob source offsets are 0 and
+     * the length of the slice.
+     */
+    public synchronized IngestionRange planSlice(Path path, int slice, int slices) {
+        IngestionRange range = plan(path, false);
+        if (SourceFiles.isMultiFile(path)) {
+            List<List<FileRange>> assigned = new FileSetPartitioner(plannedFiles).assign(slices);
+            plannedFiles = slice < assigned.size() ? assigned.get(slice) : List.of();
+            return new IngestionRange(0, plannedFiles.stream().mapToLong(FileRange::length).sum());
+        }
+        if (!Files.isRegularFile(path)) {
+            return range;
+        }
+        List<FileRange> ranges = new FileRangePartitioner(path, range.getStartOffset(), range.getEndOffset())
+                .ranges(slices);
+        if (slice >= ranges.size()) {
+            return new IngestionRange(range.getEndOffset(), range.getEndOffset());
+        }
+        return new IngestionRange(ranges.get(slice).getStartOffset(), ranges.get(slice).getEndOffset());
+    }
+
+    /**
+     * Returns ranges of files of directory or glob source planned by the last {@link #plan(Path, boolean)} call,
+     * planning full ingestion if that call was made for different source.
+     *
+     * @param source Source directory or glob pattern.
+     * @return Non-empty ranges of files to ingest sorted by path.
+     */
+    public synchronized List<FileRange> plannedFiles(Path source) {
+        if (!source.equals(plannedSource)) {
+            planFiles(source, false);
+        }
+        return plannedFiles;
+    }
+
+    /**
+     * Remembers that source was ingested up to given offset. For directory or glob source, planned ranges of its
+     * files are remembered as ingested.
+     *
+     * @param path      Source file, directory or glob pattern.
+     * @param endOffset Offset after the last ingested line.
+     */
+    public synchronized void ingested(Path path, long endOffset) {
+        if (SourceFiles.isMultiFile(path)) {
+            if (path.equals(plannedSource)) {
+                ingestedPrefixes = plannedPrefixes;
+                ingestedSource = path;
+            } else {
+                reset();
+            }
+            return;
+        }
+        try {
+            ingestedPrefixes = Map.of(path, FileFingerprint.of(path, endOffset));
+            ingestedSource = path;
+        } catch (IOException e) {
+            log.warn("Failed to fingerprint ingested prefix of {}.", path, e);
+            reset();
+        }
+    }
+
+    /**
+     * Forgets ingested prefixes, so that next ingestion rebuilds the whole source.
+     */
+    public synchronized void reset() {
+        ingestedSource = null;
+        ingestedPrefixes = Map.of();
+    }
+
+    private IngestionRange planFiles(Path source, boolean incremental) {
+        List<FileRange> files = new ArrayList<>();
+        Map<Path, FileFingerprint> prefixes = new HashMap<>();
+        long ingestedLength = 0;
+        long totalLength = 0;
+        try {
+            List<Path> paths = SourceFiles.resolve(source);
+            boolean unchanged = incremental && source.equals(ingestedSource) && unchanged(paths);
+            if (incremental && !unchanged) {
+                log.info("Ingested files of {} changed, falling back to full rebuild.", source);
+            }
+            for (Path path : paths) {
+                FileFingerprint ingestedPrefix = unchanged ? ingestedPrefixes.get(path) : null;
+                long startOffset = ingestedPrefix == null ? 0 : ingestedPrefix.getLength();
+                long endOffset = Math.max(startOffset, endOffset(path));
+                if (endOffset > startOffset) {
+                    files.add(new FileRange(path, startOffset, endOffset));
+                    prefixes.put(path, FileFingerprint.of(path, endOffset));
+                } else if (ingestedPrefix != null) {
+                    prefixes.put(path, ingestedPrefix);
+                }
+                ingestedLength += startOffset;
+                totalLength += endOffset;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to list files of {}.", source, e);
+        }
+        plannedSource = source;
+        plannedFiles = files;
+        plannedPrefixes = prefixes;
+        log.info("Ingesting {} ranges of {} from offset {} to {}.", files.size(), source, ingestedLength, totalLength);
+        return new IngestionRange(ingestedLength, totalLength);
+    }
+
+    /**
+     * @return Whether every ingested file is still listed and its ingested prefix did not change.
+     */
+    private boolean unchanged(List<Path> paths) {
+        Set<Path> listed = new HashSet<>(paths);
+        for (Map.Entry<Path, FileFingerprint> entry : ingestedPrefixes.entrySet()) {
+            try {
+                if (!listed.contains(entry.getKey()) || !entry.getValue()
+                        .equals(FileFingerprint.of(entry.getKey(), entry.getValue().getLength()))) {
+                    return false;
+                }
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long endOffset(Path path) throws IOException {
+        return ParallelGzipInputStream.isGzip(path) ? Files.size(path) : lastLineEnd(path);
+    }
+
+    /**
+     * Finds offset after the last new line character, so that partially appended line is not ingested.
+     */
+    private static long lastLineEnd(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            while (position > 0) {
+                long blockStart = Math.max(0, position - SCAN_BUFFER_SIZE);
+                buffer.clear().limit((int) (position - blockStart));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, blockStart + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                for (int i = buffer.position() - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        return blockStart + i + 1;
+                    }
+                }
+                position = blockStart;
+            }
+            return 0;
+        }
+    }
+}
@@ -1,26 +1,76 @@
 package com.daycode.service;
 
+import com.daycode.model.BatchProperties;
+import com.daycode.store.ColumnarStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.listener.JobExecutionListenerSupport;
 import org.springframework.stereotype.Component;
 
+import java.nio.file.Path;
+
 /**
- * Spring batch job listener. Configures actions after job is finished.
+ * Spring batch job listener. Publishes aggregates built by successful job as new snapshot and tracks ingested part
+ * of the source file. Snapshot published before a failed job stays in place until the job is restarted successfully.
+ * Columnar record file is completed and published aggregates are persisted together with the snapshot.
+ * Aggregates and columnar blocks of a failed execution are kept for its restart only when the job is partitioned,
+ * as restarted single step reads its whole range again.
+ * Aggregates built by job of a cluster import round are handed over to {@link ClusterService} instead, which publishes
+ * them once parts of all instances arrived.
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class TemperatureJobListener extends JobExecutionListenerSupport {
 
+    /**
+     * Job parameter with id of cluster import round, see {@link ClusterService}.
+     */
+    public static final String ROUND_PARAMETER = "clusterRound";
+
     private final TemperatureService temperatureService;
+    private final IngestionTracker ingestionTracker;
+    private final ColumnarStore columnarStore;
+    private final AggregateSnapshotStore aggregateSnapshotStore;
+    private final ClusterService clusterService;
+    private final BatchProperties batchProperties;
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        super.beforeJob(jobExecution);
+        ingestionTracker.reset();
+        boolean resume = batchProperties.getPartitions() > 1;
+        temperatureService.beginBuild(jobExecution.getJobId(), resume);
+        Long startOffset = jobExecution.getJobParameters().getLong("startOffset");
+        Long round = jobExecution.getJobParameters().getLong(ROUND_PARAMETER);
+        columnarStore.begin(jobExecution.getJobId(), round == null && startOffset != null && startOffset > 0, resume);
+    }
 
     @Override
     public void afterJob(JobExecution jobExecution) {
         super.afterJob(jobExecution);
         if (!jobExecution.getStatus().isUnsuccessful()) {
-            temperatureService.clearCache();
+            JobParameters jobParameters = jobExecution.getJobParameters();
+            String filePath = jobParameters.getString("filePath");
+            Long startOffset = jobParameters.getLong("startOffset");
+            Long endOffset = jobParameters.getLong("endOffset");
+            Long round = jobParameters.getLong(ROUND_PARAMETER);
+            if (round != null) {
+                columnarStore.finish();
+                clusterService.distribute(round, temperatureService.takeAggregates());
+                return;
+            }
+            temperatureService.publishAggregates(startOffset == null || startOffset == 0);
+            columnarStore.finish();
+            if (filePath != null && endOffset != null) {
+                ingestionTracker.ingested(Path.of(filePath), endOffset);
+                aggregateSnapshotStore.save(Path.of(filePath), endOffset);
+            }
+        } else {
+            log.warn("Job {} finished with status {}, keeping generation {}.",
+                    jobExecution.getJobId(), jobExecution.getStatus(), temperatureService.getGeneration());
         }
     }
 }
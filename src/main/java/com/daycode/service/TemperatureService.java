@@ -1,102 +1,550 @@
 package com.daycode.service;
 
-import com.daycode.config.CacheConfig;
+import com.daycode.aggregate.AggregateSnapshotFile;
+import com.daycode.aggregate.AggregateTable;
+import com.daycode.aggregate.CityDictionary;
+import com.daycode.aggregate.QuantileSketch;
+import com.daycode.aggregate.RollupCube;
+import com.daycode.aggregate.SketchSettings;
+import com.daycode.aggregate.TemperatureSnapshot;
+import com.daycode.aggregate.ThreadLocalAggregates;
+import com.daycode.aggregate.WindowIndex;
+import com.daycode.model.AggregateStorage;
+import com.daycode.model.BatchProperties;
+import com.daycode.model.FileFingerprint;
+import com.daycode.model.Granularity;
+import com.daycode.model.Metric;
 import com.daycode.model.TemperatureRecord;
-import lombok.RequiredArgsConstructor;
+import com.daycode.store.ColumnarStoreReader;
+import com.daycode.store.RecordVisitor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
- * Service responsible for managing temperatures.
+ * Service responsible for managing temperatures. Query latencies, waits for the service monitor and snapshot
+ * publishing are metered once bound to a meter registry.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
-public class TemperatureService {
+public class TemperatureService implements MeterBinder {
 
-    private final Map<String, Map<Integer, Double>> cityYearlyTemperatures;
-    private final Map<String, Map<Integer, Integer>> cityYearlyCounts;
+    private static final long NO_JOB_INSTANCE = -1;
+
+    private final CityDictionary cityDictionary;
+    private final SketchSettings sketchSettings;
+    private final AggregateStorage storage;
+    private final ThreadLocalAggregates threadAggregates;
+    private RollupCube pendingAggregates;
+    private long pendingJobInstanceId = NO_JOB_INSTANCE;
+    private volatile TemperatureSnapshot snapshot;
+    private volatile ServiceMeters meters = new ServiceMeters(new CompositeMeterRegistry());
 
     /**
      * Default constructor.
      */
     public TemperatureService() {
-        cityYearlyTemperatures = new ConcurrentHashMap<>();
-        cityYearlyCounts = new ConcurrentHashMap<>();
+        this(new CityDictionary(), new RollupCube());
+    }
+
+    /**
+     * @param batchProperties Properties for spring batch, with settings of percentile sketches and aggregate storage.
+     */
+    @Autowired
+    public TemperatureService(BatchProperties batchProperties) {
+        this(new CityDictionary(), new RollupCube(new SketchSettings(batchProperties.getSketchRelativeAccuracy(),
+                batchProperties.getSketchMaxBins()), batchProperties.getAggregateStorage()));
+    }
+
+    /**
+     * @param cityDictionary Dictionary of city ids.
+     * @param rollup         Initially published rollup, its sketch settings and storage are used for all aggregates.
+     */
+    public TemperatureService(CityDictionary cityDictionary, RollupCube rollup) {
+        this.cityDictionary = cityDictionary;
+        this.sketchSettings = rollup.getSketchSettings();
+        this.storage = rollup.getStorage();
+        this.threadAggregates = new ThreadLocalAggregates(cityDictionary, sketchSettings, storage);
+        this.pendingAggregates = new RollupCube(sketchSettings, storage);
+        this.snapshot = new TemperatureSnapshot(0, rollup);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        meters = new ServiceMeters(registry);
+        Gauge.builder("temperature.snapshot.generation", this, TemperatureService::getGeneration)
+                .description("Generation of published snapshot")
+                .register(registry);
+        Gauge.builder("temperature.cities", cityDictionary, CityDictionary::size)
+                .description("Number of known cities")
+                .register(registry);
     }
 
     /**
-     * Process Temperature records from spring batch job.
+     * Starts building new aggregates for given job instance. Aggregates pending from a failed execution
+     * are kept when the same job instance is resumed and discarded otherwise.
+     *
+     * @param jobInstanceId Id of spring batch job instance.
+     * @param resume        Whether restarted job continues after records it already wrote, rather than reading
+     *                      them again.
+     */
+    public synchronized void beginBuild(long jobInstanceId, boolean resume) {
+        if (!resume || jobInstanceId != pendingJobInstanceId) {
+            threadAggregates.drainTo(new RollupCube(sketchSettings, storage));
+            pendingAggregates = new RollupCube(sketchSettings, storage);
+            pendingJobInstanceId = jobInstanceId;
+        }
+    }
+
+    /**
+     * @return Settings of percentile sketches.
+     */
+    public SketchSettings getSketchSettings() {
+        return sketchSettings;
+    }
+
+    /**
+     * Process Temperature records from spring batch job. Records are aggregated into rollup of the calling thread,
+     * so writer threads do not contend with each other. Aggregates become visible after {@link #publishAggregates(boolean)}.
      *
      * @param records List of records to process
      */
-    public synchronized void processTemperatureRecords(List<? extends TemperatureRecord> records) {
+    public void processTemperatureRecords(List<? extends TemperatureRecord> records) {
+        ThreadLocalAggregates.Partial partial = threadAggregates.current();
+        RollupCube rollup = partial.rollup();
+        String lastCity = null;
+        int lastCityId = CityDictionary.UNKNOWN;
         for (TemperatureRecord record : records) {
-            if (record.getCity() != null && !record.getCity().isBlank()) {
-                String city = record.getCity().toLowerCase().trim();
-                LocalDateTime timestamp = record.getTimestamp();
-                double temperature = record.getTemperature();
+            String city = record.getCity();
+            if (city != lastCity) {
+                lastCity = city;
+                lastCityId = partial.cityId(city);
+            }
+            if (lastCityId != CityDictionary.UNKNOWN && record.hasTimestamp()) {
+                rollup.add(lastCityId, record.getEpochMillis(), record.getTemperatureHundredths());
+            }
+        }
+    }
+
+    /**
+     * Collects aggregates processed by all writer threads into private pending rollup. Must be called when
+     * no records are being processed, e.g. on step completion.
+     */
+    public void collectAggregates() {
+        long start = System.nanoTime();
+        synchronized (this) {
+            meters.lockWaits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            threadAggregates.drainTo(pendingAggregates);
+        }
+    }
+
+    /**
+     * Publishes pending aggregates as new snapshot with single reference swap. Readers keep using previous
+     * snapshot until then.
+     *
+     * @param replace Whether pending aggregates replace published ones, otherwise they are added to them.
+     */
+    public void publishAggregates(boolean replace) {
+        long start = System.nanoTime();
+        synchronized (this) {
+            meters.lockWaits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            threadAggregates.drainTo(pendingAggregates);
+            RollupCube published = pendingAggregates;
+            if (!replace) {
+                published = snapshot.getRollup().copy();
+                published.merge(pendingAggregates);
+            }
+            pendingAggregates = new RollupCube(sketchSettings, storage);
+            pendingJobInstanceId = NO_JOB_INSTANCE;
+            publish(published, "import");
+        }
+    }
 
-                cityYearlyTemperatures.putIfAbsent(city, new ConcurrentHashMap<>());
-                cityYearlyCounts.putIfAbsent(city, new ConcurrentHashMap<>());
+    /**
+     * Takes pending aggregates of the import job without publishing them, e.g. to hand them over to instances
+     * owning their cities.
+     *
+     * @return Aggregates built since {@link #beginBuild(long, boolean)}, with city ids of this service.
+     */
+    public RollupCube takeAggregates() {
+        long start = System.nanoTime();
+        synchronized (this) {
+            meters.lockWaits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            threadAggregates.drainTo(pendingAggregates);
+            RollupCube taken = pendingAggregates;
+            pendingAggregates = new RollupCube(sketchSettings, storage);
+            pendingJobInstanceId = NO_JOB_INSTANCE;
+            return taken;
+        }
+    }
 
-                Map<Integer, Double> yearlyTemps = cityYearlyTemperatures.get(city);
-                Map<Integer, Integer> yearlyCounts = cityYearlyCounts.get(city);
+    /**
+     * Aggregates records into given rollup, independently of aggregates built by import job. Used to build
+     * aggregates of data which do not come from the source file, e.g. uploaded by client.
+     *
+     * @param records Records to aggregate.
+     * @param rollup  Rollup created with {@link #getSketchSettings()}, owned by the calling thread.
+     */
+    public void aggregateTemperatureRecords(List<? extends TemperatureRecord> records, RollupCube rollup) {
+        String lastCity = null;
+        int lastCityId = CityDictionary.UNKNOWN;
+        for (TemperatureRecord record : records) {
+            String city = record.getCity();
+            if (city != lastCity) {
+                lastCity = city;
+                lastCityId = city == null || city.isBlank() ? CityDictionary.UNKNOWN
+                        : cityDictionary.idOf(city.toLowerCase().trim());
+            }
+            if (lastCityId != CityDictionary.UNKNOWN && record.hasTimestamp()) {
+                rollup.add(lastCityId, record.getEpochMillis(), record.getTemperatureHundredths());
+            }
+        }
+    }
 
-                yearlyTemps.merge(timestamp.getYear(), temperature, Double::sum);
-                yearlyCounts.merge(timestamp.getYear(), 1, Integer::sum);
+    /**
+     * Publishes given aggregates as new snapshot with single reference swap, without affecting aggregates
+     * pending from import job.
+     *
+     * @param rollup  Aggregates built with {@link #aggregateTemperatureRecords(List, RollupCube)}.
+     * @param replace Whether given aggregates replace published ones, otherwise they are added to them.
+     * @param origin  Description of the aggregates source for logging.
+     * @return Generation of published snapshot.
+     */
+    public long publishAggregates(RollupCube rollup, boolean replace, String origin) {
+        long start = System.nanoTime();
+        synchronized (this) {
+            meters.lockWaits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            RollupCube published = rollup;
+            if (!replace) {
+                published = snapshot.getRollup().copy();
+                published.merge(rollup);
             }
+            return publish(published, origin);
+        }
+    }
+
+    /**
+     * Rebuilds aggregates from columnar record file and publishes them as new snapshot,
+     * replacing published aggregates.
+     *
+     * @param reader      Reader of columnar record file.
+     * @param executor    Executor scanning the file.
+     * @param parallelism Number of scanning tasks.
+     * @return Generation of published snapshot.
+     * @throws IOException when file can't be read.
+     */
+    public long reaggregate(ColumnarStoreReader reader, Executor executor, int parallelism) throws IOException {
+        int[] cityIds = cityIds(reader.getCityNames());
+        RollupCube rollup = new RollupCube(sketchSettings, storage);
+        for (RollupAggregator aggregator : reader.scan(executor, parallelism,
+                () -> new RollupAggregator(cityIds, sketchSettings, storage))) {
+            rollup.merge(aggregator.rollup);
+        }
+        return publish(rollup, reader.getPath().toString());
+    }
+
+    /**
+     * Exports published aggregates for persisting.
+     *
+     * @param sourcePath Source file the aggregates were built from.
+     * @param source     Fingerprint of ingested prefix of the source file.
+     * @return Published aggregates with names of their cities.
+     */
+    public AggregateSnapshotFile.Contents exportAggregates(String sourcePath, FileFingerprint source) {
+        return new AggregateSnapshotFile.Contents(sourcePath, source, getCityNames(), snapshot.getRollup());
+    }
+
+    /**
+     * Publishes persisted aggregates as new snapshot, replacing published aggregates.
+     *
+     * @param contents Persisted aggregates, with sketch settings equal to settings of this service.
+     * @return Generation of published snapshot.
+     */
+    public long restoreAggregates(AggregateSnapshotFile.Contents contents) {
+        return publish(localizeAggregates(contents), "persisted snapshot");
+    }
+
+    /**
+     * Copies aggregates with city ids indexing their city names into rollup with city ids of this service,
+     * registering unknown cities.
+     *
+     * @param contents Aggregates with names of their cities, with sketch settings equal to settings of this service.
+     * @return Rollup which can be published with {@link #publishAggregates(RollupCube, boolean, String)}.
+     */
+    public RollupCube localizeAggregates(AggregateSnapshotFile.Contents contents) {
+        RollupCube rollup = new RollupCube(sketchSettings, storage);
+        rollup.merge(contents.getRollup(), cityIds(contents.getCityNames()));
+        return rollup;
+    }
+
+    /**
+     * @return Names of registered cities indexed by their ids.
+     */
+    public String[] getCityNames() {
+        String[] cityNames = new String[cityDictionary.size()];
+        for (int i = 0; i < cityNames.length; i++) {
+            cityNames[i] = cityDictionary.name(i);
         }
+        return cityNames;
     }
 
+    /**
+     * @return Generation of currently published snapshot.
+     */
+    public long getGeneration() {
+        return snapshot.getGeneration();
+    }
+
+    /**
+     * @return Currently published snapshot, which can be used to answer several queries from the same data.
+     */
+    public TemperatureSnapshot getSnapshot() {
+        return snapshot;
+    }
 
     /**
-     * Calculates averages for given city using precalculated data. Data is cached.
+     * Lists cities with aggregates in given snapshot, in order of their registration.
+     *
+     * @param snapshot Snapshot returned by {@link #getSnapshot()}.
+     * @return Lazily evaluated stream of normalized city names.
+     */
+    public Stream<String> getCities(TemperatureSnapshot snapshot) {
+        AggregateTable yearly = snapshot.getRollup().table(Granularity.YEAR);
+        return IntStream.range(0, cityDictionary.size())
+                .filter(yearly::contains)
+                .mapToObj(cityDictionary::name);
+    }
+
+    /**
+     * @param snapshot Snapshot returned by {@link #getSnapshot()}.
+     * @param city     String city name.
+     * @return Generation which last changed aggregates of given city, {@code 0} for cities without data.
+     */
+    public long getCityVersion(TemperatureSnapshot snapshot, String city) {
+        return snapshot.getCityVersion(cityDictionary.find(city));
+    }
+
+    /**
+     * Calculates averages for given city from given snapshot.
+     *
+     * @param snapshot Snapshot returned by {@link #getSnapshot()}.
+     * @param city     String city name for which data should be returned.
+     * @return Map with Years and respective averages sorted by year, empty if city has no data.
+     */
+    public SortedMap<Integer, Double> getYearlyAverageTemperatures(TemperatureSnapshot snapshot, String city) {
+        long start = System.nanoTime();
+        SortedMap<Integer, Double> averages = snapshot.getRollup().table(Granularity.YEAR)
+                .values(cityDictionary.find(city), Metric.AVG);
+        meters.yearlyQueries.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return averages;
+    }
+
+    /**
+     * Calculates averages for given city using precalculated data. Published snapshot is never modified and is read
+     * with single volatile read, so readers neither lock nor block on writers.
      *
      * @param city String city name for which data should be returned.
      * @return Map with Years and respective averages for given city.
      */
-    @Cacheable(value = CacheConfig.TEMPERATURES_CACHE_NAME, key = "#city")
     public Map<Integer, Double> getYearlyAverageTemperatures(String city) {
-        synchronized (this) {
-            Map<Integer, Double> yearlyTemps = cityYearlyTemperatures.get(city);
-            Map<Integer, Integer> yearlyCounts = cityYearlyCounts.get(city);
-            log.debug("Found: {} records for city: {}, temps: {}", yearlyCounts, city, yearlyTemps);
-            if (yearlyTemps == null || yearlyCounts == null) {
-                return new HashMap<>();
+        long start = System.nanoTime();
+        Map<Integer, Double> averages = snapshot.getRollup().table(Granularity.YEAR)
+                .averages(cityDictionary.find(city));
+        meters.yearlyQueries.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.debug("Found: {} yearly averages for city: {}", averages.size(), city);
+        return averages;
+    }
+
+    /**
+     * Calculates metric of given city in buckets of given granularity using precalculated rollup.
+     *
+     * @param city        String city name for which data should be returned.
+     * @param granularity Granularity of the buckets.
+     * @param metric      Calculated metric.
+     * @return Map with buckets and respective values sorted by bucket.
+     */
+    public SortedMap<Integer, Double> getTemperatureStatistics(String city, Granularity granularity, Metric metric) {
+        return getTemperatureStatistics(snapshot, city, granularity, metric);
+    }
+
+    /**
+     * Calculates metric of given city in buckets of given granularity from given snapshot.
+     *
+     * @param snapshot    Snapshot returned by {@link #getSnapshot()}.
+     * @param city        String city name for which data should be returned.
+     * @param granularity Granularity of the buckets.
+     * @param metric      Calculated metric.
+     * @return Map with buckets and respective values sorted by bucket.
+     */
+    public SortedMap<Integer, Double> getTemperatureStatistics(TemperatureSnapshot snapshot, String city,
+                                                               Granularity granularity, Metric metric) {
+        long start = System.nanoTime();
+        SortedMap<Integer, Double> values = snapshot.getRollup().table(granularity).values(cityDictionary.find(city), metric);
+        meters.statisticsQueries.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return values;
+    }
+
+    /**
+     * Sums temperatures of given city within inclusive range of days using precalculated prefix sums.
+     *
+     * @param city String city name for which data should be returned.
+     * @param from First day of the window.
+     * @param to   Last day of the window.
+     * @return Sum and count of measurements in the window.
+     */
+    public WindowIndex.Totals getWindowTotals(String city, LocalDate from, LocalDate to) {
+        return getWindowTotals(snapshot, city, from, to);
+    }
+
+    /**
+     * Sums temperatures of given city within inclusive range of days of given snapshot.
+     *
+     * @param snapshot Snapshot returned by {@link #getSnapshot()}.
+     * @param city     String city name for which data should be returned.
+     * @param from     First day of the window.
+     * @param to       Last day of the window.
+     * @return Sum and count of measurements in the window.
+     */
+    public WindowIndex.Totals getWindowTotals(TemperatureSnapshot snapshot, String city, LocalDate from, LocalDate to) {
+        long start = System.nanoTime();
+        WindowIndex.Totals totals = snapshot.getWindowIndex().query(cityDictionary.find(city), date(from), date(to));
+        meters.windowQueries.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return totals;
+    }
+
+    /**
+     * Estimates percentiles of every year of given city using precalculated sketches.
+     *
+     * @param city        String city name for which data should be returned.
+     * @param percentiles Percentiles between 0 and 100.
+     * @return Map with years and respective percentile values in degrees, in order of requested percentiles.
+     */
+    public SortedMap<Integer, double[]> getYearlyPercentiles(String city, double[] percentiles) {
+        return getYearlyPercentiles(snapshot, city, percentiles);
+    }
+
+    /**
+     * Estimates percentiles of every year of given city using sketches of given snapshot.
+     *
+     * @param snapshot    Snapshot returned by {@link #getSnapshot()}.
+     * @param city        String city name for which data should be returned.
+     * @param percentiles Percentiles between 0 and 100.
+     * @return Map with years and respective percentile values in degrees, in order of requested percentiles.
+     */
+    public SortedMap<Integer, double[]> getYearlyPercentiles(TemperatureSnapshot snapshot, String city,
+                                                             double[] percentiles) {
+        long start = System.nanoTime();
+        RollupCube rollup = snapshot.getRollup();
+        SortedMap<Integer, double[]> result = new TreeMap<>();
+        rollup.table(Granularity.YEAR).entries(cityDictionary.find(city)).forEach((year, entry) -> {
+            QuantileSketch sketch = rollup.findSketch(entry);
+            double[] values = new double[percentiles.length];
+            for (int i = 0; i < percentiles.length; i++) {
+                values[i] = sketch == null ? Double.NaN : sketch.quantile(percentiles[i] / 100) / 100;
             }
+            result.put(year, values);
+        });
+        meters.percentileQueries.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
 
-            return yearlyTemps.entrySet().stream()
-                    .collect(Collectors.toMap(
-                            Map.Entry::getKey,
-                            entry -> entry.getValue() / yearlyCounts.get(entry.getKey())
-                    ));
+    /**
+     * Clears precalculated data, publishing empty snapshot.
+     */
+    public synchronized void clearData() {
+        threadAggregates.drainTo(new RollupCube(sketchSettings, storage));
+        pendingAggregates = new RollupCube(sketchSettings, storage);
+        pendingJobInstanceId = NO_JOB_INSTANCE;
+        publish(new RollupCube(sketchSettings, storage), "clear");
+    }
+
+    private synchronized long publish(RollupCube rollup, String origin) {
+        long start = System.nanoTime();
+        long generation = snapshot.getGeneration() + 1;
+        snapshot = new TemperatureSnapshot(generation, rollup, snapshot);
+        meters.publishes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("Published generation {} with {} yearly aggregates from {}.", generation,
+                rollup.table(Granularity.YEAR).size(), origin);
+        return generation;
+    }
+
+    private static int date(LocalDate date) {
+        return date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+    }
+
+    private int[] cityIds(String[] cityNames) {
+        int[] cityIds = new int[cityNames.length];
+        for (int i = 0; i < cityNames.length; i++) {
+            cityIds[i] = cityDictionary.idOf(cityNames[i]);
         }
+        return cityIds;
     }
 
     /**
-     * Clears Spring cache.
+     * Meters of the service, no-op until the service is bound to a registry.
      */
-    @CacheEvict(value = CacheConfig.TEMPERATURES_CACHE_NAME, allEntries = true)
-    public void clearCache() {
-        log.info("Cache clear called!");
+    private static final class ServiceMeters {
+
+        private final Timer yearlyQueries;
+        private final Timer statisticsQueries;
+        private final Timer windowQueries;
+        private final Timer percentileQueries;
+        private final Timer lockWaits;
+        private final Timer publishes;
+
+        private ServiceMeters(MeterRegistry registry) {
+            yearlyQueries = query(registry, "yearly");
+            statisticsQueries = query(registry, "statistics");
+            windowQueries = query(registry, "window");
+            percentileQueries = query(registry, "percentiles");
+            lockWaits = Timer.builder("temperature.service.lock.wait")
+                    .description("Time waited for the service monitor by collecting and publishing threads")
+                    .register(registry);
+            publishes = Timer.builder("temperature.snapshot.publish")
+                    .description("Time of building and swapping published snapshot")
+                    .register(registry);
+        }
+
+        private static Timer query(MeterRegistry registry, String query) {
+            return Timer.builder("temperature.query")
+                    .description("Time of reading aggregates of single city from published snapshot")
+                    .tag("query", query)
+                    .register(registry);
+        }
     }
 
     /**
-     * Clears precalculated data.
+     * Aggregates scanned records of single task into rollup.
      */
-    public void clearData() {
-        cityYearlyTemperatures.clear();
-        cityYearlyCounts.clear();
-    }
+    private static final class RollupAggregator implements RecordVisitor {
+
+        private final int[] cityIds;
+        private final RollupCube rollup;
 
+        private RollupAggregator(int[] cityIds, SketchSettings sketchSettings, AggregateStorage storage) {
+            this.cityIds = cityIds;
+            this.rollup = new RollupCube(sketchSettings, storage);
+        }
+
+        @Override
+        public void accept(int cityId, long epochMillis, int temperatureHundredths) {
+            rollup.add(cityIds[cityId], epochMillis, temperatureHundredths);
+        }
+    }
 }
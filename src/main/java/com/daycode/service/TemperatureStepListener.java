@@ -0,0 +1,42 @@
+package com.daycode.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.listener.StepExecutionListenerSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * Spring batch step listener. Collects aggregates of writer threads after step is finished and reports throughput
+ * of the step, so chunk sizing and checkpoint settings can be compared.
+ * Aggregates are published by {@link TemperatureJobListener} once the whole job succeeds.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TemperatureStepListener extends StepExecutionListenerSupport {
+
+    private final TemperatureService temperatureService;
+    private final ImportMetrics importMetrics;
+    private volatile long startBytes;
+    private volatile long startNanos;
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        startBytes = importMetrics.getBytesRead();
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        temperatureService.collectAggregates();
+        long millis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        int commits = Math.max(1, stepExecution.getCommitCount());
+        log.info("Step {} wrote {} records in {} chunks of {} records on average in {} ms: {} records/s, {} MB/s.",
+                stepExecution.getStepName(), stepExecution.getWriteCount(), stepExecution.getCommitCount(),
+                stepExecution.getWriteCount() / commits, millis, stepExecution.getWriteCount() * 1000L / millis,
+                (importMetrics.getBytesRead() - startBytes) * 1000L / millis / (1024 * 1024));
+        return super.afterStep(stepExecution);
+    }
+}
@@ -0,0 +1,132 @@
+package com.daycode.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.JobRestartException;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Job repository saving state of running steps only after given progress, e.g. bytes read, since the last saved
+ * state of the step, instead of after every chunk. First and final states of every step, and everything else,
+ * are always saved. Execution context kept in memory still reflects the last committed chunk, so failed step
+ * saves the right restart position when it ends. Skipped saves also postpone noticing of the job being stopped.
+ */
+@Slf4j
+public class ThrottledJobRepository implements JobRepository {
+
+    private final JobRepository delegate;
+    private final LongSupplier progress;
+    private final long interval;
+    private final Map<Long, Long> checkpoints = new ConcurrentHashMap<>();
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * @param delegate Repository saving the state.
+     * @param progress Supplies progress of running steps, e.g. total bytes read.
+     * @param interval Progress between saved states of running step.
+     */
+    public ThrottledJobRepository(JobRepository delegate, LongSupplier progress, long interval) {
+        this.delegate = delegate;
+        this.progress = progress;
+        this.interval = interval;
+    }
+
+    @Override
+    public void updateExecutionContext(StepExecution stepExecution) {
+        if (due(stepExecution)) {
+            delegate.updateExecutionContext(stepExecution);
+        }
+    }
+
+    /**
+     * Saves step execution when due, called after its execution context by the chunk transaction.
+     */
+    @Override
+    public void update(StepExecution stepExecution) {
+        if (!due(stepExecution)) {
+            skipped.increment();
+            return;
+        }
+        delegate.update(stepExecution);
+        if (stepExecution.getStatus() == BatchStatus.STARTED) {
+            checkpoints.put(stepExecution.getId(), progress.getAsLong());
+        } else if (checkpoints.remove(stepExecution.getId()) != null) {
+            log.debug("Skipped {} updates of running steps so far.", skipped.sum());
+        }
+    }
+
+    @Override
+    public boolean isJobInstanceExists(String jobName, JobParameters jobParameters) {
+        return delegate.isJobInstanceExists(jobName, jobParameters);
+    }
+
+    @Override
+    public JobInstance createJobInstance(String jobName, JobParameters jobParameters) {
+        return delegate.createJobInstance(jobName, jobParameters);
+    }
+
+    @Override
+    public JobExecution createJobExecution(JobInstance jobInstance, JobParameters jobParameters,
+                                           String jobConfigurationLocation) {
+        return delegate.createJobExecution(jobInstance, jobParameters, jobConfigurationLocation);
+    }
+
+    @Override
+    public JobExecution createJobExecution(String jobName, JobParameters jobParameters)
+            throws JobExecutionAlreadyRunningException, JobRestartException, JobInstanceAlreadyCompleteException {
+        return delegate.createJobExecution(jobName, jobParameters);
+    }
+
+    @Override
+    public void update(JobExecution jobExecution) {
+        delegate.update(jobExecution);
+    }
+
+    @Override
+    public void add(StepExecution stepExecution) {
+        delegate.add(stepExecution);
+    }
+
+    @Override
+    public void addAll(Collection<StepExecution> stepExecutions) {
+        delegate.addAll(stepExecutions);
+    }
+
+    @Override
+    public void updateExecutionContext(JobExecution jobExecution) {
+        delegate.updateExecutionContext(jobExecution);
+    }
+
+    @Override
+    public StepExecution getLastStepExecution(JobInstance jobInstance, String stepName) {
+        return delegate.getLastStepExecution(jobInstance, stepName);
+    }
+
+    @Override
+    public int getStepExecutionCount(JobInstance jobInstance, String stepName) {
+        return delegate.getStepExecutionCount(jobInstance, stepName);
+    }
+
+    @Override
+    public JobExecution getLastJobExecution(String jobName, JobParameters jobParameters) {
+        return delegate.getLastJobExecution(jobName, jobParameters);
+    }
+
+    private boolean due(StepExecution stepExecution) {
+        Long checkpoint = checkpoints.get(stepExecution.getId());
+        return stepExecution.getStatus() != BatchStatus.STARTED || checkpoint == null
+                || progress.getAsLong() - checkpoint >= interval;
+    }
+}
@@ -0,0 +1,53 @@
+package com.daycode.service;
+
+import com.daycode.model.IngestionRange;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Loads data on start up. Persisted aggregates are restored when they match the source file, only lines
+ * appended since they were saved are then ingested. Otherwise whole source file is ingested by the import job.
+ * Job is launched holding {@link ImportLock}, so reloads requested while it runs wait for it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WarmStartRunner implements ApplicationRunner {
+
+    private final AggregateSnapshotStore aggregateSnapshotStore;
+    private final IngestionTracker ingestionTracker;
+    private final JobLauncher jobLauncher;
+    private final Job importTemperaturesJob;
+    private final ImportLock importLock;
+
+    @Value("file:src/main/resources/example_file.csv")
+    private Resource inputResource;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Path source = inputResource.getFile().toPath().toAbsolutePath();
+        boolean restored = aggregateSnapshotStore.load(source);
+        IngestionRange range = ingestionTracker.plan(source, restored);
+        if (restored && range.getStartOffset() == range.getEndOffset()) {
+            log.info("Restored aggregates of {}, no new data to ingest.", source);
+            return;
+        }
+        log.info("Ingesting {} from offset {} on start up.", source, range.getStartOffset());
+        importLock.call(() -> jobLauncher.run(importTemperaturesJob, new JobParametersBuilder()
+                .addLong("startAt", System.currentTimeMillis())
+                .addString("filePath", source.toString())
+                .addLong("startOffset", range.getStartOffset())
+                .addLong("endOffset", range.getEndOffset())
+                .toJobParameters()));
+    }
+}
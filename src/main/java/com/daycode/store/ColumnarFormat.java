@@ -0,0 +1,32 @@
+package com.daycode.store;
+
+/**
+ * Layout of the columnar record file.
+ * <pre>
+ * header: int magic, int version
+ * block:  int count, int timestampBytes, long firstEpochMillis,
+ *         int[count] city ids, int[count] temperature hundredths,
+ *         zig-zag varint deltas of epoch millis from previous record (count - 1 values)
+ * footer: int cityCount, (int length, UTF-8 bytes)[cityCount], long recordCount, int blockCount, long[blockCount] block offsets
+ * tail:   long footer offset, int magic
+ * </pre>
+ * File without valid tail is incomplete and is not read.
+ */
+final class ColumnarFormat {
+
+    static final int MAGIC = 0x54434F4C;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int BLOCK_HEADER_SIZE = 16;
+    static final int TAIL_SIZE = 12;
+
+    private ColumnarFormat() {
+    }
+
+    /**
+     * @return Upper bound of the block size in bytes for given number of records.
+     */
+    static int maxBlockSize(int count) {
+        return BLOCK_HEADER_SIZE + count * (4 + 4 + 10);
+    }
+}
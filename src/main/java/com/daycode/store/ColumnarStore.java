@@ -0,0 +1,303 @@
+package com.daycode.store;
+
+import com.daycode.aggregate.CityDictionary;
+import com.daycode.model.BatchProperties;
+import com.daycode.model.TemperatureRecord;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Optional import stage writing parsed records to a columnar file, see {@link ColumnarFormat}.
+ * Every written chunk becomes one block, blocks are encoded by writer threads and only appended under lock.
+ * Enabled with batch.columnar-store-path property.
+ */
+@Slf4j
+@Component
+public class ColumnarStore {
+
+    private static final long NO_JOB_INSTANCE = -1;
+
+    private final Path path;
+    @Getter
+    private final Executor scanExecutor;
+    @Getter
+    private final int scanParallelism;
+    private final ThreadLocal<BlockEncoder> encoders = ThreadLocal.withInitial(BlockEncoder::new);
+
+    private volatile FileChannel channel;
+    private volatile CityDictionary cityDictionary;
+    private List<Long> blockOffsets;
+    private long position;
+    private long recordCount;
+    private long jobInstanceId = NO_JOB_INSTANCE;
+
+    /**
+     * Scans run on common fork join pool, so they neither queue behind import chunks on the bounded batch
+     * task executor nor take its threads from a running import.
+     *
+     * @param batchProperties Properties for spring batch.
+     */
+    public ColumnarStore(BatchProperties batchProperties) {
+        String storePath = batchProperties.getColumnarStorePath();
+        this.path = storePath == null || storePath.isBlank() ? null : Path.of(storePath);
+        this.scanExecutor = ForkJoinPool.commonPool();
+        this.scanParallelism = ForkJoinPool.commonPool().getParallelism();
+    }
+
+    /**
+     * @return Whether columnar file is configured.
+     */
+    public boolean isEnabled() {
+        return path != null;
+    }
+
+    /**
+     * Opens file for records of given job instance. Blocks written by failed execution are kept when the same
+     * job instance is resumed. Incremental job appends blocks to complete file, if there is no such file
+     * records of the job are not stored, as the file would miss earlier records.
+     *
+     * @param jobInstanceId Id of spring batch job instance.
+     * @param append        Whether job ingests only records appended to the source.
+     * @param resume        Whether restarted job continues after records it already wrote, rather than reading
+     *                      them again.
+     */
+    public synchronized void begin(long jobInstanceId, boolean append, boolean resume) {
+        if (!isEnabled() || (resume && channel != null && jobInstanceId == this.jobInstanceId)) {
+            return;
+        }
+        discard();
+        try {
+            if (append) {
+                Optional<ColumnarStoreReader> existing = reader();
+                if (existing.isEmpty()) {
+                    log.warn("No complete columnar file {} to append to, records of job {} are not stored.",
+                            path, jobInstanceId);
+                    return;
+                }
+                openForAppend(existing.get());
+            } else {
+                openNew();
+            }
+            this.jobInstanceId = jobInstanceId;
+        } catch (IOException e) {
+            log.warn("Failed to open columnar file {}, records are not stored.", path, e);
+            discard();
+        }
+    }
+
+    /**
+     * Appends records as one block. Records without city or timestamp are skipped.
+     *
+     * @param records Records of one chunk.
+     */
+    public void append(List<? extends TemperatureRecord> records) {
+        if (channel == null || records.isEmpty()) {
+            return;
+        }
+        ByteBuffer block = encode(records);
+        if (block.getInt(0) == 0) {
+            return;
+        }
+        synchronized (this) {
+            if (channel == null) {
+                return;
+            }
+            try {
+                long offset = position;
+                while (block.hasRemaining()) {
+                    position += channel.write(block, position);
+                }
+                blockOffsets.add(offset);
+                recordCount += block.getInt(0);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write columnar file " + path, e);
+            }
+        }
+    }
+
+    /**
+     * Completes file of successful job by writing dictionary and block index.
+     */
+    public synchronized void finish() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            int footerSize = 4 + 8 + 4 + blockOffsets.size() * 8 + ColumnarFormat.TAIL_SIZE;
+            List<byte[]> names = new ArrayList<>();
+            for (int id = 0; id < cityDictionary.size(); id++) {
+                byte[] name = cityDictionary.name(id).getBytes(StandardCharsets.UTF_8);
+                names.add(name);
+                footerSize += 4 + name.length;
+            }
+            ByteBuffer footer = ByteBuffer.allocate(footerSize);
+            footer.putInt(names.size());
+            for (byte[] name : names) {
+                footer.putInt(name.length).put(name);
+            }
+            footer.putLong(recordCount).putInt(blockOffsets.size());
+            for (long offset : blockOffsets) {
+                footer.putLong(offset);
+            }
+            footer.putLong(position).putInt(ColumnarFormat.MAGIC).flip();
+            while (footer.hasRemaining()) {
+                position += channel.write(footer, position);
+            }
+            channel.truncate(position);
+            channel.force(true);
+            log.info("Stored {} records in {} blocks of {}.", recordCount, blockOffsets.size(), path);
+            close();
+        } catch (IOException e) {
+            log.warn("Failed to complete columnar file {}.", path, e);
+            discard();
+        }
+    }
+
+    /**
+     * @return Reader of complete columnar file, empty if file is not configured, missing or incomplete.
+     */
+    public Optional<ColumnarStoreReader> reader() {
+        if (!isEnabled() || !Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(ColumnarStoreReader.open(path));
+        } catch (IOException e) {
+            log.warn("Columnar file {} can't be read.", path, e);
+            return Optional.empty();
+        }
+    }
+
+    private void openNew() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(ColumnarFormat.HEADER_SIZE)
+                .putInt(ColumnarFormat.MAGIC).putInt(ColumnarFormat.VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        cityDictionary = new CityDictionary();
+        blockOffsets = new ArrayList<>();
+        position = ColumnarFormat.HEADER_SIZE;
+        recordCount = 0;
+    }
+
+    private void openForAppend(ColumnarStoreReader existing) throws IOException {
+        cityDictionary = new CityDictionary();
+        for (String name : existing.getCityNames()) {
+            cityDictionary.idOf(name);
+        }
+        blockOffsets = new ArrayList<>();
+        for (long offset : existing.getBlockOffsets()) {
+            blockOffsets.add(offset);
+        }
+        position = existing.getDataEnd();
+        recordCount = existing.getRecordCount();
+        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        channel.truncate(position);
+    }
+
+    private void close() throws IOException {
+        channel.close();
+        channel = null;
+        jobInstanceId = NO_JOB_INSTANCE;
+    }
+
+    private void discard() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            close();
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to discard columnar file {}.", path, e);
+        }
+    }
+
+    private ByteBuffer encode(List<? extends TemperatureRecord> records) {
+        BlockEncoder encoder = encoders.get();
+        encoder.ensureCapacity(records.size());
+        int count = 0;
+        String lastCity = null;
+        int lastCityId = CityDictionary.UNKNOWN;
+        for (TemperatureRecord record : records) {
+            String city = record.getCity();
+            if (city != lastCity) {
+                lastCity = city;
+                lastCityId = city == null || city.isBlank() ? CityDictionary.UNKNOWN
+                        : cityDictionary.idOf(city.toLowerCase().trim());
+            }
+            if (lastCityId != CityDictionary.UNKNOWN && record.hasTimestamp()) {
+                encoder.cityIds[count] = lastCityId;
+                encoder.temperatures[count] = record.getTemperatureHundredths();
+                encoder.epochMillis[count] = record.getEpochMillis();
+                count++;
+            }
+        }
+        return encoder.encode(count);
+    }
+
+    /**
+     * Columns of one block collected by single writer thread.
+     */
+    private static final class BlockEncoder {
+
+        private int[] cityIds = new int[0];
+        private int[] temperatures = new int[0];
+        private long[] epochMillis = new long[0];
+        private ByteBuffer block = ByteBuffer.allocate(0);
+
+        private void ensureCapacity(int count) {
+            if (cityIds.length < count) {
+                cityIds = new int[count];
+                temperatures = new int[count];
+                epochMillis = new long[count];
+                block = ByteBuffer.allocate(ColumnarFormat.maxBlockSize(count));
+            }
+        }
+
+        private ByteBuffer encode(int count) {
+            block.clear();
+            block.position(ColumnarFormat.BLOCK_HEADER_SIZE);
+            for (int i = 0; i < count; i++) {
+                block.putInt(cityIds[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                block.putInt(temperatures[i]);
+            }
+            int timestamps = block.position();
+            for (int i = 1; i < count; i++) {
+                long delta = epochMillis[i] - epochMillis[i - 1];
+                long value = (delta << 1) ^ (delta >> 63);
+                while ((value & ~0x7FL) != 0) {
+                    block.put((byte) ((value & 0x7F) | 0x80));
+                    value >>>= 7;
+                }
+                block.put((byte) value);
+            }
+            block.putInt(0, count)
+                    .putInt(4, block.position() - timestamps)
+                    .putLong(8, count == 0 ? 0 : epochMillis[0]);
+            return block.flip();
+        }
+    }
+}
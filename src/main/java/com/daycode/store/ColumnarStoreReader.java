@@ -0,0 +1,161 @@
+package com.daycode.store;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Reads columnar record file written by {@link ColumnarStore}. Blocks are split into contiguous groups,
+ * each group is memory-mapped and scanned by separate task, so records are read at memory bandwidth.
+ */
+@Slf4j
+@Getter
+public class ColumnarStoreReader {
+
+    private static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+    private final Path path;
+    private final String[] cityNames;
+    private final long[] blockOffsets;
+    private final long dataEnd;
+    private final long recordCount;
+
+    private ColumnarStoreReader(Path path, String[] cityNames, long[] blockOffsets, long dataEnd, long recordCount) {
+        this.path = path;
+        this.cityNames = cityNames;
+        this.blockOffsets = blockOffsets;
+        this.dataEnd = dataEnd;
+        this.recordCount = recordCount;
+    }
+
+    /**
+     * Reads dictionary and block index of the file.
+     *
+     * @param path Columnar record file.
+     * @return Reader of the file.
+     * @throws IOException when file can't be read or is incomplete.
+     */
+    public static ColumnarStoreReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < ColumnarFormat.HEADER_SIZE + ColumnarFormat.TAIL_SIZE) {
+                throw new IOException("Columnar file " + path + " is incomplete.");
+            }
+            ByteBuffer header = read(channel, 0, ColumnarFormat.HEADER_SIZE);
+            if (header.getInt() != ColumnarFormat.MAGIC || header.getInt() != ColumnarFormat.VERSION) {
+                throw new IOException("Columnar file " + path + " has unsupported format.");
+            }
+            ByteBuffer tail = read(channel, size - ColumnarFormat.TAIL_SIZE, ColumnarFormat.TAIL_SIZE);
+            long footerOffset = tail.getLong();
+            if (tail.getInt() != ColumnarFormat.MAGIC || footerOffset < ColumnarFormat.HEADER_SIZE
+                    || footerOffset > size - ColumnarFormat.TAIL_SIZE) {
+                throw new IOException("Columnar file " + path + " is incomplete.");
+            }
+            ByteBuffer footer = read(channel, footerOffset, (int) (size - ColumnarFormat.TAIL_SIZE - footerOffset));
+            String[] cityNames = new String[footer.getInt()];
+            for (int i = 0; i < cityNames.length; i++) {
+                byte[] name = new byte[footer.getInt()];
+                footer.get(name);
+                cityNames[i] = new String(name, StandardCharsets.UTF_8);
+            }
+            long recordCount = footer.getLong();
+            long[] blockOffsets = new long[footer.getInt()];
+            for (int i = 0; i < blockOffsets.length; i++) {
+                blockOffsets[i] = footer.getLong();
+            }
+            return new ColumnarStoreReader(path, cityNames, blockOffsets, footerOffset, recordCount);
+        }
+    }
+
+    /**
+     * Scans all records in parallel.
+     *
+     * @param executor    Executor running scanning tasks.
+     * @param parallelism Number of tasks to split the file into.
+     * @param visitors    Creates visitor for every task.
+     * @param <V>         Type of the visitor.
+     * @return Visitors of all tasks, after every record was visited.
+     * @throws IOException when file can't be mapped.
+     */
+    public <V extends RecordVisitor> List<V> scan(Executor executor, int parallelism, Supplier<V> visitors)
+            throws IOException {
+        List<V> results = new ArrayList<>();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long targetSize = Math.max(1, (dataEnd - ColumnarFormat.HEADER_SIZE) / Math.max(1, parallelism));
+            int first = 0;
+            while (first < blockOffsets.length) {
+                int last = first + 1;
+                while (last < blockOffsets.length && blockOffsets[last] - blockOffsets[first] < targetSize
+                        && blockEnd(last) - blockOffsets[first] <= MAX_SEGMENT_SIZE) {
+                    last++;
+                }
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, blockOffsets[first],
+                        blockEnd(last - 1) - blockOffsets[first]);
+                segment.order(ByteOrder.BIG_ENDIAN);
+                int blocks = last - first;
+                V visitor = visitors.get();
+                results.add(visitor);
+                tasks.add(CompletableFuture.runAsync(() -> scanSegment(segment, blocks, visitor), executor));
+                first = last;
+            }
+        }
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+        log.debug("Scanned {} records of {} in {} tasks.", recordCount, path, tasks.size());
+        return results;
+    }
+
+    private long blockEnd(int block) {
+        return block + 1 < blockOffsets.length ? blockOffsets[block + 1] : dataEnd;
+    }
+
+    private static void scanSegment(ByteBuffer segment, int blocks, RecordVisitor visitor) {
+        int position = 0;
+        for (int block = 0; block < blocks; block++) {
+            int count = segment.getInt(position);
+            int timestampBytes = segment.getInt(position + 4);
+            long epochMillis = segment.getLong(position + 8);
+            int cities = position + ColumnarFormat.BLOCK_HEADER_SIZE;
+            int temperatures = cities + count * 4;
+            int timestamps = temperatures + count * 4;
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    long value = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = segment.get(timestamps++);
+                        value |= (long) (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    epochMillis += (value >>> 1) ^ -(value & 1);
+                }
+                visitor.accept(segment.getInt(cities + i * 4), epochMillis, segment.getInt(temperatures + i * 4));
+            }
+            position = temperatures + count * 4 + timestampBytes;
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of columnar file.");
+            }
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,15 @@
+package com.daycode.store;
+
+/**
+ * Receives records scanned from {@link ColumnarStoreReader}. Each scanning thread gets its own visitor.
+ */
+@FunctionalInterface
+public interface RecordVisitor {
+
+    /**
+     * @param cityId                Id of the city in {@link ColumnarStoreReader#getCityNames()}.
+     * @param epochMillis           Local epoch millis of the measurement.
+     * @param temperatureHundredths Temperature in hundredths of degree.
+     */
+    void accept(int cityId, long epochMillis, int temperatureHundredths);
+}
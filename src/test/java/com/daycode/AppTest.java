@@ -1,12 +1,48 @@
 package com.daycode;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.batch.JobLauncherApplicationRunner;
+import org.springframework.boot.env.YamlPropertySourceLoader;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @SpringBootTest
 class AppTest {
 
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
     @Test
     void contextLoads() {
     }
+
+    @Test
+    void startUp_importJobLaunchedOnlyByWarmStartRunner() {
+        assertEquals(Boolean.FALSE, environment.getProperty("spring.batch.job.enabled", Boolean.class));
+        assertEquals(0, applicationContext.getBeanNamesForType(JobLauncherApplicationRunner.class).length);
+    }
+
+    /**
+     * Test resources have their own application.yml, so the shipped one is read from the source tree.
+     */
+    @Test
+    void mainConfiguration_importJobNotLaunchedOnStartUp() throws IOException {
+        List<PropertySource<?>> sources = new YamlPropertySourceLoader()
+                .load("application", new FileSystemResource("src/main/resources/application.yml"));
+
+        assertEquals("false", String.valueOf(sources.get(0).getProperty("spring.batch.job.enabled")));
+        assertEquals("always", String.valueOf(sources.get(0).getProperty("spring.batch.jdbc.initialize-schema")));
+    }
 }
@@ -0,0 +1,139 @@
+package com.daycode.aggregate;
+
+import com.daycode.model.AggregateStorage;
+import com.daycode.model.Metric;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AggregateTableTest {
+
+    @Test
+    void add_sameCityAndBucket_valuesSummed() {
+        AggregateTable table = new AggregateTable();
+
+        table.add(0, 2021, 1000);
+        table.add(0, 2021, 2000);
+        table.add(0, 2022, 500);
+
+        assertEquals(2, table.size());
+        assertEquals(15.0, table.averages(0).get(2021));
+        assertEquals(5.0, table.averages(0).get(2022));
+    }
+
+    @Test
+    void add_manyEntries_tableGrowsAndKeepsCitiesApart() {
+        AggregateTable table = new AggregateTable();
+
+        for (int city = 0; city < 100; city++) {
+            for (int year = 1900; year < 2000; year++) {
+                table.add(city, year, (city + year) * 100L);
+                table.add(city, year, (city + year) * 100L);
+            }
+        }
+
+        assertEquals(100 * 100, table.size());
+        assertEquals(100, table.averages(42).size());
+        assertEquals(42.0 + 1950, table.averages(42).get(1950));
+    }
+
+    @Test
+    void averages_unknownCity_empty() {
+        AggregateTable table = new AggregateTable();
+        table.add(0, 2021, 1000);
+
+        assertTrue(table.averages(CityDictionary.UNKNOWN).isEmpty());
+        assertTrue(table.averages(1000).isEmpty());
+    }
+
+    @Test
+    void merge_otherTable_entriesCombined() {
+        AggregateTable table = new AggregateTable();
+        table.add(0, 2021, 1000);
+        AggregateTable other = new AggregateTable();
+        other.add(0, 2021, 2000);
+        other.add(1, 2021, 700);
+
+        table.merge(other);
+
+        assertEquals(15.0, table.averages(0).get(2021));
+        assertEquals(7.0, table.averages(1).get(2021));
+    }
+
+    @Test
+    void values_metrics_calculatedPerBucket() {
+        AggregateTable table = new AggregateTable();
+        table.add(0, 202101, -150);
+        table.add(0, 202101, 250);
+        table.add(0, 202101, 400);
+        AggregateTable other = new AggregateTable();
+        other.add(0, 202101, -300);
+        other.add(0, 202102, 100);
+        table.merge(other);
+
+        assertEquals(List.of(202101, 202102), List.copyOf(table.values(0, Metric.MIN).keySet()));
+        assertEquals(-3.0, table.values(0, Metric.MIN).get(202101));
+        assertEquals(4.0, table.values(0, Metric.MAX).get(202101));
+        assertEquals(4.0, table.values(0, Metric.COUNT).get(202101));
+        assertEquals(2.0, table.values(0, Metric.SUM).get(202101));
+        assertEquals(0.5, table.values(0, Metric.AVG).get(202101));
+        assertEquals(1.0, table.values(0, Metric.MAX).get(202102));
+    }
+
+    @Test
+    void add_offHeapStorage_sameValuesAsHeap() {
+        AggregateTable heap = new AggregateTable();
+        AggregateTable offHeap = new AggregateTable(AggregateStorage.OFF_HEAP);
+
+        for (int city = 0; city < 300; city++) {
+            for (int year = 1990; year < 2020; year++) {
+                heap.add(city, year, city * 7L - year);
+                offHeap.add(city, year, city * 7L - year);
+                offHeap.add(city, year, 3 * year, 2, -year, year);
+                heap.add(city, year, 3 * year, 2, -year, year);
+            }
+        }
+
+        assertEquals(heap.size(), offHeap.size());
+        assertArrayEquals(heap.cityDigests(), offHeap.cityDigests());
+        assertEquals(heap.values(250, Metric.MIN), offHeap.values(250, Metric.MIN));
+        assertEquals(heap.averages(17), offHeap.averages(17));
+    }
+
+    @Test
+    void copy_offHeapStorage_independentOfOriginal() {
+        AggregateTable table = new AggregateTable(AggregateStorage.OFF_HEAP);
+        table.add(0, 2021, 1000);
+        table.add(40, 2021, 500);
+
+        AggregateTable copy = table.copy();
+        table.add(0, 2021, 3000);
+        copy.add(41, 2022, 100);
+
+        assertEquals(AggregateStorage.OFF_HEAP, copy.getStorage());
+        assertEquals(20.0, table.averages(0).get(2021));
+        assertEquals(10.0, copy.averages(0).get(2021));
+        assertEquals(5.0, copy.averages(40).get(2021));
+        assertTrue(copy.contains(41));
+        assertFalse(table.contains(41));
+    }
+
+    @Test
+    void merge_heapIntoOffHeap_entriesCombined() {
+        AggregateTable table = new AggregateTable(AggregateStorage.OFF_HEAP);
+        table.add(0, 2021, 1000);
+        AggregateTable other = new AggregateTable();
+        other.add(0, 2021, 2000);
+        other.add(1, 2021, 700);
+
+        table.merge(other);
+
+        assertEquals(15.0, table.averages(0).get(2021));
+        assertEquals(7.0, table.averages(1).get(2021));
+    }
+}
@@ -0,0 +1,70 @@
+package com.daycode.aggregate;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+
+    private static final double[] QUANTILES = {0, 0.01, 0.25, 0.5, 0.75, 0.95, 0.99, 1};
+
+    @Test
+    void quantile_randomValues_withinRelativeAccuracy() {
+        Random random = new Random(42);
+        long[] values = new long[100_000];
+        QuantileSketch sketch = new QuantileSketch(SketchSettings.DEFAULT);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.round(random.nextGaussian() * 1500 + 800);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double quantile : QUANTILES) {
+            long expected = values[(int) (quantile * (values.length - 1))];
+            assertEquals(expected, sketch.quantile(quantile), Math.abs(expected) * 0.01 + 1e-9);
+        }
+        assertEquals(values.length, sketch.count());
+    }
+
+    @Test
+    void merge_splitValues_sameAsSingleSketch() {
+        QuantileSketch all = new QuantileSketch(SketchSettings.DEFAULT);
+        QuantileSketch first = new QuantileSketch(SketchSettings.DEFAULT);
+        QuantileSketch second = new QuantileSketch(SketchSettings.DEFAULT);
+        for (int value = -2000; value <= 3000; value += 7) {
+            all.add(value);
+            (value % 2 == 0 ? first : second).add(value);
+        }
+
+        first.merge(second);
+
+        for (double quantile : QUANTILES) {
+            assertEquals(all.quantile(quantile), first.quantile(quantile));
+        }
+    }
+
+    @Test
+    void add_valuesBeyondMaxBins_lowMagnitudesCollapsed() {
+        QuantileSketch sketch = new QuantileSketch(new SketchSettings(0.01, 16));
+        for (int value = 1; value <= 10_000; value++) {
+            sketch.add(value);
+        }
+
+        assertEquals(10_000, sketch.quantile(1), 10_000 * 0.01);
+        assertEquals(9_500, sketch.quantile(0.95), 9_500 * 0.01);
+        assertTrue(sketch.quantile(0) > 1);
+    }
+
+    @Test
+    void merge_differentSettings_rejected() {
+        QuantileSketch sketch = new QuantileSketch(SketchSettings.DEFAULT);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> sketch.merge(new QuantileSketch(new SketchSettings(0.02, 512))));
+    }
+}
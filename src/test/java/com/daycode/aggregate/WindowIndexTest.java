@@ -0,0 +1,38 @@
+package com.daycode.aggregate;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WindowIndexTest {
+
+    @Test
+    void query_rangeOfDays_sumOfBucketsInside() {
+        AggregateTable daily = new AggregateTable();
+        daily.add(0, 20210301, 1000);
+        daily.add(0, 20210115, 200);
+        daily.add(0, 20210115, 400);
+        daily.add(1, 20210201, 9900);
+        daily.add(0, 20201231, -500);
+        WindowIndex windowIndex = new WindowIndex(daily);
+
+        WindowIndex.Totals totals = windowIndex.query(0, 20210101, 20210301);
+
+        assertEquals(1600, totals.getSum());
+        assertEquals(3, totals.getCount());
+        assertEquals(4, windowIndex.query(0, 20200101, 20211231).getCount());
+        assertEquals(2, windowIndex.query(0, 20210115, 20210115).getCount());
+        assertEquals(99.0, windowIndex.query(1, 20210101, 20210301).average());
+    }
+
+    @Test
+    void query_emptyWindowOrUnknownCity_zeroCount() {
+        AggregateTable daily = new AggregateTable();
+        daily.add(0, 20210115, 200);
+        WindowIndex windowIndex = new WindowIndex(daily);
+
+        assertEquals(0, windowIndex.query(0, 20210116, 20211231).getCount());
+        assertEquals(0, windowIndex.query(5, 20210101, 20211231).getCount());
+        assertEquals(0, windowIndex.query(CityDictionary.UNKNOWN, 20210101, 20211231).getCount());
+    }
+}
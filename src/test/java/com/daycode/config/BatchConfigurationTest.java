@@ -0,0 +1,95 @@
+package com.daycode.config;
+
+import com.daycode.model.BatchProperties;
+import com.daycode.model.TemperatureRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchConfigurationTest {
+
+    @Test
+    void records_reusedWithAdaptiveChunks_noRecordRefilledWithinLargestChunk() {
+        BatchProperties batchProperties = new BatchProperties();
+        batchProperties.setChunkSize(10);
+        batchProperties.setTargetChunkMillis(100);
+        batchProperties.setMaxChunkSize(1000);
+        batchProperties.setReuseRecords(true);
+
+        Supplier<TemperatureRecord> records = BatchConfiguration.records(batchProperties);
+        Set<TemperatureRecord> chunk = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < 1000; i++) {
+            chunk.add(records.get());
+        }
+
+        assertEquals(1000, chunk.size());
+    }
+
+    @Test
+    void chunkTaskExecutor_allThreadsBlocked_nextChunkStarted() throws InterruptedException {
+        BatchProperties batchProperties = new BatchProperties();
+        batchProperties.setMaxPoolSize(2);
+        ThreadPoolTaskExecutor executor =
+                (ThreadPoolTaskExecutor) new BatchConfiguration().chunkTaskExecutor(batchProperties);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < 2; i++) {
+                executor.execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            executor.execute(started::countDown);
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void taskExecutor_morePartitionsThanPoolAndQueue_rejectedOnStartUp() {
+        BatchProperties batchProperties = new BatchProperties();
+        batchProperties.setCorePoolSize(1);
+        batchProperties.setMaxPoolSize(2);
+        batchProperties.setQueueCapacity(3);
+        batchProperties.setPartitions(6);
+
+        assertThrows(IllegalArgumentException.class, () -> new BatchConfiguration().taskExecutor(batchProperties));
+
+        batchProperties.setPartitions(5);
+        ((ThreadPoolTaskExecutor) new BatchConfiguration().taskExecutor(batchProperties)).shutdown();
+    }
+
+    @Test
+    void records_reusedWithFixedChunks_ringOfChunkSize() {
+        BatchProperties batchProperties = new BatchProperties();
+        batchProperties.setChunkSize(10);
+        batchProperties.setMaxChunkSize(1000);
+        batchProperties.setReuseRecords(true);
+
+        Supplier<TemperatureRecord> records = BatchConfiguration.records(batchProperties);
+        TemperatureRecord first = records.get();
+        for (int i = 1; i < 10; i++) {
+            records.get();
+        }
+
+        assertSame(first, records.get());
+    }
+}
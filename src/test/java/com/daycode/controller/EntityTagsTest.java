@@ -0,0 +1,34 @@
+package com.daycode.controller;
+
+import com.daycode.aggregate.RollupCube;
+import com.daycode.aggregate.TemperatureSnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityTagsTest {
+
+    private final TemperatureSnapshot snapshot = new TemperatureSnapshot(5, new RollupCube());
+
+    @Test
+    void of_versions_differentTags() {
+        assertNotEquals(EntityTags.of(snapshot, 3), EntityTags.of(snapshot, 4));
+        assertNotEquals(EntityTags.of(snapshot, 3), EntityTags.of(new TemperatureSnapshot(5, new RollupCube()), 3));
+        assertNull(EntityTags.of(snapshot, 0));
+    }
+
+    @Test
+    void matches_listedWeakOrAnyTag_true() {
+        String tag = EntityTags.of(snapshot, 3);
+
+        assertTrue(EntityTags.matches(tag, tag));
+        assertTrue(EntityTags.matches("\"other\", W/" + tag, tag));
+        assertTrue(EntityTags.matches("*", tag));
+        assertFalse(EntityTags.matches("\"other\"", tag));
+        assertFalse(EntityTags.matches(null, tag));
+        assertFalse(EntityTags.matches("*", null));
+    }
+}
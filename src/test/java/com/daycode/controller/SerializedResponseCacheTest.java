@@ -0,0 +1,72 @@
+package com.daycode.controller;
+
+import com.daycode.model.YearlyAverageTemperature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SerializedResponseCacheTest {
+
+    private final SerializedResponseCache cache = new SerializedResponseCache(new ObjectMapper());
+
+    @Test
+    void get_sameVersion_servedFromCache() {
+        AtomicInteger loads = new AtomicInteger();
+
+        byte[] first = cache.get("samplecity", 1, () -> {
+            loads.incrementAndGet();
+            return List.of(new YearlyAverageTemperature("2021", 15.0));
+        });
+        byte[] second = cache.get("samplecity", 1, () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals("[{\"year\":\"2021\",\"averageTemperature\":15.0}]", new String(first, StandardCharsets.UTF_8));
+        assertEquals(0.5, cache.getStatistics().getHitRatio());
+        assertEquals(0.5, cache.getStatistics().getMissRatio());
+    }
+
+    @Test
+    void get_otherVersion_reloaded() {
+        cache.get("samplecity", 1, () -> List.of(new YearlyAverageTemperature("2021", 15.0)));
+        cache.get("othercity", 1, () -> List.of(new YearlyAverageTemperature("2021", 5.0)));
+
+        byte[] reloaded = cache.get("samplecity", 2, () -> List.of(new YearlyAverageTemperature("2021", 16.0)));
+        cache.get("othercity", 1, List::of);
+
+        assertEquals("[{\"year\":\"2021\",\"averageTemperature\":16.0}]", new String(reloaded, StandardCharsets.UTF_8));
+        assertEquals(1, cache.getStatistics().getHits());
+        assertEquals(3, cache.getStatistics().getMisses());
+    }
+
+    @Test
+    void get_nothingLoaded_notCached() {
+        assertNull(cache.get("unknown", 0, () -> null));
+        assertEquals(0, cache.getStatistics().getEntries());
+    }
+
+    @Test
+    void bindTo_hitsMissesAndSizeMetered() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.get("samplecity", 1, () -> List.of(new YearlyAverageTemperature("2021", 15.0)));
+        cache.get("samplecity", 1, List::of);
+        cache.get("samplecity", 1, List::of);
+
+        assertEquals(2, registry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.size").gauge().value());
+    }
+}
@@ -1,33 +1,78 @@
 package com.daycode.controller;
 
+import com.daycode.aggregate.RollupCube;
+import com.daycode.aggregate.TemperatureSnapshot;
+import com.daycode.aggregate.WindowIndex;
+import com.daycode.model.CityAverageTemperatures;
+import com.daycode.model.ClusterProperties;
+import com.daycode.model.Granularity;
+import com.daycode.model.Metric;
+import com.daycode.model.TemperatureRecord;
+import com.daycode.service.ClusterService;
+import com.daycode.service.ImportLock;
+import com.daycode.service.IngestionTracker;
 import com.daycode.service.TemperatureService;
+import com.daycode.store.ColumnarStore;
 import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
 import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebFluxTest(TemperatureController.class)
+@Import({IngestionTracker.class, SerializedResponseCache.class, ClusterService.class, ClusterProperties.class,
+        ImportLock.class})
 public class TemperatureControllerTest {
 
     @Autowired
     private WebTestClient webTestClient;
 
+    @Autowired
+    private ImportLock importLock;
+
     @MockBean
     private TemperatureService temperatureService;
 
@@ -38,7 +83,17 @@ public class TemperatureControllerTest {
     private JobLauncher jobLauncher;
 
     @MockBean
-    private CacheManager cacheManager;
+    private JobExplorer jobExplorer;
+
+    @MockBean
+    private ColumnarStore columnarStore;
+
+    private final TemperatureSnapshot snapshot = new TemperatureSnapshot(1, new RollupCube());
+
+    @BeforeEach
+    void setUp() {
+        when(temperatureService.getSnapshot()).thenReturn(snapshot);
+    }
 
     @Test
     void averageTemperatures_validCity_isOk() {
@@ -47,7 +102,8 @@ public class TemperatureControllerTest {
         yearlyAverages.put(2021, 15.0);
         yearlyAverages.put(2022, 14.5);
 
-        when(temperatureService.getYearlyAverageTemperatures(city.toLowerCase().trim())).thenReturn(yearlyAverages);
+        when(temperatureService.getYearlyAverageTemperatures(snapshot, city.toLowerCase().trim()))
+                .thenReturn(new TreeMap<>(yearlyAverages));
 
         webTestClient.get()
                 .uri(uriBuilder -> uriBuilder.path("/average-temperatures").queryParam("city", city).build())
@@ -60,11 +116,27 @@ public class TemperatureControllerTest {
                 .jsonPath("$[1].averageTemperature").isEqualTo(14.5);
     }
 
+    @Test
+    void averageTemperatures_validCity_generationHeader() {
+        String city = "SampleCity";
+        TemperatureSnapshot snapshot = new TemperatureSnapshot(7, new RollupCube());
+        when(temperatureService.getSnapshot()).thenReturn(snapshot);
+        when(temperatureService.getCityVersion(snapshot, city.toLowerCase().trim())).thenReturn(7L);
+        when(temperatureService.getYearlyAverageTemperatures(snapshot, city.toLowerCase().trim()))
+                .thenReturn(new TreeMap<>(Map.of(2021, 15.0)));
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/average-temperatures").queryParam("city", city).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(TemperatureController.GENERATION_HEADER, "7");
+    }
+
     @Test
     void averageTemperatures_invalidCity_notFound() {
         String city = "UnknownCity";
 
-        when(temperatureService.getYearlyAverageTemperatures(city.toLowerCase().trim())).thenReturn(new HashMap<>());
+        when(temperatureService.getYearlyAverageTemperatures(snapshot, city.toLowerCase().trim())).thenReturn(new TreeMap<>());
 
         webTestClient.get()
                 .uri(uriBuilder -> uriBuilder.path("/average-temperatures").queryParam("city", city).build())
@@ -76,7 +148,7 @@ public class TemperatureControllerTest {
     void averageTemperatures_emptyString_notFound() {
         String city = "";
 
-        when(temperatureService.getYearlyAverageTemperatures(city.toLowerCase().trim())).thenReturn(new HashMap<>());
+        when(temperatureService.getYearlyAverageTemperatures(snapshot, city.toLowerCase().trim())).thenReturn(new TreeMap<>());
 
         webTestClient.get()
                 .uri(uriBuilder -> uriBuilder.path("/average-temperatures").queryParam("city", city).build())
@@ -88,7 +160,7 @@ public class TemperatureControllerTest {
     void averageTemperatures_emptyString_notFoundWithNull() {
         String city = "";
 
-        when(temperatureService.getYearlyAverageTemperatures(city.toLowerCase().trim())).thenReturn(null);
+        when(temperatureService.getYearlyAverageTemperatures(snapshot, city.toLowerCase().trim())).thenReturn(null);
 
         webTestClient.get()
                 .uri(uriBuilder -> uriBuilder.path("/average-temperatures").queryParam("city", city).build())
@@ -96,6 +168,254 @@ public class TemperatureControllerTest {
                 .expectStatus().isNotFound();
     }
 
+    @Test
+    void averageTemperatures_unchangedCity_servedFromCache() {
+        when(temperatureService.getCityVersion(snapshot, "cachedcity")).thenReturn(1L);
+        when(temperatureService.getYearlyAverageTemperatures(snapshot, "cachedcity"))
+                .thenReturn(new TreeMap<>(Map.of(2021, 15.0)));
+
+        for (int i = 0; i < 2; i++) {
+            webTestClient.get()
+                    .uri(uriBuilder -> uriBuilder.path("/average-temperatures").queryParam("city", "CachedCity").build())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$[0].averageTemperature").isEqualTo(15.0);
+        }
+
+        verify(temperatureService, times(1)).getYearlyAverageTemperatures(snapshot, "cachedcity");
+        webTestClient.get()
+                .uri("/cache-statistics")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.hits").isNotEmpty()
+                .jsonPath("$.hitRatio").isNotEmpty();
+    }
+
+    @Test
+    void averageTemperatures_matchingETag_notModifiedWithoutQuery() {
+        when(temperatureService.getCityVersion(snapshot, "samplecity")).thenReturn(3L);
+        when(temperatureService.getYearlyAverageTemperatures(snapshot, "samplecity"))
+                .thenReturn(new TreeMap<>(Map.of(2021, 15.0)));
+        String eTag = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/average-temperatures").queryParam("city", "SampleCity").build())
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders().getETag();
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/average-temperatures").queryParam("city", "SampleCity").build())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, eTag)
+                .expectBody().isEmpty();
+
+        verify(temperatureService, times(1)).getYearlyAverageTemperatures(snapshot, "samplecity");
+    }
+
+    @Test
+    void temperatureStatistics_changedCity_newETag() {
+        when(temperatureService.getCityVersion(snapshot, "samplecity")).thenReturn(3L);
+        when(temperatureService.getTemperatureStatistics(snapshot, "samplecity", Granularity.YEAR, Metric.AVG))
+                .thenReturn(new TreeMap<>(Map.of(2021, 10.0)));
+        String eTag = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/temperature-statistics").queryParam("city", "SampleCity").build())
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders().getETag();
+        when(temperatureService.getCityVersion(snapshot, "samplecity")).thenReturn(4L);
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/temperature-statistics").queryParam("city", "SampleCity").build())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.ETAG, value -> assertNotEquals(eTag, value));
+    }
+
+    @Test
+    void temperatureStatistics_monthlyMax_isOk() {
+        SortedMap<Integer, Double> values = new TreeMap<>(Map.of(202101, 10.0, 202102, 12.25));
+        when(temperatureService.getTemperatureStatistics(snapshot, "samplecity", Granularity.MONTH, Metric.MAX))
+                .thenReturn(values);
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/temperature-statistics").queryParam("city", "SampleCity")
+                        .queryParam("granularity", "month").queryParam("metric", "max").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].bucket").isEqualTo("2021-01")
+                .jsonPath("$[0].value").isEqualTo(10.0)
+                .jsonPath("$[1].bucket").isEqualTo("2021-02")
+                .jsonPath("$[1].value").isEqualTo(12.25);
+    }
+
+    @Test
+    void temperatureStatistics_unknownMetric_badRequest() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/temperature-statistics").queryParam("city", "SampleCity")
+                        .queryParam("metric", "median").build())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void temperaturePercentiles_defaultPercentiles_isOk() {
+        SortedMap<Integer, double[]> percentiles = new TreeMap<>(Map.of(2021, new double[]{10.04, 25.0, 30.96}));
+        when(temperatureService.getYearlyPercentiles(eq(snapshot), eq("samplecity"), any())).thenReturn(percentiles);
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/temperature-percentiles").queryParam("city", "SampleCity").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].year").isEqualTo("2021")
+                .jsonPath("$[0].percentiles.p50").isEqualTo(10.0)
+                .jsonPath("$[0].percentiles.p95").isEqualTo(25.0)
+                .jsonPath("$[0].percentiles.p99").isEqualTo(31.0);
+    }
+
+    @Test
+    void temperaturePercentiles_reloadedWithEqualDailyTotals_newResponse() {
+        TemperatureService loaded = new TemperatureService();
+        reload(loaded, 10.0, 20.0, 30.0, 40.0);
+        when(temperatureService.getSnapshot()).thenAnswer(invocation -> loaded.getSnapshot());
+        when(temperatureService.getCityVersion(any(), eq("samplecity")))
+                .thenAnswer(invocation -> loaded.getCityVersion(invocation.getArgument(0), "samplecity"));
+        when(temperatureService.getYearlyPercentiles(any(), eq("samplecity"), any()))
+                .thenAnswer(invocation -> loaded.getYearlyPercentiles(invocation.getArgument(0), "samplecity",
+                        invocation.getArgument(2)));
+        String eTag = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/temperature-percentiles").queryParam("city", "SampleCity")
+                        .queryParam("percentiles", "50").build())
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders().getETag();
+
+        reload(loaded, 10.0, 25.0, 25.0, 40.0);
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/temperature-percentiles").queryParam("city", "SampleCity")
+                        .queryParam("percentiles", "50").build())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.ETAG, value -> assertNotEquals(eTag, value));
+    }
+
+    @Test
+    void temperaturePercentiles_outOfRange_badRequest() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/temperature-percentiles").queryParam("city", "SampleCity")
+                        .queryParam("percentiles", "50,101").build())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void bulkAverages_listedCities_streamedFromOneSnapshot() {
+        TemperatureSnapshot snapshot = new TemperatureSnapshot(7, new RollupCube());
+        when(temperatureService.getSnapshot()).thenReturn(snapshot);
+        when(temperatureService.getYearlyAverageTemperatures(eq(snapshot), any())).thenReturn(new TreeMap<>());
+        when(temperatureService.getYearlyAverageTemperatures(snapshot, "samplecity"))
+                .thenReturn(new TreeMap<>(Map.of(2021, 15.04, 2022, 14.5)));
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/average-temperatures/bulk")
+                        .queryParam("cities", "SampleCity,unknown").build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(TemperatureController.GENERATION_HEADER, "7")
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].city").isEqualTo("samplecity")
+                .jsonPath("$[0].averages[0].year").isEqualTo("2021")
+                .jsonPath("$[0].averages[0].averageTemperature").isEqualTo(15.0)
+                .jsonPath("$[0].averages[1].year").isEqualTo("2022");
+    }
+
+    @Test
+    void bulkAverages_noCityWithData_emptyJsonArray() {
+        when(temperatureService.getYearlyAverageTemperatures(eq(snapshot), any())).thenReturn(new TreeMap<>());
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/average-temperatures/bulk").queryParam("cities", "unknown").build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody(String.class).isEqualTo("[]");
+    }
+
+    @Test
+    void bulkAverages_anyMediaTypeAccepted_newlineDelimited() {
+        when(temperatureService.getYearlyAverageTemperatures(eq(snapshot), any()))
+                .thenReturn(new TreeMap<>(Map.of(2021, 15.0)));
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/average-temperatures/bulk").queryParam("cities", "first,second")
+                        .build())
+                .accept(MediaType.APPLICATION_JSON, MediaType.ALL)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .value(body -> assertEquals(2, body.split("\n").length));
+    }
+
+    @Test
+    void bulkAverages_allCities_newlineDelimited() {
+        TemperatureSnapshot snapshot = new TemperatureSnapshot(7, new RollupCube());
+        when(temperatureService.getSnapshot()).thenReturn(snapshot);
+        when(temperatureService.getCities(snapshot)).thenAnswer(invocation -> Stream.of("first", "second"));
+        when(temperatureService.getYearlyAverageTemperatures(eq(snapshot), any()))
+                .thenReturn(new TreeMap<>(Map.of(2021, 15.0)));
+
+        webTestClient.get()
+                .uri("/average-temperatures/bulk")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(CityAverageTemperatures.class)
+                .value(averages -> {
+                    assertEquals(2, averages.size());
+                    assertEquals("second", averages.get(1).getCity());
+                });
+    }
+
+    @Test
+    void windowAverage_validRange_isOk() {
+        when(temperatureService.getWindowTotals(snapshot, "samplecity", LocalDate.of(2021, 1, 1),
+                LocalDate.of(2021, 3, 31)))
+                .thenReturn(new WindowIndex.Totals(4550, 3));
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/average-temperatures/window").queryParam("city", "SampleCity")
+                        .queryParam("from", "2021-01-01").queryParam("to", "2021-03-31").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.measurements").isEqualTo(3)
+                .jsonPath("$.averageTemperature").isEqualTo(15.2);
+    }
+
+    @Test
+    void windowAverage_reversedRange_badRequest() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/average-temperatures/window").queryParam("city", "SampleCity")
+                        .queryParam("from", "2021-03-31").queryParam("to", "2021-01-01").build())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @SneakyThrows
     @Test
     void updateData_validData_isOk() {
@@ -107,7 +427,54 @@ public class TemperatureControllerTest {
                 .expectStatus().isOk()
                 .expectBody();
 
-        verify(temperatureService, times(1)).clearData();
+        verify(temperatureService, never()).clearData();
+    }
+
+    @SneakyThrows
+    @Test
+    void updateData_validData_jobLaunchedOffEventLoop() {
+        AtomicReference<String> launchingThread = new AtomicReference<>();
+        when(jobLauncher.run(any(), any())).thenAnswer(invocation -> {
+            launchingThread.set(Thread.currentThread().getName());
+            return new JobExecution(12345L);
+        });
+
+        webTestClient.post()
+                .uri(uriBuilder -> uriBuilder.path("/update-data").build())
+                .exchange()
+                .expectStatus().isOk();
+
+        assertTrue(launchingThread.get().startsWith("boundedElastic"));
+    }
+
+    @SneakyThrows
+    @Test
+    void updateData_importRunningOnStartUp_waitsForIt() {
+        when(jobLauncher.run(any(), any())).thenReturn(new JobExecution(12345L));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread warmStart = new Thread(() -> {
+            try {
+                importLock.call(() -> {
+                    locked.countDown();
+                    return release.await(10, TimeUnit.SECONDS);
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        warmStart.start();
+        locked.await();
+
+        CompletableFuture<Void> update = CompletableFuture.runAsync(() -> webTestClient.post()
+                .uri(uriBuilder -> uriBuilder.path("/update-data").build())
+                .exchange()
+                .expectStatus().isOk());
+
+        verify(jobLauncher, after(200).never()).run(any(), any());
+        release.countDown();
+        update.get(10, TimeUnit.SECONDS);
+        verify(jobLauncher).run(any(), any());
     }
 
     @SneakyThrows
@@ -121,6 +488,135 @@ public class TemperatureControllerTest {
                 .expectStatus().is5xxServerError()
                 .expectBody();
 
-        verify(temperatureService, times(1)).clearData();
+        verify(temperatureService, never()).clearData();
+    }
+
+    @SneakyThrows
+    @Test
+    void updateData_executionStillRunning_conflict() {
+        doThrow(new JobExecutionAlreadyRunningException("test")).when(jobLauncher).run(any(), any());
+
+        webTestClient.post()
+                .uri(uriBuilder -> uriBuilder.path("/update-data").build())
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    @SneakyThrows
+    @Test
+    void importSlice_instanceAlreadyComplete_conflict() {
+        doThrow(new JobInstanceAlreadyCompleteException("test")).when(jobLauncher).run(any(), any());
+
+        webTestClient.post()
+                .uri(uriBuilder -> uriBuilder.path("/cluster/import").queryParam("round", 5).build())
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    @SneakyThrows
+    @Test
+    void importSlice_invalidParameters_serverError() {
+        doThrow(new JobParametersInvalidException("test")).when(jobLauncher).run(any(), any());
+
+        webTestClient.post()
+                .uri(uriBuilder -> uriBuilder.path("/cluster/import").queryParam("round", 5).build())
+                .exchange()
+                .expectStatus().is5xxServerError();
+    }
+
+    @SneakyThrows
+    @Test
+    void restartData_failedExecution_restartedWithSameParameters() {
+        JobInstance jobInstance = new JobInstance(1L, "importTemperatureJob");
+        JobParameters jobParameters = new JobParametersBuilder().addLong("startAt", 1L).toJobParameters();
+        JobExecution failedExecution = new JobExecution(jobInstance, 2L, jobParameters, null);
+        failedExecution.setStatus(BatchStatus.FAILED);
+        when(importTemperaturesJob.getName()).thenReturn("importTemperatureJob");
+        when(jobExplorer.getLastJobInstance("importTemperatureJob")).thenReturn(jobInstance);
+        when(jobExplorer.getLastJobExecution(jobInstance)).thenReturn(failedExecution);
+        when(jobLauncher.run(any(), eq(jobParameters))).thenReturn(new JobExecution(jobInstance, 3L, jobParameters, null));
+
+        webTestClient.post()
+                .uri(uriBuilder -> uriBuilder.path("/update-data/restart").build())
+                .exchange()
+                .expectStatus().isOk();
+
+        verify(jobLauncher, times(1)).run(importTemperaturesJob, jobParameters);
+        verify(temperatureService, never()).clearData();
+    }
+
+    @SneakyThrows
+    @Test
+    void restartData_completedExecution_conflict() {
+        JobInstance jobInstance = new JobInstance(1L, "importTemperatureJob");
+        JobExecution completedExecution = new JobExecution(jobInstance, 2L, new JobParameters(), null);
+        completedExecution.setStatus(BatchStatus.COMPLETED);
+        when(importTemperaturesJob.getName()).thenReturn("importTemperatureJob");
+        when(jobExplorer.getLastJobInstance("importTemperatureJob")).thenReturn(jobInstance);
+        when(jobExplorer.getLastJobExecution(jobInstance)).thenReturn(completedExecution);
+
+        webTestClient.post()
+                .uri(uriBuilder -> uriBuilder.path("/update-data/restart").build())
+                .exchange()
+                .expectStatus().isEqualTo(409);
+
+        verify(jobLauncher, never()).run(any(), any());
+    }
+
+    @SneakyThrows
+    @Test
+    void restartData_executionStillRunning_conflict() {
+        JobInstance jobInstance = new JobInstance(1L, "importTemperatureJob");
+        JobExecution stoppedExecution = new JobExecution(jobInstance, 2L, new JobParameters(), null);
+        stoppedExecution.setStatus(BatchStatus.STOPPED);
+        when(importTemperaturesJob.getName()).thenReturn("importTemperatureJob");
+        when(jobExplorer.getLastJobInstance("importTemperatureJob")).thenReturn(jobInstance);
+        when(jobExplorer.getLastJobExecution(jobInstance)).thenReturn(stoppedExecution);
+        when(jobLauncher.run(any(), any())).thenThrow(new JobExecutionAlreadyRunningException("running"));
+
+        webTestClient.post()
+                .uri(uriBuilder -> uriBuilder.path("/update-data/restart").build())
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    @SneakyThrows
+    @Test
+    void restartData_invalidParameters_serverError() {
+        JobInstance jobInstance = new JobInstance(1L, "importTemperatureJob");
+        JobExecution failedExecution = new JobExecution(jobInstance, 2L, new JobParameters(), null);
+        failedExecution.setStatus(BatchStatus.FAILED);
+        when(importTemperaturesJob.getName()).thenReturn("importTemperatureJob");
+        when(jobExplorer.getLastJobInstance("importTemperatureJob")).thenReturn(jobInstance);
+        when(jobExplorer.getLastJobExecution(jobInstance)).thenReturn(failedExecution);
+        when(jobLauncher.run(any(), any())).thenThrow(new JobParametersInvalidException("invalid"));
+
+        webTestClient.post()
+                .uri(uriBuilder -> uriBuilder.path("/update-data/restart").build())
+                .exchange()
+                .expectStatus().is5xxServerError();
+    }
+
+    @Test
+    void reaggregateData_noColumnarFile_notFound() {
+        when(columnarStore.reader()).thenReturn(Optional.empty());
+
+        webTestClient.post()
+                .uri(uriBuilder -> uriBuilder.path("/update-data/reaggregate").build())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    private static void reload(TemperatureService service, double... temperatures) {
+        List<TemperatureRecord> records = new ArrayList<>();
+        for (double temperature : temperatures) {
+            TemperatureRecord record = new TemperatureRecord();
+            record.setCity("SampleCity");
+            record.setTimestamp(LocalDateTime.of(2021, 1, 1, 12, 0));
+            record.setTemperature(temperature);
+            records.add(record);
+        }
+        service.processTemperatureRecords(records);
+        service.publishAggregates(true);
     }
-}
\ No newline at end of file
+}
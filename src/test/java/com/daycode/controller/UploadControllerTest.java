@@ -0,0 +1,63 @@
+package com.daycode.controller;
+
+import com.daycode.aggregate.SketchSettings;
+import com.daycode.service.TemperatureService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(UploadController.class)
+public class UploadControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private TemperatureService temperatureService;
+
+    @BeforeEach
+    void setUp() {
+        when(temperatureService.getSketchSettings()).thenReturn(SketchSettings.DEFAULT);
+    }
+
+    @Test
+    void uploadData_validBody_aggregatedAndPublished() {
+        when(temperatureService.publishAggregates(any(), eq(true), eq("upload"))).thenReturn(5L);
+
+        webTestClient.post()
+                .uri(uriBuilder -> uriBuilder.path("/upload-data").queryParam("replace", "true").build())
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue("Wrocław;2021-01-01 10:00:00.000;10.5\nWrocław;2021-01-02 10:00:00.000;11.5")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Long.class).isEqualTo(5L);
+
+        verify(temperatureService, atLeastOnce()).aggregateTemperatureRecords(any(), any());
+        verify(temperatureService).publishAggregates(any(), eq(true), eq("upload"));
+    }
+
+    @Test
+    void uploadData_malformedLine_badRequestAndNothingPublished() {
+        webTestClient.post()
+                .uri("/upload-data")
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue("Wrocław;2021-01-01 10:00:00.000;10.5\nWrocław;yesterday;11.5\n")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(temperatureService, never()).publishAggregates(any(), anyBoolean(), anyString());
+    }
+}
@@ -0,0 +1,251 @@
+package com.daycode.generator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Generates {@code city;yyyy-MM-dd HH:mm:ss.SSS;temperature} source files for load tests and benchmarks.
+ * File is split into segments of fixed byte budget, each filled with whole lines by its own random generator seeded
+ * from the seed and segment index, so the same settings produce the same bytes whatever the number of threads.
+ * Segments are generated in parallel and written at their offsets with positional {@link FileChannel} writes as soon
+ * as the segments before them are sized. Cities are drawn from Zipf distribution, timestamps uniformly from the time
+ * range and temperatures follow a seasonal curve around per city mean.
+ */
+public class DataGenerator {
+
+    private static final String[] KNOWN_CITIES = {"Warszawa", "Wrocław", "Kraków", "Poznań", "Zielona Góra", "Opole",
+            "Berlin"};
+    private static final int TIMESTAMP_LENGTH = 23;
+    private static final int TEMPERATURE_LENGTH = 7;
+    private static final int MAX_HUNDREDTHS = 9999;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final double DAYS_PER_YEAR = 365.2425;
+    private static final byte[] NOT_A_NUMBER = "n/a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WRONG_TIMESTAMP = "2018-13-45 25:61:61.000".getBytes(StandardCharsets.US_ASCII);
+
+    private final GeneratorSettings settings;
+    private final byte[][] cityNames;
+    private final int[] cityMeans;
+    private final double[] cumulativeWeights;
+    private final int maxLineLength;
+
+    /**
+     * @param settings Settings of generated file.
+     * @throws IllegalArgumentException when settings are out of range.
+     */
+    public DataGenerator(GeneratorSettings settings) {
+        if (settings.getCities() < 1 || !settings.getFrom().isBefore(settings.getTo())
+                || settings.getMalformedRate() < 0 || settings.getMalformedRate() > 1 || settings.getZipfExponent() < 0) {
+            throw new IllegalArgumentException("Incorrect generator settings");
+        }
+        this.settings = settings;
+        int cities = settings.getCities();
+        SplittableRandom random = new SplittableRandom(settings.getSeed());
+        cityNames = new byte[cities][];
+        cityMeans = new int[cities];
+        cumulativeWeights = new double[cities];
+        int maxCityLength = 0;
+        double total = 0;
+        for (int i = 0; i < cities; i++) {
+            cityNames[i] = city(i).getBytes(StandardCharsets.UTF_8);
+            cityMeans[i] = random.nextInt(-500, 2500);
+            total += Math.pow(i + 1, -settings.getZipfExponent());
+            cumulativeWeights[i] = total;
+            maxCityLength = Math.max(maxCityLength, cityNames[i].length);
+        }
+        for (int i = 0; i < cities; i++) {
+            cumulativeWeights[i] /= total;
+        }
+        maxLineLength = maxCityLength + TIMESTAMP_LENGTH + TEMPERATURE_LENGTH + 3;
+        if (settings.getSegmentBytes() < maxLineLength) {
+            throw new IllegalArgumentException("Segment can't hold a line");
+        }
+    }
+
+    /**
+     * Name of city with given popularity rank, known city names come first.
+     *
+     * @param rank Rank of the city, {@code 0} for the most frequent one.
+     * @return City name.
+     */
+    public static String city(int rank) {
+        return rank < KNOWN_CITIES.length ? KNOWN_CITIES[rank] : "Station " + rank;
+    }
+
+    /**
+     * Writes the file, replacing existing one.
+     *
+     * @return Number of written bytes, at most target size and less than one line per segment below it.
+     * @throws IOException when file can't be written.
+     */
+    public long generate() throws IOException {
+        long target = settings.getTargetBytes();
+        int segmentBytes = settings.getSegmentBytes();
+        long segments = (target + segmentBytes - 1) / segmentBytes;
+        int threads = Math.max(1, settings.getThreads());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Semaphore inFlight = new Semaphore(threads * 2);
+        try (FileChannel channel = FileChannel.open(settings.getOutput(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            List<CompletableFuture<Void>> writes = new ArrayList<>();
+            CompletableFuture<Long> offset = CompletableFuture.completedFuture(0L);
+            for (long index = 0; index < segments && !offset.isCompletedExceptionally(); index++) {
+                inFlight.acquireUninterruptibly();
+                long segment = index;
+                int length = (int) Math.min(segmentBytes, target - index * segmentBytes);
+                CompletableFuture<ByteBuffer> generated = CompletableFuture.supplyAsync(
+                        () -> segment(segment, length), executor);
+                CompletableFuture<Long> start = offset;
+                offset = start.thenCombine(generated, (position, bytes) -> position + bytes.remaining());
+                writes.add(start.thenAcceptBothAsync(generated, (position, bytes) -> write(channel, bytes.duplicate(), position),
+                        executor).whenComplete((ignored, failure) -> inFlight.release()));
+            }
+            CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+            return offset.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Generates whole lines of single segment.
+     *
+     * @param index  Index of the segment.
+     * @param length Byte budget of the segment.
+     * @return Buffer with the lines, flipped for writing.
+     */
+    ByteBuffer segment(long index, int length) {
+        SplittableRandom random = new SplittableRandom(mix(settings.getSeed() + index * 0x9E3779B97F4A7C15L));
+        long from = settings.getFrom().toInstant(ZoneOffset.UTC).toEpochMilli();
+        long span = settings.getTo().toInstant(ZoneOffset.UTC).toEpochMilli() - from;
+        double malformedRate = settings.getMalformedRate();
+        byte[] bytes = new byte[length];
+        int position = 0;
+        while (position + maxLineLength <= length) {
+            int city = city(random);
+            long timestamp = from + random.nextLong(span);
+            boolean malformed = malformedRate > 0 && random.nextDouble() < malformedRate;
+            int kind = malformed ? random.nextInt(3) : -1;
+            System.arraycopy(cityNames[city], 0, bytes, position, cityNames[city].length);
+            position += cityNames[city].length;
+            bytes[position++] = ';';
+            if (kind == 0) {
+                System.arraycopy(WRONG_TIMESTAMP, 0, bytes, position, WRONG_TIMESTAMP.length);
+                position += WRONG_TIMESTAMP.length;
+            } else {
+                position = timestamp(bytes, position, timestamp);
+            }
+            if (kind != 1) {
+                bytes[position++] = ';';
+                if (kind == 2) {
+                    System.arraycopy(NOT_A_NUMBER, 0, bytes, position, NOT_A_NUMBER.length);
+                    position += NOT_A_NUMBER.length;
+                } else {
+                    position = temperature(bytes, position, temperature(random, city, timestamp));
+                }
+            }
+            bytes[position++] = '\n';
+        }
+        return ByteBuffer.wrap(bytes, 0, position);
+    }
+
+    private int city(SplittableRandom random) {
+        int rank = Arrays.binarySearch(cumulativeWeights, random.nextDouble());
+        return Math.min(rank < 0 ? -rank - 1 : rank, cumulativeWeights.length - 1);
+    }
+
+    /**
+     * Temperature in hundredths of degree, lowest in January and highest in July, with Gaussian noise.
+     */
+    private int temperature(SplittableRandom random, int city, long timestamp) {
+        double years = timestamp / (MILLIS_PER_DAY * DAYS_PER_YEAR);
+        double yearFraction = years - Math.floor(years);
+        double hundredths = cityMeans[city] - 1000 * Math.cos(2 * Math.PI * (yearFraction - 0.04))
+                + 400 * random.nextGaussian();
+        return (int) Math.max(-MAX_HUNDREDTHS, Math.min(MAX_HUNDREDTHS, Math.round(hundredths)));
+    }
+
+    private static void write(FileChannel channel, ByteBuffer bytes, long position) {
+        try {
+            while (bytes.hasRemaining()) {
+                position += channel.write(bytes, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes UTC epoch millis as {@code yyyy-MM-dd HH:mm:ss.SSS}, converting days to civil date without allocation.
+     */
+    private static int timestamp(byte[] bytes, int position, long epochMillis) {
+        long days = Math.floorDiv(epochMillis, MILLIS_PER_DAY);
+        int millisOfDay = (int) Math.floorMod(epochMillis, MILLIS_PER_DAY);
+        long shifted = days + 719_468;
+        long era = Math.floorDiv(shifted, 146_097);
+        long dayOfEra = shifted - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+        int month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        position = digits(bytes, position, year, 4);
+        bytes[position++] = '-';
+        position = digits(bytes, position, month, 2);
+        bytes[position++] = '-';
+        position = digits(bytes, position, day, 2);
+        bytes[position++] = ' ';
+        position = digits(bytes, position, millisOfDay / 3_600_000, 2);
+        bytes[position++] = ':';
+        position = digits(bytes, position, millisOfDay / 60_000 % 60, 2);
+        bytes[position++] = ':';
+        position = digits(bytes, position, millisOfDay / 1000 % 60, 2);
+        bytes[position++] = '.';
+        return digits(bytes, position, millisOfDay % 1000, 3);
+    }
+
+    private static int temperature(byte[] bytes, int position, int hundredths) {
+        if (hundredths < 0) {
+            bytes[position++] = '-';
+            hundredths = -hundredths;
+        }
+        int degrees = hundredths / 100;
+        position = digits(bytes, position, degrees, degrees < 10 ? 1 : 2);
+        bytes[position++] = '.';
+        return digits(bytes, position, hundredths % 100, 2);
+    }
+
+    private static int digits(byte[] bytes, int position, int value, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            bytes[position + i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + count;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+}
@@ -0,0 +1,102 @@
+package com.daycode.generator;
+
+import com.daycode.mapper.TemperatureLineDecoder;
+import com.daycode.model.TemperatureRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void generate_sameSeed_sameBytesWhateverThreads() throws IOException {
+        GeneratorSettings single = settings("single.csv", 0);
+        single.setThreads(1);
+        GeneratorSettings parallel = settings("parallel.csv", 0);
+        parallel.setThreads(4);
+
+        long written = new DataGenerator(single).generate();
+        new DataGenerator(parallel).generate();
+
+        assertArrayEquals(Files.readAllBytes(single.getOutput()), Files.readAllBytes(parallel.getOutput()));
+        assertEquals(written, Files.size(single.getOutput()));
+        assertTrue(written <= single.getTargetBytes() && written > single.getTargetBytes() * 0.99);
+    }
+
+    @Test
+    void generate_noMalformedLines_allLinesDecodedWithinTimeRange() throws IOException {
+        GeneratorSettings settings = settings("data.csv", 0);
+        new DataGenerator(settings).generate();
+
+        TemperatureLineDecoder decoder = new TemperatureLineDecoder();
+        TemperatureRecord record = new TemperatureRecord();
+        for (String line : Files.readAllLines(settings.getOutput(), StandardCharsets.UTF_8)) {
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            assertTrue(decoder.decode(buffer, 0, buffer.limit(), record), line);
+            assertTrue(!record.getTimestamp().isBefore(settings.getFrom()) && record.getTimestamp().isBefore(settings.getTo()));
+            assertTrue(Math.abs(record.getTemperature()) < 100);
+        }
+    }
+
+    @Test
+    void generate_malformedRate_matchingShareOfLinesRejected() throws IOException {
+        GeneratorSettings settings = settings("data.csv", 0.1);
+        new DataGenerator(settings).generate();
+
+        List<String> lines = Files.readAllLines(settings.getOutput(), StandardCharsets.UTF_8);
+        TemperatureLineDecoder decoder = new TemperatureLineDecoder();
+        int rejected = 0;
+        for (String line : lines) {
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            try {
+                decoder.decode(buffer, 0, buffer.limit(), new TemperatureRecord());
+            } catch (IllegalArgumentException | DateTimeException e) {
+                rejected++;
+            }
+        }
+
+        double share = rejected / (double) lines.size();
+        assertTrue(share > 0.08 && share < 0.12, "Rejected share " + share);
+    }
+
+    @Test
+    void generate_zipfExponent_popularCitiesDominate() throws IOException {
+        GeneratorSettings settings = settings("data.csv", 0);
+        settings.setCities(1000);
+        settings.setZipfExponent(1.2);
+        new DataGenerator(settings).generate();
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (String line : Files.readAllLines(settings.getOutput(), StandardCharsets.UTF_8)) {
+            counts.merge(line.substring(0, line.indexOf(';')), 1, Integer::sum);
+        }
+
+        int first = counts.get(DataGenerator.city(0));
+        assertTrue(first > 10 * counts.getOrDefault(DataGenerator.city(50), 0));
+        assertEquals(first, counts.values().stream().mapToInt(Integer::intValue).max().getAsInt());
+    }
+
+    private GeneratorSettings settings(String file, double malformedRate) {
+        GeneratorSettings settings = GeneratorSettings.parse("targetBytes=1000000", "segmentBytes=65536", "cities=200",
+                "from=2018-01-01T00:00", "to=2020-01-01T00:00", "malformedRate=" + malformedRate);
+        settings.setOutput(tempDir.resolve(file));
+        return settings;
+    }
+}
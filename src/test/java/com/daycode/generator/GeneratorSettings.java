@@ -0,0 +1,77 @@
+package com.daycode.generator;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * Settings of {@link DataGenerator}. Defaults produce 5 GB file of 10 000 cities with Zipf skewed popularity.
+ */
+@Getter
+@Setter
+public class GeneratorSettings {
+
+    private Path output = Path.of("src/main/resources/large_file.csv");
+    private long targetBytes = 5L * 1024 * 1024 * 1024;
+    private int cities = 10_000;
+    private double zipfExponent = 1.0;
+    private LocalDateTime from = LocalDateTime.of(2015, 1, 1, 0, 0);
+    private LocalDateTime to = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private double malformedRate;
+    private long seed = 42;
+    private int segmentBytes = 4 * 1024 * 1024;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Overrides defaults with {@code name=value} arguments, e.g. {@code cities=5000 zipfExponent=1.2
+     * from=2020-01-01T00:00 malformedRate=0.001}.
+     *
+     * @param args Arguments named after settings.
+     * @return Settings with given values.
+     * @throws IllegalArgumentException when argument is not a known setting.
+     */
+    public static GeneratorSettings parse(String... args) {
+        GeneratorSettings settings = new GeneratorSettings();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            String value = arg.substring(separator + 1);
+            switch (separator < 0 ? arg : arg.substring(0, separator)) {
+                case "output":
+                    settings.setOutput(Path.of(value));
+                    break;
+                case "targetBytes":
+                    settings.setTargetBytes(Long.parseLong(value));
+                    break;
+                case "cities":
+                    settings.setCities(Integer.parseInt(value));
+                    break;
+                case "zipfExponent":
+                    settings.setZipfExponent(Double.parseDouble(value));
+                    break;
+                case "from":
+                    settings.setFrom(LocalDateTime.parse(value));
+                    break;
+                case "to":
+                    settings.setTo(LocalDateTime.parse(value));
+                    break;
+                case "malformedRate":
+                    settings.setMalformedRate(Double.parseDouble(value));
+                    break;
+                case "seed":
+                    settings.setSeed(Long.parseLong(value));
+                    break;
+                case "segmentBytes":
+                    settings.setSegmentBytes(Integer.parseInt(value));
+                    break;
+                case "threads":
+                    settings.setThreads(Integer.parseInt(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown setting " + arg);
+            }
+        }
+        return settings;
+    }
+}
@@ -0,0 +1,95 @@
+package com.daycode.mapper;
+
+import com.daycode.model.TemperatureRecord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TemperatureLineParserTest {
+
+    @Test
+    void parseTimestamp_validLayout_yearAndEpochMillis() {
+        TemperatureRecord record = new TemperatureRecord();
+
+        assertTrue(TemperatureLineParser.parseTimestamp("2020-02-29 23:59:58.123", record));
+
+        LocalDateTime expected = LocalDateTime.of(2020, 2, 29, 23, 59, 58, 123_000_000);
+        assertEquals(2020, record.getYear());
+        assertEquals(expected.toInstant(ZoneOffset.UTC).toEpochMilli(), record.getEpochMillis());
+        assertEquals(expected, record.getTimestamp());
+    }
+
+    @Test
+    void parseTimestamp_bytes_sameAsText() {
+        TemperatureRecord fromText = new TemperatureRecord();
+        TemperatureRecord fromBytes = new TemperatureRecord();
+        ByteBuffer buffer = ByteBuffer.wrap("x;1969-12-31 00:00:00.001;".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(TemperatureLineParser.parseTimestamp("1969-12-31 00:00:00.001", fromText));
+        assertTrue(TemperatureLineParser.parseTimestamp(buffer, 2, 25, fromBytes));
+
+        assertEquals(fromText.getEpochMillis(), fromBytes.getEpochMillis());
+        assertEquals(LocalDateTime.of(1969, 12, 31, 0, 0, 0, 1_000_000), fromBytes.getTimestamp());
+    }
+
+    @Test
+    void parseTimestamp_otherLayoutOrInvalidDate_notParsed() {
+        TemperatureRecord record = new TemperatureRecord();
+
+        assertFalse(TemperatureLineParser.parseTimestamp("2021-02-29 00:00:00.000", record));
+        assertFalse(TemperatureLineParser.parseTimestamp("2021-01-01T00:00:00.000", record));
+        assertFalse(TemperatureLineParser.parseTimestamp("2021-01-01 00:00:00", record));
+        assertFalse(TemperatureLineParser.parseTimestamp("2021-01-01 24:00:00.000", record));
+        assertFalse(TemperatureLineParser.parseTimestamp("2021-0a-01 00:00:00.000", record));
+    }
+
+    @Test
+    void parseTemperature_validLayout_hundredths() {
+        TemperatureRecord record = new TemperatureRecord();
+
+        assertTrue(TemperatureLineParser.parseTemperature("-9.4", record));
+        assertEquals(-940, record.getTemperatureHundredths());
+        assertEquals(-9.4, record.getTemperature());
+
+        assertTrue(TemperatureLineParser.parseTemperature("39.02", record));
+        assertEquals(3902, record.getTemperatureHundredths());
+        assertEquals(39.02, record.getTemperature());
+
+        assertTrue(TemperatureLineParser.parseTemperature("7", record));
+        assertEquals(700, record.getTemperatureHundredths());
+    }
+
+    @Test
+    void parseTemperature_otherLayout_notParsed() {
+        TemperatureRecord record = new TemperatureRecord();
+
+        assertFalse(TemperatureLineParser.parseTemperature("", record));
+        assertFalse(TemperatureLineParser.parseTemperature("-", record));
+        assertFalse(TemperatureLineParser.parseTemperature("1.234", record));
+        assertFalse(TemperatureLineParser.parseTemperature("1e5", record));
+        assertFalse(TemperatureLineParser.parseTemperature("12.", record));
+        assertFalse(TemperatureLineParser.parseTemperature(ByteBuffer.wrap("abc".getBytes(StandardCharsets.UTF_8)), 0, 3, record));
+    }
+
+    @Test
+    void yearAndDate_epochMillis_sameAsLocalDateTime() {
+        LocalDateTime dateTime = LocalDateTime.of(1600, 1, 1, 0, 0);
+        while (dateTime.getYear() < 2500) {
+            long epochMillis = dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+
+            assertEquals(dateTime.getYear(), TemperatureLineParser.year(epochMillis), dateTime.toString());
+            assertEquals(dateTime.getYear() * 10000 + dateTime.getMonthValue() * 100 + dateTime.getDayOfMonth(),
+                    TemperatureLineParser.date(epochMillis), dateTime.toString());
+            dateTime = dateTime.plusHours(77);
+        }
+        assertEquals(2020, TemperatureLineParser.year(LocalDateTime.of(2020, 12, 31, 23, 59, 59, 999_000_000)
+                .toInstant(ZoneOffset.UTC).toEpochMilli()));
+    }
+}
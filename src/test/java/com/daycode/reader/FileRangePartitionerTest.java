@@ -0,0 +1,91 @@
+package com.daycode.reader;
+
+import com.daycode.model.FileRange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileRangePartitionerTest {
+
+    private static final String LINE = "Opole;2018-09-19 05:17:32.619;1.00\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void ranges_splitOffsetAtLineStart_lineKeptInNextRange() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("a.csv"), LINE.repeat(4));
+        long line = LINE.length();
+
+        List<FileRange> ranges = new FileRangePartitioner(file).ranges(4);
+
+        assertEquals(List.of(new FileRange(file, 0, line), new FileRange(file, line, 2 * line),
+                new FileRange(file, 2 * line, 3 * line), new FileRange(file, 3 * line, 4 * line)), ranges);
+    }
+
+    @Test
+    void ranges_splitOffsetOnNewline_nextLineStartsRange() throws IOException {
+        String first = "Opole;2018-09-19 05:17:32.619;10.00\n";
+        String second = "Opole;2018-09-19 05:17:32.619;1.0\n";
+        Path file = Files.writeString(tempDir.resolve("a.csv"), first + second);
+        long length = first.length() + second.length();
+
+        assertEquals('\n', first.charAt((int) (length / 2)));
+        assertEquals(List.of(new FileRange(file, 0, first.length()), new FileRange(file, first.length(), length)),
+                new FileRangePartitioner(file).ranges(2));
+    }
+
+    @Test
+    void partition_gridLargerThanLineCount_partitionPerLine() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("a.csv"), LINE.repeat(3));
+
+        Map<String, ExecutionContext> partitions = new FileRangePartitioner(file).partition(16);
+
+        assertEquals(3, partitions.size());
+        long expectedStart = 0;
+        for (ExecutionContext context : partitions.values()) {
+            assertEquals(file.toString(), context.getString(FileRangePartitioner.FILE_PATH_KEY));
+            assertEquals(expectedStart, context.getLong(FileRangePartitioner.START_OFFSET_KEY));
+            expectedStart += LINE.length();
+            assertEquals(expectedStart, context.getLong(FileRangePartitioner.END_OFFSET_KEY));
+        }
+    }
+
+    @Test
+    void ranges_subRange_splitWithinRangeOnly() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("a.csv"), LINE.repeat(6));
+        long line = LINE.length();
+
+        List<FileRange> ranges = new FileRangePartitioner(file, line, 5 * line).ranges(2);
+
+        assertEquals(List.of(new FileRange(file, line, 3 * line), new FileRange(file, 3 * line, 5 * line)), ranges);
+    }
+
+    @Test
+    void ranges_gzipFile_singleRange() throws IOException {
+        Path file = Files.write(tempDir.resolve("a.csv.gz"), gzip(LINE.repeat(100)));
+
+        List<FileRange> ranges = new FileRangePartitioner(file).ranges(4);
+
+        assertEquals(List.of(new FileRange(file, 0, Files.size(file))), ranges);
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+}
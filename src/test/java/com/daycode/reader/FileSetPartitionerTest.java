@@ -0,0 +1,67 @@
+package com.daycode.reader;
+
+import com.daycode.model.FileRange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileSetPartitionerTest {
+
+    private static final String LINE = "Warszawa;2018-09-19 05:17:32.619;9.97\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void assign_oneBigAndManySmallFiles_bigFileSplitAndLoadBalanced() throws IOException {
+        List<FileRange> ranges = new ArrayList<>();
+        ranges.add(range(Files.writeString(tempDir.resolve("big.csv"), LINE.repeat(60))));
+        for (int i = 0; i < 20; i++) {
+            ranges.add(range(Files.writeString(tempDir.resolve("small-" + i + ".csv"), LINE)));
+        }
+
+        List<List<FileRange>> partitions = new FileSetPartitioner(ranges).assign(4);
+
+        assertEquals(4, partitions.size());
+        for (List<FileRange> partition : partitions) {
+            long bytes = partition.stream().mapToLong(FileRange::length).sum();
+            assertTrue(Math.abs(bytes - 20L * LINE.length()) <= LINE.length(), "Unbalanced partition: " + bytes);
+            partition.forEach(range -> assertEquals(0, range.getStartOffset() % LINE.length()));
+        }
+        assertEquals(80L * LINE.length(), partitions.stream().flatMap(List::stream).mapToLong(FileRange::length).sum());
+    }
+
+    @Test
+    void assign_fewerFilesThanGrid_partitionPerFile() throws IOException {
+        List<FileRange> ranges = List.of(range(Files.writeString(tempDir.resolve("a.csv.gz"), LINE)),
+                range(Files.writeString(tempDir.resolve("b.csv.gz"), LINE)));
+
+        assertEquals(2, new FileSetPartitioner(ranges).assign(8).size());
+    }
+
+    @Test
+    void partition_contextsDecodeToAssignedRanges() throws IOException {
+        List<FileRange> ranges = List.of(range(Files.writeString(tempDir.resolve("a b.csv"), LINE)),
+                new FileRange(Files.writeString(tempDir.resolve("c.csv"), LINE + LINE), LINE.length(), 2L * LINE.length()));
+
+        List<FileRange> decoded = new FileSetPartitioner(ranges).partition(1).values().stream()
+                .map(context -> FileSetPartitioner.decode(context.getString(FileSetPartitioner.FILE_RANGES_KEY)))
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+
+        assertEquals(ranges, decoded);
+    }
+
+    private static FileRange range(Path file) throws IOException {
+        return new FileRange(file, 0, Files.size(file));
+    }
+}
@@ -0,0 +1,155 @@
+package com.daycode.reader;
+
+import com.daycode.model.TemperatureRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.FlatFileParseException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MappedTemperatureItemReaderTest {
+
+    /**
+     * Every line of the test files is 35 bytes long, so lines cross boundaries of windows of this size.
+     */
+    private static final long WINDOW_SIZE = 50;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void read_linesCrossingWindowBoundary_allRead() throws IOException {
+        Path file = write("Opole;2018-09-19 05:17:32.619;1.00\nOpole;2018-09-19 05:17:32.619;2.00\n"
+                + "Opole;2018-09-19 05:17:32.619;3.00\nOpole;2018-09-19 05:17:32.619;4.00\n");
+
+        List<TemperatureRecord> records = readAll(reader(file, 0, Files.size(file)), new ExecutionContext());
+
+        assertEquals(List.of(1.0, 2.0, 3.0, 4.0), temperatures(records));
+        assertEquals(LocalDateTime.of(2018, 9, 19, 5, 17, 32, 619_000_000), records.get(3).getTimestamp());
+    }
+
+    @Test
+    void read_lineLongerThanWindow_parseException() throws IOException {
+        Path file = write("Konstantynow Lodzki Gmina Miejska;2018-09-19 05:17:32.619;1.00\n"
+                + "Opole;2018-09-19 05:17:32.619;2.00\nOpole;2018-09-19 05:17:32.619;3.00\n");
+        MappedTemperatureItemReader reader = reader(file, 0, Files.size(file));
+        reader.open(new ExecutionContext());
+
+        FlatFileParseException exception = assertThrows(FlatFileParseException.class, reader::read);
+
+        reader.close();
+        assertEquals(1, exception.getLineNumber());
+    }
+
+    @Test
+    void read_crlfLineEndings_carriageReturnsSkipped() throws IOException {
+        Path file = write("Opole;2018-09-19 05:17:32.619;1.00\r\nOpole;2018-09-19 05:17:32.619;2.00\r\n\r\n"
+                + "Opole;2018-09-19 05:17:32.619;3.00\r\n");
+
+        List<TemperatureRecord> records = readAll(reader(file, 0, Files.size(file)), new ExecutionContext());
+
+        assertEquals(List.of(1.0, 2.0, 3.0), temperatures(records));
+    }
+
+    @Test
+    void read_lastLineWithoutNewline_read() throws IOException {
+        Path file = write("Opole;2018-09-19 05:17:32.619;1.00\nOpole;2018-09-19 05:17:32.619;2.00");
+
+        List<TemperatureRecord> records = readAll(reader(file, 0, Files.size(file)), new ExecutionContext());
+
+        assertEquals(List.of(1.0, 2.0), temperatures(records));
+    }
+
+    @Test
+    void read_subRange_onlyLinesOfRange() throws IOException {
+        Path file = write("Opole;2018-09-19 05:17:32.619;1.00\nOpole;2018-09-19 05:17:32.619;2.00\n"
+                + "Opole;2018-09-19 05:17:32.619;3.00\nOpole;2018-09-19 05:17:32.619;4.00\n");
+
+        List<TemperatureRecord> records = readAll(reader(file, 35, 105), new ExecutionContext());
+
+        assertEquals(List.of(2.0, 3.0), temperatures(records));
+    }
+
+    @Test
+    void open_savedOffset_continuesFromNextLine() throws IOException {
+        Path file = write("Opole;2018-09-19 05:17:32.619;1.00\nOpole;2018-09-19 05:17:32.619;2.00\n"
+                + "Opole;2018-09-19 05:17:32.619;3.00\nOpole;2018-09-19 05:17:32.619;4.00\n");
+        ExecutionContext context = new ExecutionContext();
+        MappedTemperatureItemReader reader = reader(file, 0, Files.size(file));
+        reader.open(context);
+        reader.read();
+        reader.read();
+        reader.update(context);
+        reader.close();
+
+        assertEquals(70, context.getLong("temperatureItemReader.offset"));
+
+        List<TemperatureRecord> records = readAll(reader(file, 0, Files.size(file)), context);
+
+        assertEquals(List.of(3.0, 4.0), temperatures(records));
+    }
+
+    @Test
+    void read_malformedTimestamp_parseException() throws IOException {
+        Path file = write("Opole;2018-09-19 05:17:32.619;1.00\nOpole;2018-09-19T05:17;2.00\n");
+        MappedTemperatureItemReader reader = reader(file, 0, Files.size(file));
+        reader.open(new ExecutionContext());
+        reader.read();
+
+        FlatFileParseException exception = assertThrows(FlatFileParseException.class, reader::read);
+
+        reader.close();
+        assertEquals(2, exception.getLineNumber());
+        assertEquals("Opole;2018-09-19T05:17;2.00", exception.getInput());
+    }
+
+    @Test
+    void read_citiesOfSameLength_eachNameDecoded() throws IOException {
+        Path file = write("Opole;2018-09-19 05:17:32.619;1.00\nTczew;2018-09-19 05:17:32.619;2.00\n"
+                + "Tczew;2018-09-19 05:17:32.619;3.00\nOpole;2018-09-19 05:17:32.619;4.00\n");
+
+        List<TemperatureRecord> records = readAll(reader(file, 0, Files.size(file)), new ExecutionContext());
+
+        List<String> cities = new ArrayList<>();
+        records.forEach(record -> cities.add(record.getCity()));
+        assertEquals(List.of("Opole", "Tczew", "Tczew", "Opole"), cities);
+    }
+
+    private Path write(String contents) throws IOException {
+        return Files.writeString(tempDir.resolve("temperatures.csv"), contents);
+    }
+
+    private static MappedTemperatureItemReader reader(Path file, long start, long end) {
+        MappedTemperatureItemReader reader = new MappedTemperatureItemReader(file, start, end, WINDOW_SIZE,
+                TemperatureRecord::new);
+        reader.setName("temperatureItemReader");
+        return reader;
+    }
+
+    private static List<TemperatureRecord> readAll(MappedTemperatureItemReader reader, ExecutionContext context) {
+        reader.open(context);
+        List<TemperatureRecord> records = new ArrayList<>();
+        for (TemperatureRecord record = reader.read(); record != null; record = reader.read()) {
+            records.add(record);
+        }
+        assertNull(reader.read());
+        reader.close();
+        return records;
+    }
+
+    private static List<Double> temperatures(List<TemperatureRecord> records) {
+        List<Double> temperatures = new ArrayList<>();
+        records.forEach(record -> temperatures.add(record.getTemperature()));
+        return temperatures;
+    }
+}
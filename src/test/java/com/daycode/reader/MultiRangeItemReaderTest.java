@@ -0,0 +1,63 @@
+package com.daycode.reader;
+
+import com.daycode.model.FileRange;
+import com.daycode.model.TemperatureRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MultiRangeItemReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void read_restartedInSecondRange_resumesAfterLastSavedRecord() throws Exception {
+        Path first = Files.writeString(tempDir.resolve("a.csv"),
+                "Opole;2018-09-19 05:17:32.619;1.00\nOpole;2018-09-19 05:17:32.619;2.00\n");
+        Path second = Files.writeString(tempDir.resolve("b.csv"),
+                "Opole;2018-09-19 05:17:32.619;3.00\nOpole;2018-09-19 05:17:32.619;4.00\n"
+                        + "Opole;2018-09-19 05:17:32.619;5.00\n");
+        List<FileRange> ranges = List.of(new FileRange(first, 0, Files.size(first)),
+                new FileRange(second, 0, Files.size(second)));
+        List<Double> temperatures = new ArrayList<>();
+        ExecutionContext context = new ExecutionContext();
+
+        MultiRangeItemReader<TemperatureRecord> reader = reader(ranges);
+        reader.open(context);
+        for (int i = 0; i < 3; i++) {
+            temperatures.add(reader.read().getTemperature());
+        }
+        reader.update(context);
+        reader.read();
+        reader.close();
+
+        MultiRangeItemReader<TemperatureRecord> restarted = reader(ranges);
+        restarted.open(context);
+        for (TemperatureRecord record = restarted.read(); record != null; record = restarted.read()) {
+            temperatures.add(record.getTemperature());
+        }
+        restarted.close();
+
+        assertEquals(List.of(1.0, 2.0, 3.0, 4.0, 5.0), temperatures);
+    }
+
+    private static MultiRangeItemReader<TemperatureRecord> reader(List<FileRange> ranges) {
+        MultiRangeItemReader<TemperatureRecord> reader = new MultiRangeItemReader<>(ranges, range -> {
+            MappedTemperatureItemReader rangeReader = new MappedTemperatureItemReader(range.getPath(),
+                    range.getStartOffset(), range.getEndOffset(), TemperatureRecord::new);
+            rangeReader.setName("temperatureItemReader");
+            return rangeReader;
+        });
+        reader.setName("temperatureFilesReader");
+        return reader;
+    }
+}
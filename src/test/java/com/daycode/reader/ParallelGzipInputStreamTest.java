@@ -0,0 +1,131 @@
+package com.daycode.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelGzipInputStreamTest {
+
+    private static final String LINE = "Warszawa;2018-09-19 05:17:32.619;9.97\n";
+    private static final int TRAILER_CRC_OFFSET = 8;
+
+    @TempDir
+    Path tempDir;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @Test
+    void read_bgzfBlocks_linesSplitAcrossBlocksRestored() throws IOException {
+        String text = LINE.repeat(1000);
+        Path file = Files.write(tempDir.resolve("data.csv.gz"), bgzf(text, 100));
+
+        assertEquals(text, readAll(file, 0, Long.MAX_VALUE));
+    }
+
+    @Test
+    void read_plainGzipMembers_decompressedSequentially() throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        content.write(gzip(LINE + LINE));
+        content.write(gzip("Opole" + LINE.substring(8)));
+        Path file = Files.write(tempDir.resolve("data.csv.gz"), content.toByteArray());
+
+        assertEquals(LINE + LINE + "Opole" + LINE.substring(8), readAll(file, 0, Long.MAX_VALUE));
+    }
+
+    @Test
+    void read_bgzfFollowedByPlainMember_bothDecompressed() throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        content.write(bgzf(LINE.repeat(10), 64));
+        content.write(gzip(LINE));
+        Path file = Files.write(tempDir.resolve("data.csv.gz"), content.toByteArray());
+
+        assertEquals(LINE.repeat(11), readAll(file, 0, Long.MAX_VALUE));
+    }
+
+    @Test
+    void read_rangeOfAppendedMember_onlyNewContent() throws IOException {
+        byte[] first = bgzf(LINE, 64);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        content.write(first);
+        content.write(bgzf("Opole" + LINE.substring(8), 64));
+        Path file = Files.write(tempDir.resolve("data.csv.gz"), content.toByteArray());
+
+        assertEquals("Opole" + LINE.substring(8), readAll(file, first.length, Files.size(file)));
+    }
+
+    @Test
+    void read_corruptedBlock_ioException() throws IOException {
+        byte[] content = bgzf(LINE.repeat(10), 1000);
+        content[content.length - TRAILER_CRC_OFFSET] ^= 1;
+        Path file = Files.write(tempDir.resolve("data.csv.gz"), content);
+
+        assertThrows(IOException.class, () -> readAll(file, 0, Long.MAX_VALUE));
+    }
+
+    @Test
+    void isGzip_extension() {
+        assertTrue(ParallelGzipInputStream.isGzip(Path.of("data.CSV.GZ")));
+        assertFalse(ParallelGzipInputStream.isGzip(Path.of("data.csv")));
+    }
+
+    private String readAll(Path file, long start, long end) throws IOException {
+        try (InputStream in = new ParallelGzipInputStream(file, start, end, executor, 3)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Compresses text into BGZF blocks holding at most given number of uncompressed bytes each.
+     */
+    private static byte[] bgzf(String text, int blockLength) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int offset = 0; offset < bytes.length; offset += blockLength) {
+            int length = Math.min(blockLength, bytes.length - offset);
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            deflater.setInput(bytes, offset, length);
+            deflater.finish();
+            byte[] compressed = new byte[length + 64];
+            int compressedLength = deflater.deflate(compressed);
+            deflater.end();
+            CRC32 crc = new CRC32();
+            crc.update(bytes, offset, length);
+            ByteBuffer block = ByteBuffer.allocate(18 + compressedLength + 8).order(ByteOrder.LITTLE_ENDIAN);
+            block.put((byte) 0x1F).put((byte) 0x8B).put((byte) 8).put((byte) 4).putInt(0).put((byte) 0).put((byte) 0xFF)
+                    .putShort((short) 6).put((byte) 'B').put((byte) 'C').putShort((short) 2)
+                    .putShort((short) (block.capacity() - 1))
+                    .put(compressed, 0, compressedLength)
+                    .putInt((int) crc.getValue()).putInt(length);
+            out.writeBytes(block.array());
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,56 @@
+package com.daycode.reader;
+
+import com.daycode.model.TemperatureRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RereadingItemReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void read_restartedAfterUpdate_readsWholeRangeAgain() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("a.csv"),
+                "Opole;2018-09-19 05:17:32.619;1.00\nOpole;2018-09-19 05:17:32.619;2.00\n"
+                        + "Opole;2018-09-19 05:17:32.619;3.00\n");
+        ExecutionContext context = new ExecutionContext();
+
+        RereadingItemReader<TemperatureRecord> reader = reader(file);
+        reader.open(context);
+        reader.read();
+        reader.read();
+        reader.update(context);
+        reader.close();
+
+        assertTrue(context.isEmpty());
+
+        context.putLong("temperatureItemReader.offset", 36);
+        RereadingItemReader<TemperatureRecord> restarted = reader(file);
+        restarted.open(context);
+        List<Double> temperatures = new ArrayList<>();
+        for (TemperatureRecord record = restarted.read(); record != null; record = restarted.read()) {
+            temperatures.add(record.getTemperature());
+        }
+        restarted.close();
+
+        assertEquals(List.of(1.0, 2.0, 3.0), temperatures);
+    }
+
+    private static RereadingItemReader<TemperatureRecord> reader(Path file) throws IOException {
+        MappedTemperatureItemReader reader = new MappedTemperatureItemReader(file, 0, Files.size(file),
+                TemperatureRecord::new);
+        reader.setName("temperatureItemReader");
+        return new RereadingItemReader<>(reader);
+    }
+}
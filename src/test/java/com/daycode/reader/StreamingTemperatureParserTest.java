@@ -0,0 +1,79 @@
+package com.daycode.reader;
+
+import com.daycode.model.TemperatureRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.file.FlatFileParseException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingTemperatureParserTest {
+
+    private static final String CONTENT = "Wrocław;2021-01-01 10:00:00.000;10.5\r\n"
+            + "Wrocław;2021-01-02 10:00:00.000;-1.25\n"
+            + "\n"
+            + "Kraków;2022-05-01 10:00:00.000;20\n"
+            + "Kraków;2022-05-02 10:00:00.000;21.5";
+
+    @Test
+    void parse_linesSplitBetweenBuffers_allRecordsParsed() {
+        byte[] bytes = CONTENT.getBytes(StandardCharsets.UTF_8);
+        for (int size = 1; size <= bytes.length; size++) {
+            StreamingTemperatureParser parser = new StreamingTemperatureParser("test");
+            List<String> parsed = new ArrayList<>();
+            for (int start = 0; start < bytes.length; start += size) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, start, Math.min(size, bytes.length - start));
+                parser.parse(buffer).forEach(record -> parsed.add(describe(record)));
+            }
+            parser.finish().forEach(record -> parsed.add(describe(record)));
+
+            assertEquals(List.of("Wrocław 2021 1050", "Wrocław 2021 -125", "Kraków 2022 2000", "Kraków 2022 2150"),
+                    parsed, "buffer size " + size);
+        }
+    }
+
+    @Test
+    void parse_contentEndingWithSeparator_nothingLeftForFinish() {
+        StreamingTemperatureParser parser = new StreamingTemperatureParser("test");
+
+        assertEquals(1, parser.parse(buffer("Wrocław;2021-01-01 10:00:00.000;10.5\n")).size());
+        assertTrue(parser.finish().isEmpty());
+        assertEquals(1, parser.getLineNumber());
+    }
+
+    @Test
+    void parse_malformedLine_parseExceptionWithLineNumber() {
+        StreamingTemperatureParser parser = new StreamingTemperatureParser("test");
+        parser.parse(buffer("Wrocław;2021-01-01 10:00:00.000;10.5\nWrocław;2021-01-01"));
+
+        FlatFileParseException exception = assertThrows(FlatFileParseException.class,
+                () -> parser.parse(buffer(" 10:00:00.000;abc\n")));
+
+        assertEquals(2, exception.getLineNumber());
+    }
+
+    @Test
+    void parse_lineWithoutSeparator_rejectedWhenTooLong() {
+        StreamingTemperatureParser parser = new StreamingTemperatureParser("test");
+        ByteBuffer chunk = ByteBuffer.allocate(StreamingTemperatureParser.MAX_LINE_LENGTH / 2);
+
+        parser.parse(chunk.duplicate());
+        parser.parse(chunk.duplicate());
+
+        assertThrows(FlatFileParseException.class, () -> parser.parse(chunk.duplicate()));
+    }
+
+    private static ByteBuffer buffer(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String describe(TemperatureRecord record) {
+        return record.getCity() + " " + record.getYear() + " " + record.getTemperatureHundredths();
+    }
+}
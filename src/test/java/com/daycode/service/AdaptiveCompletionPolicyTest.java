@@ -0,0 +1,71 @@
+package com.daycode.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.repeat.RepeatContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveCompletionPolicyTest {
+
+    @Test
+    void isComplete_afterChunkSizeItems() {
+        AdaptiveCompletionPolicy policy = new AdaptiveCompletionPolicy(20, 1000, 100);
+
+        RepeatContext context = policy.start(null);
+        for (int i = 0; i < 19; i++) {
+            policy.update(context);
+        }
+        assertFalse(policy.isComplete(context));
+        policy.update(context);
+
+        assertTrue(policy.isComplete(context));
+    }
+
+    @Test
+    void afterChunk_fasterThanTarget_chunkSizeGrowsUpToMax() {
+        AdaptiveCompletionPolicy policy = new AdaptiveCompletionPolicy(20, 1000, 60_000);
+
+        for (int chunk = 0; chunk < 10; chunk++) {
+            runChunk(policy, 0);
+        }
+
+        assertEquals(1000, policy.getChunkSize());
+    }
+
+    @Test
+    void afterChunk_slowerThanTarget_chunkSizeShrinks() {
+        AdaptiveCompletionPolicy policy = new AdaptiveCompletionPolicy(100, 1000, 1);
+
+        runChunk(policy, 20);
+
+        assertTrue(policy.getChunkSize() <= 25, "Chunk size " + policy.getChunkSize());
+    }
+
+    @Test
+    void afterChunkError_chunkSizeKept() {
+        AdaptiveCompletionPolicy policy = new AdaptiveCompletionPolicy(100, 1000, 1);
+
+        policy.beforeChunk(null);
+        RepeatContext context = policy.start(null);
+        policy.update(context);
+        policy.afterChunkError(null);
+
+        assertEquals(100, policy.getChunkSize());
+    }
+
+    private static void runChunk(AdaptiveCompletionPolicy policy, long millis) {
+        policy.beforeChunk(null);
+        RepeatContext context = policy.start(null);
+        while (!policy.isComplete(context)) {
+            policy.update(context);
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        policy.afterChunk(null);
+    }
+}
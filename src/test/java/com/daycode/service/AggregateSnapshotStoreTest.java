@@ -0,0 +1,97 @@
+package com.daycode.service;
+
+import com.daycode.model.BatchProperties;
+import com.daycode.model.IngestionRange;
+import com.daycode.model.TemperatureRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AggregateSnapshotStoreTest {
+
+    private static final String LINE = "Warszawa;2018-09-19 05:17:32.619;9.97\n";
+
+    @TempDir
+    Path tempDir;
+
+    private BatchProperties batchProperties;
+    private Path source;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        batchProperties = new BatchProperties();
+        batchProperties.setSnapshotPath(tempDir.resolve("aggregates.snapshot").toString());
+        source = Files.writeString(tempDir.resolve("data.csv"), LINE + LINE);
+    }
+
+    @Test
+    void load_unchangedSource_aggregatesRestored() throws IOException {
+        saveSampleAggregates();
+        Files.writeString(source, LINE, StandardOpenOption.APPEND);
+        TemperatureService temperatureService = new TemperatureService();
+        IngestionTracker ingestionTracker = new IngestionTracker();
+
+        boolean restored = new AggregateSnapshotStore(batchProperties, temperatureService, ingestionTracker).load(source);
+
+        assertTrue(restored);
+        assertEquals(15.0, temperatureService.getYearlyAverageTemperatures("warszawa").get(2018));
+        assertEquals(20.0, temperatureService.getYearlyPercentiles("warszawa", new double[]{100}).get(2018)[0], 0.2);
+        assertEquals(1, temperatureService.getGeneration());
+        IngestionRange range = ingestionTracker.plan(source, true);
+        assertEquals(2L * LINE.length(), range.getStartOffset());
+        assertEquals(3L * LINE.length(), range.getEndOffset());
+    }
+
+    @Test
+    void load_changedSource_stale() throws IOException {
+        saveSampleAggregates();
+        Files.writeString(source, LINE.replace("9.97", "9.98") + LINE);
+        TemperatureService temperatureService = new TemperatureService();
+
+        boolean restored = new AggregateSnapshotStore(batchProperties, temperatureService, new IngestionTracker())
+                .load(source);
+
+        assertFalse(restored);
+        assertTrue(temperatureService.getYearlyAverageTemperatures("warszawa").isEmpty());
+    }
+
+    @Test
+    void load_missingOrInvalidSnapshot_notRestored() throws IOException {
+        TemperatureService temperatureService = new TemperatureService();
+        AggregateSnapshotStore store = new AggregateSnapshotStore(batchProperties, temperatureService,
+                new IngestionTracker());
+
+        assertFalse(store.load(source));
+
+        Files.writeString(Path.of(batchProperties.getSnapshotPath()), "not a snapshot");
+
+        assertFalse(store.load(source));
+    }
+
+    private void saveSampleAggregates() {
+        TemperatureService temperatureService = new TemperatureService();
+        TemperatureRecord record1 = new TemperatureRecord();
+        record1.setCity("Warszawa");
+        record1.setTimestamp(LocalDateTime.of(2018, 1, 1, 0, 0));
+        record1.setTemperature(10.0);
+        TemperatureRecord record2 = new TemperatureRecord();
+        record2.setCity("Warszawa");
+        record2.setTimestamp(LocalDateTime.of(2018, 2, 1, 0, 0));
+        record2.setTemperature(20.0);
+        temperatureService.processTemperatureRecords(List.of(record1, record2));
+        temperatureService.publishAggregates(true);
+        new AggregateSnapshotStore(batchProperties, temperatureService, new IngestionTracker())
+                .save(source, 2L * LINE.length());
+    }
+}
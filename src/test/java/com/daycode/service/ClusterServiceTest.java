@@ -0,0 +1,196 @@
+package com.daycode.service;
+
+import com.daycode.aggregate.AggregateSnapshotFile;
+import com.daycode.aggregate.RollupCube;
+import com.daycode.model.ClusterProperties;
+import com.daycode.model.ClusterRound;
+import com.daycode.model.TemperatureRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterServiceTest {
+
+    private static final List<String> PEERS = List.of("http://shard0", "http://shard1");
+
+    @Test
+    void owner_manyCities_evenlySpread() {
+        int[] counts = new int[3];
+        for (int i = 0; i < 30_000; i++) {
+            counts[ClusterService.owner("station " + i, counts.length)]++;
+        }
+
+        for (int count : counts) {
+            assertTrue(count > 9_000 && count < 11_000, "Unbalanced shard with " + count + " cities.");
+        }
+        assertEquals(ClusterService.owner("warszawa", 3), ClusterService.owner("warszawa", 3));
+        assertEquals(0, ClusterService.owner("warszawa", 1));
+    }
+
+    @Test
+    void owns_withoutPeers_allCities() {
+        ClusterService clusterService = new ClusterService(new ClusterProperties(), new TemperatureService(),
+                WebClient.create());
+
+        assertFalse(clusterService.isClustered());
+        assertTrue(clusterService.owns("warszawa"));
+        assertTrue(clusterService.owns("station 17"));
+    }
+
+    @Test
+    void distribute_twoInstances_ownersPublishAllDataOfTheirCities() {
+        TemperatureService[] services = {new TemperatureService(), new TemperatureService()};
+        ClusterService[] instances = new ClusterService[2];
+        for (int shard = 0; shard < instances.length; shard++) {
+            ClusterProperties properties = new ClusterProperties(PEERS, shard, 5, 60);
+            instances[shard] = new ClusterService(properties, services[shard], routingClient(instances));
+        }
+        List<String> cities = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            cities.add("station " + i);
+        }
+
+        services[0].beginBuild(1, false);
+        services[0].processTemperatureRecords(records(cities, 2020, 10.0));
+        services[1].beginBuild(1, false);
+        services[1].processTemperatureRecords(records(cities, 2020, 20.0));
+        services[1].processTemperatureRecords(records(cities.subList(0, 5), 2021, 5.0));
+        instances[0].distribute(7, services[0].takeAggregates());
+        assertEquals(0, services[0].getGeneration());
+        instances[1].distribute(7, services[1].takeAggregates());
+
+        for (String city : cities) {
+            int owner = instances[0].owner(city);
+            Map<Integer, Double> averages = services[owner].getYearlyAverageTemperatures(city);
+            assertEquals(15.0, averages.get(2020), city);
+            assertEquals(cities.indexOf(city) < 5 ? 5.0 : null, averages.get(2021), city);
+            assertTrue(services[1 - owner].getYearlyAverageTemperatures(city).isEmpty(), city);
+        }
+        assertEquals(1, services[0].getGeneration());
+        assertEquals(1, services[1].getGeneration());
+    }
+
+    @Test
+    void receive_repeatedAndOlderRounds_ignored() {
+        TemperatureService temperatureService = new TemperatureService();
+        ClusterService clusterService = new ClusterService(new ClusterProperties(PEERS, 0, 5, 60), temperatureService,
+                WebClient.create());
+
+        assertFalse(clusterService.receive(2, 1, part(temperatureService, "opole", 10.0)));
+        assertFalse(clusterService.receive(2, 1, part(temperatureService, "opole", 30.0)));
+        assertFalse(clusterService.receive(1, 0, part(temperatureService, "opole", 30.0)));
+        assertTrue(clusterService.receive(2, 0, part(temperatureService, "opole", 20.0)));
+
+        assertEquals(15.0, temperatureService.getYearlyAverageTemperatures("opole").get(2020), 1e-9);
+        assertFalse(clusterService.receive(2, 0, part(temperatureService, "opole", 40.0)));
+        assertEquals(1, temperatureService.getGeneration());
+    }
+
+    @Test
+    void receive_shardOutsideCluster_rejected() {
+        TemperatureService temperatureService = new TemperatureService();
+        ClusterService clusterService = new ClusterService(new ClusterProperties(PEERS, 0, 5, 60), temperatureService,
+                WebClient.create());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> clusterService.receive(2, 5, part(temperatureService, "opole", 10.0)));
+        assertThrows(IllegalArgumentException.class,
+                () -> clusterService.receive(2, -1, part(temperatureService, "opole", 10.0)));
+        assertFalse(clusterService.receive(2, 1, part(temperatureService, "opole", 10.0)));
+        assertEquals(List.of(1), clusterService.getRound().getReceivedShards());
+        assertEquals(0, temperatureService.getGeneration());
+    }
+
+    @Test
+    void expire_incompleteRound_abandonedAndReported() {
+        TemperatureService temperatureService = new TemperatureService();
+        ClusterService clusterService = new ClusterService(new ClusterProperties(PEERS, 0, 5, 60), temperatureService,
+                WebClient.create());
+
+        assertFalse(clusterService.receive(3, 1, part(temperatureService, "opole", 10.0)));
+        clusterService.expire(3);
+
+        ClusterRound round = clusterService.getRound();
+        assertEquals(3, round.getRound());
+        assertEquals(List.of(1), round.getReceivedShards());
+        assertEquals(List.of(0), round.getMissingShards());
+        assertTrue(round.isTimedOut());
+        assertFalse(clusterService.receive(3, 0, part(temperatureService, "opole", 20.0)));
+        assertEquals(0, temperatureService.getGeneration());
+
+        assertFalse(clusterService.receive(4, 1, part(temperatureService, "opole", 10.0)));
+        assertTrue(clusterService.receive(4, 0, part(temperatureService, "opole", 20.0)));
+        clusterService.expire(4);
+
+        assertTrue(clusterService.getRound().isComplete());
+        assertFalse(clusterService.getRound().isTimedOut());
+        assertEquals(1, temperatureService.getGeneration());
+    }
+
+    private static AggregateSnapshotFile.Contents part(TemperatureService temperatureService, String city,
+                                                       double temperature) {
+        RollupCube rollup = new RollupCube(temperatureService.getSketchSettings());
+        rollup.add(0, LocalDateTime.of(2020, 6, 1, 12, 0).toInstant(ZoneOffset.UTC).toEpochMilli(),
+                (int) Math.round(temperature * 100));
+        return new AggregateSnapshotFile.Contents("part", null, new String[]{city}, rollup);
+    }
+
+    private static List<TemperatureRecord> records(List<String> cities, int year, double temperature) {
+        List<TemperatureRecord> records = new ArrayList<>();
+        for (String city : cities) {
+            TemperatureRecord record = new TemperatureRecord();
+            record.setCity(city);
+            record.setTimestamp(LocalDateTime.of(year, 3, 1, 12, 0));
+            record.setTemperature(temperature);
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Client delivering aggregates sent to peer directly to its instance, as its controller would.
+     */
+    private static WebClient routingClient(ClusterService[] instances) {
+        return WebClient.builder()
+                .exchangeFunction(request -> {
+                    MockClientHttpRequest sent = new MockClientHttpRequest(request.method(), request.url());
+                    return request.writeTo(sent, ExchangeStrategies.withDefaults())
+                            .then(Mono.defer(() -> DataBufferUtils.join(sent.getBody())))
+                            .map(buffer -> {
+                                byte[] body = new byte[buffer.readableByteCount()];
+                                buffer.read(body);
+                                DataBufferUtils.release(buffer);
+                                return body;
+                            })
+                            .flatMap(body -> Mono.fromCallable(() -> {
+                                MultiValueMap<String, String> query = UriComponentsBuilder.fromUri(request.url())
+                                        .build().getQueryParams();
+                                int shard = PEERS.indexOf("http://" + request.url().getHost());
+                                instances[shard].receive(Long.parseLong(query.getFirst("round")),
+                                        Integer.parseInt(query.getFirst("from")),
+                                        AggregateSnapshotFile.read(new ByteArrayInputStream(body), "request"));
+                                return ClientResponse.create(HttpStatus.OK).build();
+                            }));
+                })
+                .build();
+    }
+}
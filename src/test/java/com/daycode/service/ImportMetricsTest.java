@@ -0,0 +1,38 @@
+package com.daycode.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ImportMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ImportMetrics importMetrics = new ImportMetrics(registry);
+
+    @Test
+    void bytesReadAndFallbackLines_counted() {
+        importMetrics.bytesRead(4096);
+        importMetrics.bytesRead(100);
+        importMetrics.fallbackLine();
+
+        assertEquals(4196, registry.get("temperature.import.bytes").counter().count());
+        assertEquals(1, registry.get("temperature.import.lines.fallback").counter().count());
+    }
+
+    @Test
+    void chunkWritten_timedAndRecordsCountedPerThread() throws InterruptedException {
+        importMetrics.chunkWritten(1000, TimeUnit.MILLISECONDS.toNanos(5));
+        Thread writer = new Thread(() -> importMetrics.chunkWritten(10, TimeUnit.MILLISECONDS.toNanos(1)), "writer-1");
+        writer.start();
+        writer.join();
+
+        assertEquals(2, registry.get("temperature.import.chunk.write").timer().count());
+        assertEquals(6, registry.get("temperature.import.chunk.write").timer().totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(10, registry.get("temperature.import.records").tag("thread", "writer-1").counter().count());
+        assertEquals(1000, registry.get("temperature.import.records")
+                .tag("thread", Thread.currentThread().getName()).counter().count());
+    }
+}
@@ -0,0 +1,163 @@
+package com.daycode.service;
+
+import com.daycode.model.FileRange;
+import com.daycode.model.IngestionRange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestionTrackerTest {
+
+    private static final String LINE = "Warszawa;2018-09-19 05:17:32.619;9.97\n";
+
+    @TempDir
+    Path tempDir;
+
+    private final IngestionTracker ingestionTracker = new IngestionTracker();
+
+    @Test
+    void plan_appendedFile_rangeOfNewLines() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("data.csv"), LINE + LINE);
+        ingestionTracker.ingested(file, Files.size(file));
+        Files.writeString(file, LINE + "Opole;2018", StandardOpenOption.APPEND);
+
+        IngestionRange range = ingestionTracker.plan(file, true);
+
+        assertEquals(2L * LINE.length(), range.getStartOffset());
+        assertEquals(3L * LINE.length(), range.getEndOffset());
+    }
+
+    @Test
+    void plan_changedPrefix_fullRebuild() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("data.csv"), LINE + LINE);
+        ingestionTracker.ingested(file, Files.size(file));
+        Files.writeString(file, LINE.replace("9.97", "9.98") + LINE + LINE);
+
+        IngestionRange range = ingestionTracker.plan(file, true);
+
+        assertTrue(range.isFullRebuild());
+        assertEquals(3L * LINE.length(), range.getEndOffset());
+    }
+
+    @Test
+    void plan_sameLengthEditInTheMiddle_fullRebuild() throws IOException {
+        String lines = LINE.repeat(10_000);
+        Path file = Files.writeString(tempDir.resolve("data.csv"), lines);
+        ingestionTracker.ingested(file, Files.size(file));
+        int middle = lines.length() / 2;
+        Files.writeString(file, lines.substring(0, middle - 100_000)
+                + lines.substring(middle - 100_000, middle + 100_000).replace("9.97", "9.98")
+                + lines.substring(middle + 100_000));
+
+        IngestionRange range = ingestionTracker.plan(file, true);
+
+        assertTrue(range.isFullRebuild());
+    }
+
+    @Test
+    void plan_notIncrementalOrReset_fullRebuild() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("data.csv"), LINE);
+        ingestionTracker.ingested(file, Files.size(file));
+
+        assertTrue(ingestionTracker.plan(file, false).isFullRebuild());
+
+        ingestionTracker.reset();
+
+        assertTrue(ingestionTracker.plan(file, true).isFullRebuild());
+    }
+
+    @Test
+    void plan_missingFile_fullRebuild() {
+        IngestionRange range = ingestionTracker.plan(tempDir.resolve("missing.csv"), true);
+
+        assertTrue(range.isFullRebuild());
+        assertEquals(Long.MAX_VALUE, range.getEndOffset());
+    }
+
+    @Test
+    void plan_directoryWithNewAndAppendedFiles_onlyNewData() throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("data"));
+        Path first = Files.writeString(directory.resolve("a.csv"), LINE);
+        Files.writeString(directory.resolve("b.csv"), LINE + LINE);
+        IngestionRange full = ingestionTracker.plan(directory, true);
+        ingestionTracker.reset();
+        ingestionTracker.ingested(directory, full.getEndOffset());
+        Files.writeString(first, LINE, StandardOpenOption.APPEND);
+        Path added = Files.writeString(directory.resolve("c.csv"), LINE);
+
+        IngestionRange range = ingestionTracker.plan(directory, true);
+
+        assertEquals(3L * LINE.length(), range.getStartOffset());
+        assertEquals(5L * LINE.length(), range.getEndOffset());
+        assertEquals(List.of(new FileRange(first, LINE.length(), 2L * LINE.length()),
+                new FileRange(added, 0, LINE.length())), ingestionTracker.plannedFiles(directory));
+    }
+
+    @Test
+    void plan_ingestedFileRemoved_fullRebuildOfRemainingFiles() throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("data"));
+        Path first = Files.writeString(directory.resolve("a.csv"), LINE);
+        Path second = Files.writeString(directory.resolve("b.csv"), LINE);
+        ingestionTracker.ingested(directory, ingestionTracker.plan(directory, false).getEndOffset());
+        Files.delete(first);
+
+        IngestionRange range = ingestionTracker.plan(directory, true);
+
+        assertTrue(range.isFullRebuild());
+        assertEquals(List.of(new FileRange(second, 0, LINE.length())), ingestionTracker.plannedFiles(directory));
+    }
+
+    @Test
+    void plan_glob_onlyMatchingFiles() throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("data"));
+        Path matching = Files.writeString(directory.resolve("station-1.csv"), LINE + "Opole;2018");
+        Files.writeString(directory.resolve("station-1.txt"), LINE);
+        Files.writeString(directory.resolve(".station-2.csv"), LINE);
+
+        IngestionRange range = ingestionTracker.plan(directory.resolve("*.csv"), false);
+
+        assertEquals(LINE.length(), range.getEndOffset());
+        assertEquals(List.of(new FileRange(matching, 0, LINE.length())),
+                ingestionTracker.plannedFiles(directory.resolve("*.csv")));
+    }
+
+    @Test
+    void planSlice_file_disjointLineAlignedSlices() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("data.csv"), LINE.repeat(10) + "Opole;2018");
+
+        IngestionRange first = ingestionTracker.planSlice(file, 0, 3);
+        IngestionRange second = ingestionTracker.planSlice(file, 1, 3);
+        IngestionRange third = ingestionTracker.planSlice(file, 2, 3);
+
+        assertEquals(0, first.getStartOffset());
+        assertEquals(first.getEndOffset(), second.getStartOffset());
+        assertEquals(second.getEndOffset(), third.getStartOffset());
+        assertEquals(10L * LINE.length(), third.getEndOffset());
+        assertEquals(0, second.getStartOffset() % LINE.length());
+        assertEquals(0, third.getStartOffset() % LINE.length());
+    }
+
+    @Test
+    void planSlice_directory_filesSpreadOverSlices() throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("data"));
+        Path first = Files.writeString(directory.resolve("station-1.csv"), LINE);
+        Path second = Files.writeString(directory.resolve("station-2.csv"), LINE);
+
+        IngestionRange range = ingestionTracker.planSlice(directory, 1, 3);
+        List<FileRange> files = ingestionTracker.plannedFiles(directory);
+
+        assertEquals(1, files.size());
+        assertTrue(files.get(0).getPath().equals(first) || files.get(0).getPath().equals(second));
+        assertEquals(LINE.length(), range.getEndOffset());
+        assertEquals(0, ingestionTracker.planSlice(directory, 2, 3).getEndOffset());
+        assertEquals(List.of(), ingestionTracker.plannedFiles(directory));
+    }
+}
@@ -1,16 +1,28 @@
 package com.daycode.service;
 
+import com.daycode.aggregate.CityDictionary;
+import com.daycode.aggregate.RollupCube;
+import com.daycode.aggregate.TemperatureSnapshot;
+import com.daycode.model.Granularity;
+import com.daycode.model.Metric;
 import com.daycode.model.TemperatureRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TemperatureServiceTest {
@@ -56,12 +68,51 @@ class TemperatureServiceTest {
         record2.setTemperature(15.0);
 
         temperatureService.processTemperatureRecords(List.of(record1, record2));
+        temperatureService.publishAggregates(false);
 
         var result = temperatureService.getYearlyAverageTemperatures(sampleCity.toLowerCase().trim());
 
         assertEquals(15.0, result.get(2021));
     }
 
+    @Test
+    void testProcessTemperatureRecords_notPublished_notVisible() {
+        TemperatureRecord record = new TemperatureRecord();
+        record.setCity("SampleCity");
+        record.setTimestamp(LocalDateTime.of(2021, 1, 1, 0, 0));
+        record.setTemperature(15.0);
+
+        temperatureService.processTemperatureRecords(List.of(record));
+
+        assertTrue(temperatureService.getYearlyAverageTemperatures("samplecity").isEmpty());
+    }
+
+    @Test
+    void testProcessTemperatureRecords_multipleThreads_allMerged() throws Exception {
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                for (int chunk = 0; chunk < 100; chunk++) {
+                    TemperatureRecord record = new TemperatureRecord();
+                    record.setCity("SampleCity");
+                    record.setTimestamp(LocalDateTime.of(2021, 1, 1, 0, 0));
+                    record.setTemperature(chunk % 2 == 0 ? 10.0 : 20.0);
+                    temperatureService.processTemperatureRecords(List.of(record, record));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        temperatureService.publishAggregates(false);
+
+        assertEquals(15.0, temperatureService.getYearlyAverageTemperatures("samplecity").get(2021));
+    }
+
     @Test
     void testProcessTemperatureRecords_emptyInput_emptyOutput() {
         String sampleCity = "SampleCity";
@@ -70,6 +121,7 @@ class TemperatureServiceTest {
         TemperatureRecord record2 = new TemperatureRecord();
 
         temperatureService.processTemperatureRecords(List.of(record1, record2));
+        temperatureService.publishAggregates(false);
 
         var result = temperatureService.getYearlyAverageTemperatures(sampleCity.toLowerCase().trim());
 
@@ -77,8 +129,258 @@ class TemperatureServiceTest {
     }
 
     @Test
-    void clearCache() {
-        temperatureService.clearCache();
+    void testPublishAggregates_replace_previousSnapshotReplaced() {
+        initServiceWithSampleData("samplecity");
+        TemperatureRecord record = new TemperatureRecord();
+        record.setCity("OtherCity");
+        record.setTimestamp(LocalDateTime.of(2021, 1, 1, 0, 0));
+        record.setTemperature(10.0);
+
+        temperatureService.beginBuild(1L, true);
+        temperatureService.processTemperatureRecords(List.of(record));
+        temperatureService.collectAggregates();
+
+        assertEquals(15.0, temperatureService.getYearlyAverageTemperatures("samplecity").get(2021));
+        assertEquals(0, temperatureService.getGeneration());
+
+        temperatureService.publishAggregates(true);
+
+        assertTrue(temperatureService.getYearlyAverageTemperatures("samplecity").isEmpty());
+        assertEquals(10.0, temperatureService.getYearlyAverageTemperatures("othercity").get(2021));
+        assertEquals(1, temperatureService.getGeneration());
+    }
+
+    @Test
+    void testBeginBuild_restartOfSameJob_pendingKept() {
+        TemperatureRecord record = new TemperatureRecord();
+        record.setCity("SampleCity");
+        record.setTimestamp(LocalDateTime.of(2021, 1, 1, 0, 0));
+        record.setTemperature(10.0);
+
+        temperatureService.beginBuild(1L, true);
+        temperatureService.processTemperatureRecords(List.of(record));
+        temperatureService.collectAggregates();
+        temperatureService.beginBuild(1L, true);
+        record.setTemperature(20.0);
+        temperatureService.processTemperatureRecords(List.of(record));
+        temperatureService.publishAggregates(true);
+
+        assertEquals(15.0, temperatureService.getYearlyAverageTemperatures("samplecity").get(2021));
+    }
+
+    @Test
+    void testBeginBuild_restartReadingAgain_pendingDiscarded() {
+        TemperatureRecord record = new TemperatureRecord();
+        record.setCity("SampleCity");
+        record.setTimestamp(LocalDateTime.of(2021, 1, 1, 0, 0));
+        record.setTemperature(10.0);
+
+        temperatureService.beginBuild(1L, false);
+        temperatureService.processTemperatureRecords(List.of(record));
+        temperatureService.collectAggregates();
+        temperatureService.beginBuild(1L, false);
+        record.setTemperature(20.0);
+        temperatureService.processTemperatureRecords(List.of(record));
+        temperatureService.publishAggregates(true);
+
+        assertEquals(20.0, temperatureService.getYearlyAverageTemperatures("samplecity").get(2021));
+    }
+
+    @Test
+    void testBeginBuild_otherJob_pendingDiscarded() {
+        TemperatureRecord record = new TemperatureRecord();
+        record.setCity("SampleCity");
+        record.setTimestamp(LocalDateTime.of(2021, 1, 1, 0, 0));
+        record.setTemperature(10.0);
+
+        temperatureService.beginBuild(1L, true);
+        temperatureService.processTemperatureRecords(List.of(record));
+        temperatureService.collectAggregates();
+        temperatureService.beginBuild(2L, true);
+        record.setTemperature(20.0);
+        temperatureService.processTemperatureRecords(List.of(record));
+        temperatureService.publishAggregates(true);
+
+        assertEquals(20.0, temperatureService.getYearlyAverageTemperatures("samplecity").get(2021));
+    }
+
+    @Test
+    void testGetTemperatureStatistics_monthlyMax_valuesPerMonth() {
+        String city = "samplecity";
+        initServiceWithSampleData(city);
+
+        var result = temperatureService.getTemperatureStatistics(city, Granularity.MONTH, Metric.MAX);
+
+        assertEquals(2, result.size());
+        assertEquals(10.0, result.get(202101));
+        assertEquals(20.0, result.get(202102));
+    }
+
+    @Test
+    void testGetTemperatureStatistics_processedRecords_dailyBuckets() {
+        TemperatureRecord record1 = new TemperatureRecord();
+        record1.setCity("SampleCity");
+        record1.setTimestamp(LocalDateTime.of(2021, 3, 31, 23, 59));
+        record1.setTemperature(-5.5);
+        TemperatureRecord record2 = new TemperatureRecord();
+        record2.setCity("SampleCity");
+        record2.setTimestamp(LocalDateTime.of(2021, 4, 1, 0, 0));
+        record2.setTemperature(3.25);
+
+        temperatureService.processTemperatureRecords(List.of(record1, record2, record1));
+        temperatureService.publishAggregates(true);
+
+        var result = temperatureService.getTemperatureStatistics("samplecity", Granularity.DAY, Metric.COUNT);
+
+        assertEquals(2.0, result.get(20210331));
+        assertEquals(1.0, result.get(20210401));
+        assertEquals(-5.5, temperatureService.getTemperatureStatistics("samplecity", Granularity.YEAR, Metric.MIN)
+                .get(2021));
+    }
+
+    @Test
+    void testGetYearlyPercentiles_multipleThreads_sketchesMerged() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 2; thread++) {
+            int first = thread;
+            futures.add(executor.submit(() -> {
+                for (int value = 1 + first; value <= 100; value += 2) {
+                    TemperatureRecord record = new TemperatureRecord();
+                    record.setCity("SampleCity");
+                    record.setTimestamp(LocalDateTime.of(2021, 1, 1, 0, 0));
+                    record.setTemperature(value);
+                    temperatureService.processTemperatureRecords(List.of(record));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        temperatureService.publishAggregates(true);
+
+        double[] result = temperatureService.getYearlyPercentiles("samplecity", new double[]{50, 95, 100}).get(2021);
+
+        assertEquals(50.0, result[0], 0.5);
+        assertEquals(95.0, result[1], 0.95);
+        assertEquals(100.0, result[2], 1.0);
+    }
+
+    @Test
+    void testGetWindowTotals_rangeOfDays_averageOfMeasurementsInside() {
+        initServiceWithSampleData("samplecity");
+
+        var january = temperatureService.getWindowTotals("samplecity", LocalDate.of(2021, 1, 1), LocalDate.of(2021, 1, 31));
+        var all = temperatureService.getWindowTotals("samplecity", LocalDate.of(2020, 1, 1), LocalDate.of(2022, 1, 1));
+
+        assertEquals(1, january.getCount());
+        assertEquals(10.0, january.average());
+        assertEquals(15.0, all.average());
+    }
+
+    @Test
+    void testGetCities_snapshotTakenBeforePublish_citiesOfThatSnapshot() {
+        initServiceWithSampleData("samplecity");
+        TemperatureSnapshot snapshot = temperatureService.getSnapshot();
+        TemperatureRecord record = new TemperatureRecord();
+        record.setCity("Othercity");
+        record.setTimestamp(LocalDateTime.of(2022, 1, 1, 0, 0));
+        record.setTemperature(5.0);
+        temperatureService.processTemperatureRecords(List.of(record));
+        temperatureService.publishAggregates(false);
+
+        assertEquals(List.of("samplecity"), temperatureService.getCities(snapshot).collect(Collectors.toList()));
+        assertEquals(List.of("samplecity", "othercity"),
+                temperatureService.getCities(temperatureService.getSnapshot()).collect(Collectors.toList()));
+        assertEquals(15.0, temperatureService.getYearlyAverageTemperatures(snapshot, "samplecity").get(2021));
+        assertTrue(temperatureService.getYearlyAverageTemperatures(snapshot, "othercity").isEmpty());
+    }
+
+    @Test
+    void testQueries_snapshotTakenBeforePublish_dataOfThatSnapshot() {
+        initServiceWithSampleData("samplecity");
+        TemperatureSnapshot snapshot = temperatureService.getSnapshot();
+        TemperatureRecord record = new TemperatureRecord();
+        record.setCity("Samplecity");
+        record.setTimestamp(LocalDateTime.of(2021, 1, 1, 0, 0));
+        record.setTemperature(40.0);
+        temperatureService.processTemperatureRecords(List.of(record));
+        temperatureService.publishAggregates(false);
+
+        assertEquals(20.0, temperatureService.getTemperatureStatistics(snapshot, "samplecity", Granularity.YEAR,
+                Metric.MAX).get(2021));
+        assertEquals(2, temperatureService.getWindowTotals(snapshot, "samplecity", LocalDate.of(2021, 1, 1),
+                LocalDate.of(2021, 12, 31)).getCount());
+        assertEquals(20.0, temperatureService.getYearlyPercentiles(snapshot, "samplecity", new double[]{100})
+                .get(2021)[0], 0.2);
+        assertEquals(40.0, temperatureService.getTemperatureStatistics("samplecity", Granularity.YEAR, Metric.MAX)
+                .get(2021));
+    }
+
+    @Test
+    void testPublishAggregates_uploadedRollup_addedWithoutPendingImport() {
+        initServiceWithSampleData("samplecity");
+        TemperatureRecord imported = new TemperatureRecord();
+        imported.setCity("Othercity");
+        imported.setTimestamp(LocalDateTime.of(2021, 1, 1, 0, 0));
+        imported.setTemperature(5.0);
+        temperatureService.processTemperatureRecords(List.of(imported));
+        TemperatureRecord uploaded = new TemperatureRecord();
+        uploaded.setCity(" SampleCity");
+        uploaded.setTimestamp(LocalDateTime.of(2021, 3, 1, 0, 0));
+        uploaded.setTemperature(30.0);
+        RollupCube rollup = new RollupCube(temperatureService.getSketchSettings());
+
+        temperatureService.aggregateTemperatureRecords(List.of(uploaded), rollup);
+        long generation = temperatureService.publishAggregates(rollup, false, "upload");
+
+        assertEquals(1, generation);
+        assertEquals(20.0, temperatureService.getYearlyAverageTemperatures("samplecity").get(2021));
+        assertTrue(temperatureService.getYearlyAverageTemperatures("othercity").isEmpty());
+
+        temperatureService.publishAggregates(true);
+
+        assertEquals(5.0, temperatureService.getYearlyAverageTemperatures("othercity").get(2021));
+    }
+
+    @Test
+    void testGetCityVersion_incrementalPublish_onlyChangedCitiesBumped() {
+        initServiceWithSampleData("samplecity");
+        TemperatureRecord record = new TemperatureRecord();
+        record.setCity("Othercity");
+        record.setTimestamp(LocalDateTime.of(2022, 1, 1, 0, 0));
+        record.setTemperature(5.0);
+        temperatureService.processTemperatureRecords(List.of(record));
+        temperatureService.publishAggregates(false);
+        TemperatureSnapshot first = temperatureService.getSnapshot();
+
+        temperatureService.processTemperatureRecords(List.of(record));
+        temperatureService.publishAggregates(false);
+        TemperatureSnapshot second = temperatureService.getSnapshot();
+
+        assertEquals(0, temperatureService.getCityVersion(second, "samplecity"));
+        assertEquals(1, temperatureService.getCityVersion(first, "othercity"));
+        assertEquals(2, temperatureService.getCityVersion(second, "othercity"));
+        assertEquals(0, temperatureService.getCityVersion(second, "unknowncity"));
+    }
+
+    @Test
+    void testGetCityVersion_replacedWithEqualData_versionKept() {
+        TemperatureRecord record = new TemperatureRecord();
+        record.setCity("Samplecity");
+        record.setTimestamp(LocalDateTime.of(2022, 1, 1, 0, 0));
+        record.setTemperature(5.0);
+        temperatureService.processTemperatureRecords(List.of(record));
+        temperatureService.publishAggregates(true);
+        temperatureService.processTemperatureRecords(List.of(record));
+        temperatureService.publishAggregates(true);
+
+        assertEquals(1, temperatureService.getCityVersion(temperatureService.getSnapshot(), "samplecity"));
+
+        temperatureService.clearData();
+
+        assertEquals(3, temperatureService.getCityVersion(temperatureService.getSnapshot(), "samplecity"));
     }
 
     @Test
@@ -92,15 +394,46 @@ class TemperatureServiceTest {
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void bindTo_queriesAndPublishingMetered() {
+        initServiceWithSampleData("samplecity");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        temperatureService.bindTo(registry);
+
+        temperatureService.getYearlyAverageTemperatures("samplecity");
+        temperatureService.getTemperatureStatistics("samplecity", Granularity.MONTH, Metric.MAX);
+        temperatureService.beginBuild(1, true);
+        temperatureService.publishAggregates(true);
+
+        assertEquals(1, registry.get("temperature.query").tag("query", "yearly").timer().count());
+        assertEquals(1, registry.get("temperature.query").tag("query", "statistics").timer().count());
+        assertEquals(1, registry.get("temperature.snapshot.publish").timer().count());
+        assertEquals(1, registry.get("temperature.service.lock.wait").timer().count());
+        assertEquals(temperatureService.getGeneration(), registry.get("temperature.snapshot.generation").gauge().value());
+    }
+
+    @Test
+    void testGetYearlyPercentiles_entryWithoutSketch_publishedRollupUnchanged() {
+        CityDictionary cityDictionary = new CityDictionary();
+        RollupCube rollup = new RollupCube();
+        int entry = rollup.table(Granularity.YEAR).add(cityDictionary.idOf("samplecity"), 2021, 1000);
+        temperatureService = new TemperatureService(cityDictionary, rollup);
+
+        double[] result = temperatureService.getYearlyPercentiles("samplecity", new double[]{50}).get(2021);
+
+        assertTrue(Double.isNaN(result[0]));
+        assertNull(rollup.findSketch(entry));
+    }
+
     private void initServiceWithSampleData(String city) {
-        Map<Integer, Double> yearlyTemps = new HashMap<>();
-        yearlyTemps.put(2021, 30.0);
-        Map<Integer, Integer> yearlyCounts = new HashMap<>();
-        yearlyCounts.put(2021, 2);
-        Map<String, Map<Integer, Double>> cityYearlyTemperatures = new HashMap<>();
-        cityYearlyTemperatures.put(city, yearlyTemps);
-        Map<String, Map<Integer, Integer>> cityYearlyCounts = new HashMap<>();
-        cityYearlyCounts.put(city, yearlyCounts);
-        temperatureService = new TemperatureService(cityYearlyTemperatures, cityYearlyCounts);
+        CityDictionary cityDictionary = new CityDictionary();
+        RollupCube rollup = new RollupCube();
+        rollup.add(cityDictionary.idOf(city), epochMillis(LocalDateTime.of(2021, 1, 1, 0, 0)), 1000);
+        rollup.add(cityDictionary.idOf(city), epochMillis(LocalDateTime.of(2021, 2, 1, 0, 0)), 2000);
+        temperatureService = new TemperatureService(cityDictionary, rollup);
+    }
+
+    private static long epochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
     }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.daycode.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ThrottledJobRepositoryTest {
+
+    private final JobRepository delegate = mock(JobRepository.class);
+    private final AtomicLong bytes = new AtomicLong();
+    private final ThrottledJobRepository repository = new ThrottledJobRepository(delegate, bytes::get, 100);
+
+    @Test
+    void update_runningStep_savedOncePerInterval() {
+        StepExecution stepExecution = stepExecution();
+
+        for (int chunk = 0; chunk < 10; chunk++) {
+            bytes.addAndGet(30);
+            repository.updateExecutionContext(stepExecution);
+            repository.update(stepExecution);
+        }
+
+        // first update, then after 120 and 240 bytes
+        verify(delegate, times(3)).update(stepExecution);
+        verify(delegate, times(3)).updateExecutionContext(stepExecution);
+    }
+
+    @Test
+    void update_finishedStep_alwaysSaved() {
+        StepExecution stepExecution = stepExecution();
+        repository.update(stepExecution);
+        repository.update(stepExecution);
+
+        stepExecution.setStatus(BatchStatus.FAILED);
+        repository.updateExecutionContext(stepExecution);
+        repository.update(stepExecution);
+
+        verify(delegate, times(2)).update(stepExecution);
+        verify(delegate).updateExecutionContext(stepExecution);
+    }
+
+    private static StepExecution stepExecution() {
+        StepExecution stepExecution = new StepExecution("sumTemperatures", new JobExecution(1L), 1L);
+        stepExecution.setStatus(BatchStatus.STARTED);
+        return stepExecution;
+    }
+}
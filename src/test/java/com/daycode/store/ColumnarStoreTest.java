@@ -0,0 +1,149 @@
+package com.daycode.store;
+
+import com.daycode.model.BatchProperties;
+import com.daycode.model.TemperatureRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnarStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ColumnarStore columnarStore;
+
+    @BeforeEach
+    void setUp() {
+        BatchProperties batchProperties = new BatchProperties();
+        batchProperties.setMaxPoolSize(3);
+        batchProperties.setColumnarStorePath(tempDir.resolve("records.tcol").toString());
+        columnarStore = new ColumnarStore(batchProperties);
+    }
+
+    @Test
+    void finish_writtenBlocks_scannedInParallel() throws IOException {
+        columnarStore.begin(1L, false, true);
+        long expectedSum = 0;
+        for (int chunk = 0; chunk < 20; chunk++) {
+            List<TemperatureRecord> records = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                int temperature = chunk * 100 - i * 7;
+                records.add(record(i % 3 == 0 ? "Opole" : " Kraków", LocalDateTime.of(2000 + chunk, 1, 1, 0, 0)
+                        .minusMinutes(i * 1000L), temperature));
+                expectedSum += temperature;
+            }
+            columnarStore.append(records);
+        }
+        columnarStore.finish();
+
+        ColumnarStoreReader reader = columnarStore.reader().orElseThrow();
+        List<Collector> collectors = reader.scan(columnarStore.getScanExecutor(), 3, Collector::new);
+
+        assertEquals(1000L, reader.getRecordCount());
+        assertEquals(List.of("opole", "kraków"), List.of(reader.getCityNames()));
+        assertTrue(collectors.size() >= 3);
+        assertEquals(1000L, collectors.stream().mapToLong(collector -> collector.count).sum());
+        assertEquals(expectedSum, collectors.stream().mapToLong(collector -> collector.sum).sum());
+        assertEquals(LocalDateTime.of(2000, 1, 1, 0, 0).minusMinutes(49_000).toInstant(ZoneOffset.UTC).toEpochMilli(),
+                collectors.stream().mapToLong(collector -> collector.minEpochMillis).min().orElseThrow());
+    }
+
+    @Test
+    void append_recordsWithoutCity_skipped() throws IOException {
+        columnarStore.begin(1L, false, true);
+        columnarStore.append(List.of(record("Opole", LocalDateTime.of(2020, 1, 1, 0, 0), 100),
+                record(" ", LocalDateTime.of(2020, 1, 1, 0, 0), 200), new TemperatureRecord()));
+        columnarStore.finish();
+
+        List<Collector> collectors = columnarStore.reader().orElseThrow()
+                .scan(columnarStore.getScanExecutor(), 1, Collector::new);
+
+        assertEquals(1, collectors.get(0).count);
+        assertEquals(100, collectors.get(0).sum);
+    }
+
+    @Test
+    void begin_incrementalJob_blocksAppended() throws IOException {
+        columnarStore.begin(1L, false, true);
+        columnarStore.append(List.of(record("Opole", LocalDateTime.of(2020, 1, 1, 0, 0), 100)));
+        columnarStore.finish();
+
+        columnarStore.begin(2L, true, true);
+        columnarStore.append(List.of(record("Wrocław", LocalDateTime.of(2021, 1, 1, 0, 0), 300)));
+        columnarStore.finish();
+
+        ColumnarStoreReader reader = columnarStore.reader().orElseThrow();
+        assertEquals(2L, reader.getRecordCount());
+        assertEquals(List.of("opole", "wrocław"), List.of(reader.getCityNames()));
+        assertEquals(400, reader.scan(columnarStore.getScanExecutor(), 1, Collector::new).get(0).sum);
+    }
+
+    @Test
+    void begin_incrementalJobWithoutFile_recordsNotStored() {
+        columnarStore.begin(1L, true, true);
+        columnarStore.append(List.of(record("Opole", LocalDateTime.of(2020, 1, 1, 0, 0), 100)));
+        columnarStore.finish();
+
+        assertTrue(columnarStore.reader().isEmpty());
+    }
+
+    @Test
+    void begin_restartOfSameJob_blocksKept() throws IOException {
+        columnarStore.begin(1L, false, true);
+        columnarStore.append(List.of(record("Opole", LocalDateTime.of(2020, 1, 1, 0, 0), 100)));
+
+        assertTrue(columnarStore.reader().isEmpty());
+
+        columnarStore.begin(1L, false, true);
+        columnarStore.append(List.of(record("Opole", LocalDateTime.of(2020, 1, 2, 0, 0), 200)));
+        columnarStore.finish();
+
+        assertEquals(300, columnarStore.reader().orElseThrow()
+                .scan(columnarStore.getScanExecutor(), 1, Collector::new).get(0).sum);
+    }
+
+    @Test
+    void begin_restartOfSameJobReadingAgain_blocksDiscarded() throws IOException {
+        columnarStore.begin(1L, false, false);
+        columnarStore.append(List.of(record("Opole", LocalDateTime.of(2020, 1, 1, 0, 0), 100)));
+        columnarStore.begin(1L, false, false);
+        columnarStore.append(List.of(record("Opole", LocalDateTime.of(2020, 1, 1, 0, 0), 100)));
+        columnarStore.finish();
+
+        assertEquals(100, columnarStore.reader().orElseThrow()
+                .scan(columnarStore.getScanExecutor(), 1, Collector::new).get(0).sum);
+    }
+
+    private static TemperatureRecord record(String city, LocalDateTime timestamp, int temperatureHundredths) {
+        TemperatureRecord record = new TemperatureRecord();
+        record.setCity(city);
+        record.setTimestamp(timestamp);
+        record.setTemperatureHundredths(temperatureHundredths);
+        return record;
+    }
+
+    private static final class Collector implements RecordVisitor {
+
+        private long count;
+        private long sum;
+        private long minEpochMillis = Long.MAX_VALUE;
+
+        @Override
+        public void accept(int cityId, long epochMillis, int temperatureHundredths) {
+            count++;
+            sum += temperatureHundredths;
+            minEpochMillis = Math.min(minEpochMillis, epochMillis);
+        }
+    }
+}